@@ -1,15 +1,34 @@
 package com.open.capacity.itextpdfdemo;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
 import com.open.capacity.itextpdfdemo.basic.CreateHelloPdf;
+import com.open.capacity.itextpdfdemo.batch.ManifestBatchRunner;
+import com.open.capacity.itextpdfdemo.batch.ManifestReport;
 import com.open.capacity.itextpdfdemo.content.AddImageExample;
 import com.open.capacity.itextpdfdemo.content.AddTableExample;
 import com.open.capacity.itextpdfdemo.content.AddWatermarkExample;
+import com.open.capacity.itextpdfdemo.io.CompressionProfile;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
 import com.open.capacity.itextpdfdemo.page.MergePdfsExample;
+import com.open.capacity.itextpdfdemo.pipeline.JobGraph;
+import com.open.capacity.itextpdfdemo.pipeline.JobReport;
+import com.open.capacity.itextpdfdemo.pipeline.StepResult;
 
 /**
  * iText PDF 演示应用主类
  * 演示各种 PDF 操作功能
+ * 参数 --compression=FAST|DEFAULT|SMALLEST 选择所有输出文件使用的压缩配置，
+ * --compression-threads=N 使用N个线程并行压缩页面内容和图片（单核机器上没有加速），
+ * --workers=N 设置同时执行的演示步骤数。
+ * 指定 --manifest=清单文件 时改为按清单批量执行任务，--checkpoint=检查点文件 记录已完成的任务，
+ * 重新运行时跳过这些任务。
+ * --metrics 统计每种操作的次数、页数、读写字节数、耗时分布和各阶段耗时，
+ * 以JMX MBean的形式暴露并在结束时打印
  */
 public class ItextPdfDemoApplication {
 
@@ -17,30 +36,85 @@ public class ItextPdfDemoApplication {
     private static final String OUTPUT_DIR = "output/";
 
     public static void main(String[] args) throws Exception {
+        Integer workers = null;
+        Path manifest = null;
+        Path checkpoint = null;
+        for (String arg : args) {
+            if (arg.startsWith("--compression=")) {
+                PdfOutputs.setDefaultProfile(CompressionProfile.valueOf(arg.substring("--compression=".length())));
+            } else if (arg.startsWith("--compression-threads=")) {
+                PdfOutputs.setCompressionThreads(Integer.parseInt(arg.substring("--compression-threads=".length())));
+            } else if (arg.startsWith("--workers=")) {
+                workers = Integer.parseInt(arg.substring("--workers=".length()));
+            } else if (arg.startsWith("--manifest=")) {
+                manifest = Paths.get(arg.substring("--manifest=".length()));
+            } else if (arg.startsWith("--checkpoint=")) {
+                checkpoint = Paths.get(arg.substring("--checkpoint=".length()));
+            } else if (arg.equals("--metrics")) {
+                Metrics.setEnabled(true);
+                Metrics.registerMBeans();
+            }
+        }
+
+        if (manifest != null) {
+            ManifestBatchRunner runner = new ManifestBatchRunner().setCheckpoint(checkpoint);
+            if (workers != null) {
+                runner.setWorkers(workers);
+            }
+            ManifestReport report = runner.run(manifest);
+            printMetrics();
+            if (report.getFailed() > 0) {
+                for (Map.Entry<String, String> failure : report.getFailures().entrySet()) {
+                    System.err.println("任务失败: " + failure.getKey() + ", 错误: " + failure.getValue());
+                }
+                throw new IllegalStateException("任务清单未全部完成: " + report);
+            }
+            return;
+        }
+
         // 创建输出目录
         new File(OUTPUT_DIR).mkdirs();
 
-        // 1. 创建基础PDF
-        String helloPdf = OUTPUT_DIR + "hello.pdf";
-        CreateHelloPdf.create(helloPdf);
+        JobGraph graph = new JobGraph();
+        if (workers != null) {
+            graph.setWorkers(workers);
+        }
 
-        // 2. 添加图片
+        String helloPdf = OUTPUT_DIR + "hello.pdf";
         String imagePdf = OUTPUT_DIR + "with_image.pdf";
-        AddImageExample.create(imagePdf, "src/main/resources/images/sample.png");
-
-        // 3. 添加表格
         String tablePdf = OUTPUT_DIR + "with_table.pdf";
-        AddTableExample.create(tablePdf);
-
-        // 4. 给基础PDF添加水印
         String watermarkPdf = OUTPUT_DIR + "hello_with_watermark.pdf";
-        AddWatermarkExample.add(helloPdf, watermarkPdf);
+        String mergedPdf = OUTPUT_DIR + "merged.pdf";
 
+        // 1. 创建基础PDF
+        graph.addStep("hello", () -> CreateHelloPdf.create(helloPdf));
+        // 2. 添加图片
+        graph.addStep("image", () -> AddImageExample.create(imagePdf, "src/main/resources/images/sample.png"));
+        // 3. 添加表格
+        graph.addStep("table", () -> AddTableExample.create(tablePdf));
+        // 4. 给基础PDF添加水印
+        graph.addStep("watermark", () -> AddWatermarkExample.add(helloPdf, watermarkPdf), "hello");
         // 5. 合并PDF
-        String mergedPdf = OUTPUT_DIR + "merged.pdf";
-        MergePdfsExample.merge(new String[]{helloPdf, imagePdf, tablePdf}, mergedPdf);
+        graph.addStep("merge", () -> MergePdfsExample.merge(new String[]{helloPdf, imagePdf, tablePdf}, mergedPdf),
+                "hello", "image", "table");
+
+        JobReport report = graph.run();
+        for (StepResult result : report.getResults()) {
+            System.out.println(result);
+        }
+        System.out.println(report);
+        printMetrics();
+        if (!report.isSuccessful()) {
+            throw new IllegalStateException("演示未全部完成: " + report);
+        }
 
         System.out.println("所有演示完成，输出文件在: " + new File(OUTPUT_DIR).getAbsolutePath());
     }
 
+    private static void printMetrics() {
+        if (Metrics.isEnabled()) {
+            System.out.print(Metrics.report());
+        }
+    }
+
 }
@@ -2,28 +2,61 @@ package  com.open.capacity.itextpdfdemo.advanced;
 
 
 import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
-import com.itextpdf.kernel.pdf.PdfOutputIntent;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.pdfa.PdfADocument;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
 
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 public class CreatePdfAExample {
+
+    private static final PdfAConformanceLevel CONFORMANCE_LEVEL = PdfAConformanceLevel.PDF_A_1B;
+
     public static void create(String dest, String iccProfilePath) throws IOException {
-        // 创建PDF/A文档
-        PdfWriter writer = new PdfWriter(dest);
-        PdfADocument pdf = new PdfADocument(writer, PdfAConformanceLevel.PDF_A_1B,
-                new PdfOutputIntent("Custom", "", "http://www.color.org",
-                        "sRGB IEC61966-2.1", new FileInputStream(iccProfilePath)));
-
-        try (Document document = new Document(pdf)) {
-            document.add(new Paragraph("这是一个PDF/A-1B合规文档"));
-            document.add(new Paragraph("PDF/A是用于长期归档的PDF格式"));
-        }
+        create(dest, PdfAContext.forProfile(iccProfilePath));
+    }
+
+    /**
+     * 使用指定的嵌入字体创建PDF/A文档，PDF/A要求文档中使用的字体全部嵌入
+     */
+    public static void create(String dest, String iccProfilePath, String fontPath) throws IOException {
+        create(dest, PdfAContext.forProfile(iccProfilePath, fontPath));
+    }
 
+    /**
+     * 使用已加载的PDF/A上下文创建文档，ICC配置文件不再从磁盘读取
+     */
+    public static void create(String dest, PdfAContext context) throws IOException {
+        write(PdfOutputs.newWriter(dest, CONFORMANCE_LEVEL), context);
         System.out.println("PDF/A文档创建成功: " + dest);
     }
-}
\ No newline at end of file
+
+    /**
+     * 写入调用方提供的输出流，不关闭输出流
+     */
+    public static void create(OutputStream out, PdfAContext context) throws IOException {
+        write(PdfOutputs.newWriter(out, CONFORMANCE_LEVEL), context);
+    }
+
+    private static void write(PdfWriter writer, PdfAContext context) throws IOException {
+        try (OperationTimer timer = Metrics.start("pdfa", Phase.LAYOUT)) {
+            // 创建PDF/A文档
+            PdfADocument pdf = context.createDocument(writer, CONFORMANCE_LEVEL);
+
+            try (Document document = new Document(pdf)) {
+                if (context.hasFont()) {
+                    document.setFont(context.createFont());
+                }
+                document.add(new Paragraph("这是一个PDF/A-1B合规文档"));
+                document.add(new Paragraph("PDF/A是用于长期归档的PDF格式"));
+            }
+            timer.success();
+        }
+    }
+}
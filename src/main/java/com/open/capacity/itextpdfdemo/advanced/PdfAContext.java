@@ -0,0 +1,129 @@
+package com.open.capacity.itextpdfdemo.advanced;
+
+import com.itextpdf.io.colors.IccProfile;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfOutputIntent;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.colorspace.PdfCieBasedCs;
+import com.itextpdf.pdfa.PdfADocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 可复用的PDF/A上下文
+ *
+ * ICC配置文件只读取和校验一次，之后每个新文档都从内存中的配置文件生成自己的输出意图，
+ * 不再为每个文档打开文件。可选的嵌入字体同样只读取和解析一次，PDF/A要求所有字体都嵌入。
+ * 上下文创建后不再修改，可以在多个线程之间共享。
+ */
+public class PdfAContext {
+
+    private static final ConcurrentMap<String, PdfAContext> CONTEXTS = new ConcurrentHashMap<>();
+
+    private final IccProfile iccProfile;
+
+    private final FontProgram fontProgram;
+
+    /**
+     * @param iccProfile  ICC配置文件内容
+     * @param fontProgram 嵌入字体文件内容，为空时文档不能使用字体
+     * @throws IOException 字体文件无法解析
+     */
+    public PdfAContext(byte[] iccProfile, byte[] fontProgram) throws IOException {
+        // 不合法的配置文件和字体在加载时就被拒绝，不会等到生成文档时才发现
+        validate(iccProfile);
+        this.iccProfile = IccProfile.getInstance(iccProfile);
+        this.fontProgram = fontProgram != null ? FontProgramFactory.createFont(fontProgram, false) : null;
+    }
+
+    /**
+     * 获取指定ICC配置文件的上下文，同一个文件在进程中只读取一次
+     */
+    public static PdfAContext forProfile(String iccProfilePath) throws IOException {
+        return forProfile(iccProfilePath, null);
+    }
+
+    /**
+     * 获取指定ICC配置文件和嵌入字体的上下文，同样的组合在进程中只读取一次
+     */
+    public static PdfAContext forProfile(String iccProfilePath, String fontPath) throws IOException {
+        String key = new File(iccProfilePath).getAbsolutePath()
+                + '|' + (fontPath != null ? new File(fontPath).getAbsolutePath() : "");
+        try {
+            return CONTEXTS.computeIfAbsent(key, k -> {
+                try {
+                    return new PdfAContext(Files.readAllBytes(Paths.get(iccProfilePath)),
+                            fontPath != null ? Files.readAllBytes(Paths.get(fontPath)) : null);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 为一个新文档创建输出意图，输出意图属于具体的文档，不能在文档之间共享
+     */
+    public PdfOutputIntent createOutputIntent() {
+        PdfOutputIntent outputIntent = new PdfOutputIntent("Custom", "", "http://www.color.org",
+                "sRGB IEC61966-2.1", null);
+        outputIntent.getPdfObject().put(PdfName.DestOutputProfile,
+                PdfCieBasedCs.IccBased.getIccProfileStream(iccProfile));
+        return outputIntent;
+    }
+
+    /**
+     * 创建使用本上下文输出意图的PDF/A文档
+     */
+    public PdfADocument createDocument(PdfWriter writer, PdfAConformanceLevel conformanceLevel) {
+        return new PdfADocument(writer, conformanceLevel, createOutputIntent());
+    }
+
+    public boolean hasFont() {
+        return fontProgram != null;
+    }
+
+    /**
+     * 为一个文档创建嵌入字体。字体程序在所有文档之间共享，嵌入子集时iText使用独立的读取视图，
+     * 每个文档只创建自己的 {@link PdfFont} 记录用到的字形
+     */
+    public PdfFont createFont() {
+        if (fontProgram == null) {
+            throw new IllegalStateException("no font configured for this PDF/A context");
+        }
+        return PdfFontFactory.createFont(fontProgram, PdfEncodings.IDENTITY_H,
+                PdfFontFactory.EmbeddingStrategy.FORCE_EMBEDDED);
+    }
+
+    /**
+     * 检查ICC配置文件头：长度字段与实际长度一致，并且包含 "acsp" 签名
+     */
+    private static void validate(byte[] iccProfile) {
+        if (iccProfile.length < 128) {
+            throw new IllegalArgumentException("ICC profile too short: " + iccProfile.length + " bytes");
+        }
+        long declared = ((iccProfile[0] & 0xFFL) << 24) | ((iccProfile[1] & 0xFF) << 16)
+                | ((iccProfile[2] & 0xFF) << 8) | (iccProfile[3] & 0xFF);
+        if (declared != iccProfile.length) {
+            throw new IllegalArgumentException("ICC profile size mismatch: header says " + declared
+                    + " bytes, got " + iccProfile.length);
+        }
+        if (iccProfile[36] != 'a' || iccProfile[37] != 'c' || iccProfile[38] != 's' || iccProfile[39] != 'p') {
+            throw new IllegalArgumentException("not an ICC profile: missing 'acsp' signature");
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.open.capacity.itextpdfdemo.advanced;
+
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.styledxmlparser.node.IAttribute;
+import com.itextpdf.styledxmlparser.node.IDataNode;
+import com.itextpdf.styledxmlparser.node.IElementNode;
+import com.itextpdf.styledxmlparser.node.INode;
+import com.itextpdf.styledxmlparser.node.ITextNode;
+import com.itextpdf.svg.converter.SvgConverter;
+import com.itextpdf.svg.processors.impl.SvgConverterProperties;
+import com.open.capacity.itextpdfdemo.content.DocumentXObjects;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
+import com.open.capacity.itextpdfdemo.metrics.PhaseScope;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SVG解析和转换结果的缓存
+ *
+ * 以SVG内容的SHA-256和解析相对路径的基准URI为键缓存解析后的节点树和转换好的表单XObject。
+ * 同一个SVG只解析、转换一次，之后放入其他文档时直接复制已经生成的PDF对象；在同一个文档中多次使用时只复制一次，各处引用同一个XObject。
+ * 转换结果保存在一个只有一页的内存PDF中，字体等资源在其中已经完整写出，可以安全地复制到任何文档。
+ * 复制时流按原样写出，缓存的XObject保持它生成时的默认压缩配置。
+ * 缓存同时按SVG个数和字节数设上限，字节数为模板PDF的大小加上按节点和文本估算的节点树大小，
+ * 超过任一上限时淘汰最久未使用的SVG，并统计命中、未命中和淘汰次数。
+ */
+public class SvgCache {
+
+    private static final SvgCache DEFAULT = new SvgCache(256, 32L * 1024 * 1024);
+
+    /**
+     * 估算节点树大小时每个节点、每个属性的固定开销（对象头、引用和集合）
+     */
+    private static final int NODE_OVERHEAD = 160;
+
+    private static final int ATTRIBUTE_OVERHEAD = 96;
+
+    private final LinkedHashMap<String, CachedSvg> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 每个文档中已经复制的XObject，不会让已经关闭或被丢弃的文档留在内存中
+     */
+    private final DocumentXObjects<PdfFormXObject> copied = new DocumentXObjects<>(PdfFormXObject::new);
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final int maxEntries;
+
+    private long maxBytes;
+
+    private long currentBytes;
+
+    /**
+     * 只按SVG个数设上限
+     */
+    public SvgCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param maxEntries 最多保存的SVG个数
+     * @param maxBytes   模板PDF和估算的节点树大小之和的上限
+     */
+    public SvgCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 进程级默认缓存，最多保存256个不同的SVG、32MB
+     */
+    public static SvgCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 读取SVG文件并返回它在指定文档中的XObject，SVG中引用的图片等相对路径按SVG文件所在的目录解析
+     */
+    public PdfFormXObject getXObject(PdfDocument pdf, String svgPath) throws IOException {
+        Path path = Paths.get(svgPath).toAbsolutePath();
+        return getXObject(pdf, Files.readAllBytes(path), path.getParent().toUri().toString());
+    }
+
+    /**
+     * 返回SVG内容在指定文档中的XObject，相对路径按当前工作目录解析
+     */
+    public PdfFormXObject getXObject(PdfDocument pdf, byte[] svg) throws IOException {
+        return getXObject(pdf, svg, null);
+    }
+
+    /**
+     * 返回SVG内容在指定文档中的XObject，同一文档中相同的内容和基准URI只复制一次
+     *
+     * @param baseUri 解析SVG中相对路径的基准URI，为空时使用当前工作目录
+     */
+    public PdfFormXObject getXObject(PdfDocument pdf, byte[] svg, String baseUri) throws IOException {
+        String key = baseUri == null ? hash(svg) : hash(svg) + " " + baseUri;
+        PdfFormXObject cached = copied.get(pdf, key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CachedSvg entry = entry(key, baseUri);
+        PdfFormXObject xObject;
+        long bytes;
+        synchronized (entry) {
+            xObject = entry.copyTo(pdf, svg);
+            bytes = entry.estimateBytes();
+        }
+        resize(key, entry, bytes);
+        return copied.putIfAbsent(pdf, key, xObject);
+    }
+
+    /**
+     * 解析SVG内容，相同的内容只解析一次
+     */
+    public INode parse(byte[] svg) {
+        String key = hash(svg);
+        CachedSvg entry = entry(key, null);
+        INode node;
+        long bytes;
+        synchronized (entry) {
+            node = entry.node(svg);
+            bytes = entry.estimateBytes();
+        }
+        resize(key, entry, bytes);
+        return node;
+    }
+
+    /**
+     * 设置缓存的字节数上限，缩小时立即淘汰多出的SVG
+     */
+    public synchronized SvgCache setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        evictIfNeeded();
+        return this;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 清空缓存和统计
+     */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "命中 " + getHits() + ", 未命中 " + getMisses() + ", 淘汰 " + getEvictions()
+                + ", 缓存 " + size() + " 个SVG/" + getCurrentBytes() + " bytes";
+    }
+
+    private synchronized CachedSvg entry(String key, String baseUri) {
+        CachedSvg entry = entries.get(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        entry = new CachedSvg(baseUri);
+        entries.put(key, entry);
+        evictIfNeeded();
+        return entry;
+    }
+
+    /**
+     * 解析或转换后更新条目的大小。条目已经被淘汰时不再计入，调用方仍然可以使用它的结果
+     */
+    private synchronized void resize(String key, CachedSvg entry, long bytes) {
+        if (entries.get(key) != entry) {
+            return;
+        }
+        currentBytes += bytes - entry.bytes;
+        entry.bytes = bytes;
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<CachedSvg> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && eldest.hasNext()) {
+            currentBytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * 估算节点树占用的内存：每个节点和属性按固定开销加上字符串内容（每个字符2字节）计算
+     */
+    static long estimateTreeBytes(INode root) {
+        long bytes = 0;
+        Deque<INode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            INode node = pending.pop();
+            bytes += NODE_OVERHEAD;
+            if (node instanceof IElementNode) {
+                IElementNode element = (IElementNode) node;
+                bytes += 2L * element.name().length();
+                for (IAttribute attribute : element.getAttributes()) {
+                    bytes += ATTRIBUTE_OVERHEAD + 2L * (attribute.getKey().length() + attribute.getValue().length());
+                }
+            } else if (node instanceof ITextNode) {
+                bytes += 2L * ((ITextNode) node).wholeText().length();
+            } else if (node instanceof IDataNode) {
+                bytes += 2L * ((IDataNode) node).getWholeData().length();
+            }
+            for (INode child : node.childNodes()) {
+                pending.push(child);
+            }
+        }
+        return bytes;
+    }
+
+    static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 一个SVG的解析结果和转换结果，都在第一次使用时生成，访问时由调用方加锁
+     */
+    private static class CachedSvg {
+
+        private final String baseUri;
+
+        /**
+         * 计入缓存的字节数，由缓存加锁访问
+         */
+        private long bytes;
+
+        private INode node;
+
+        private long nodeBytes;
+
+        /**
+         * 包含转换结果的单页PDF
+         */
+        private byte[] template;
+
+        CachedSvg(String baseUri) {
+            this.baseUri = baseUri;
+        }
+
+        @SuppressWarnings("try")
+        INode node(byte[] svg) {
+            if (node == null) {
+                try (PhaseScope ignored = Metrics.phase(Phase.PARSE)) {
+                    node = SvgConverter.parse(new ByteArrayInputStream(svg));
+                    nodeBytes = estimateTreeBytes(node);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return node;
+        }
+
+        /**
+         * 已经生成的模板和节点树的估算大小
+         */
+        long estimateBytes() {
+            return (template != null ? template.length : 0) + nodeBytes;
+        }
+
+        /**
+         * 从模板PDF中取出XObject复制到指定文档。模板PDF只有一页，每次复制时打开、复制完成后关闭，
+         * 不在缓存中保留打开的文档
+         */
+        PdfFormXObject copyTo(PdfDocument pdf, byte[] svg) throws IOException {
+            try (PdfDocument written = new PdfDocument(new PdfReader(new ByteArrayInputStream(template(svg))))) {
+                PdfDictionary xObjects = written.getPage(1).getResources().getResource(PdfName.XObject);
+                PdfStream stream = xObjects.getAsStream(xObjects.keySet().iterator().next());
+                return new PdfFormXObject((PdfStream) stream.copyTo(pdf));
+            }
+        }
+
+        /**
+         * 把SVG转换为XObject，画在一个与它同样大小的页面上并写出，写出的内存PDF作为以后复制的模板
+         */
+        private byte[] template(byte[] svg) {
+            if (template == null) {
+                // 模板文档单独统计，不计入使用它的操作的页数和字节数
+                try (OperationTimer timer = Metrics.start("svg-template", Phase.LAYOUT)) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    PdfDocument pdf = new PdfDocument(PdfOutputs.newWriter(out));
+                    SvgConverterProperties properties = new SvgConverterProperties();
+                    if (baseUri != null) {
+                        properties.setBaseUri(baseUri);
+                    }
+                    PdfFormXObject xObject = SvgConverter.convertToXObject(
+                            SvgConverter.process(node(svg), properties).getRootRenderer(), pdf);
+                    PdfPage page = pdf.addNewPage(new PageSize(xObject.getBBox().toRectangle()));
+                    new PdfCanvas(page).addXObjectAt(xObject, 0, 0);
+                    pdf.close();
+                    template = out.toByteArray();
+                    timer.success();
+                }
+            }
+            return template;
+        }
+    }
+}
@@ -2,24 +2,48 @@ package  com.open.capacity.itextpdfdemo.advanced;
 
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
 import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Image;
 import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.properties.UnitValue;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
 
 public class SvgToPdfExample {
-    public static void create(String dest, String svgPath) throws FileNotFoundException {
-        PdfWriter writer = new PdfWriter(dest);
-        PdfDocument pdf = new PdfDocument(writer);
+    /**
+     * 把SVG转换为矢量的表单XObject放入PDF，解析和转换结果通过 {@link SvgCache} 复用
+     */
+    public static void create(String dest, String svgPath) throws IOException {
+        write(PdfOutputs.newWriter(dest), svgPath);
+        System.out.println("SVG转换为PDF成功: " + dest);
+    }
+
+    /**
+     * 写入调用方提供的输出流，不关闭输出流
+     */
+    public static void create(OutputStream out, String svgPath) throws IOException {
+        write(PdfOutputs.newWriter(out), svgPath);
+    }
+
+    private static void write(PdfWriter writer, String svgPath) throws IOException {
+        try (OperationTimer timer = Metrics.start("svg", Phase.LAYOUT)) {
+            PdfDocument pdf = new PdfDocument(writer);
 
-        try (Document document = new Document(pdf)) {
-            document.add(new Paragraph("SVG转换为PDF示例:"));
-            document.add(new Paragraph("SVG文件路径: " + svgPath));
-            document.add(new Paragraph("PDF文件路径: " + dest));
-            document.add(new Paragraph("PDF文件内容:"));
-            document.add(new Paragraph("这是一个PDF文档示例"));
+            try (Document document = new Document(pdf)) {
+                document.add(new Paragraph("SVG转换为PDF示例:"));
+                document.add(new Paragraph("SVG文件路径: " + svgPath));
 
+                PdfFormXObject svg = SvgCache.getDefault().getXObject(pdf, svgPath);
+                // 比页面宽的SVG按比例缩小到页面宽度
+                document.add(new Image(svg).setMaxWidth(UnitValue.createPercentValue(100)));
+            }
+            timer.success();
         }
-        System.out.println("SVG转换为PDF成功: " + dest);
     }
-}
\ No newline at end of file
+}
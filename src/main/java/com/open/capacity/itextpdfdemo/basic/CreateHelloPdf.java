@@ -4,21 +4,40 @@ import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Paragraph;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
 
 import java.io.FileNotFoundException;
+import java.io.OutputStream;
 
 public class CreateHelloPdf {
     public static void create(String dest) throws FileNotFoundException {
         // 创建PDF写入器
-        PdfWriter writer = new PdfWriter(dest);
-        // 创建PDF文档
-        PdfDocument pdf = new PdfDocument(writer);
-        // 创建布局文档
-        try (Document document = new Document(pdf)) {
-            // 添加内容
-            document.add(new Paragraph("Hello, iText PDF!"));
-            document.add(new Paragraph("这是一个简单的PDF文档示例"));
-        }
+        PdfWriter writer = PdfOutputs.newWriter(dest);
+        write(writer);
         System.out.println("基础PDF创建成功: " + dest);
     }
-}
\ No newline at end of file
+
+    /**
+     * 写入调用方提供的输出流（例如 {@link com.open.capacity.itextpdfdemo.io.PooledBuffer}），不关闭输出流
+     */
+    public static void create(OutputStream out) {
+        write(PdfOutputs.newWriter(out));
+    }
+
+    private static void write(PdfWriter writer) {
+        try (OperationTimer timer = Metrics.start("create", Phase.LAYOUT)) {
+            // 创建PDF文档
+            PdfDocument pdf = new PdfDocument(writer);
+            // 创建布局文档
+            try (Document document = new Document(pdf)) {
+                // 添加内容
+                document.add(new Paragraph("Hello, iText PDF!"));
+                document.add(new Paragraph("这是一个简单的PDF文档示例"));
+            }
+            timer.success();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.open.capacity.itextpdfdemo.basic;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Canvas;
+import com.itextpdf.layout.element.IBlockElement;
+import com.itextpdf.layout.element.Paragraph;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的单页文档模板
+ *
+ * 适合大量生成内容基本相同、只有少数字段不同的文档（例如信函）。固定内容在 {@link #compile()} 时
+ * 排版一次并写成一个表单XObject，之后每个文档只复制这个已经写好的XObject，
+ * 再在各个字段的区域中排版字段的值。字体文件只读取和解析一次。
+ * <p>
+ * 嵌入字体的子集在编译时生成，除了固定内容用到的字符，还预先包含字段常用的字符（默认为ASCII和Latin-1），
+ * 每个文档直接复制这个子集，不再为每个文档生成和压缩字体子集。字段用共享的字体程序排版，
+ * 不再为每个文档解析子集的字体字典，写出时字体字典换成复制来的子集（子集保留原来的字形编号，编码相同）。
+ * 字段的值包含子集以外的字符时，该字段改用为这个文档单独生成子集的字体。
+ * <p>
+ * 固定内容中的元素不要自己设置字体，统一使用模板的字体；字段的值超出区域的部分不会显示。
+ * 编译后的模板可以在多个线程中同时使用。
+ */
+public class DocumentTemplate {
+
+    private final PageSize pageSize;
+
+    private final List<StaticBlock> staticBlocks = new ArrayList<>();
+
+    private final Map<String, Field> fields = new LinkedHashMap<>();
+
+    private FontProgram fontProgram;
+
+    private String fieldCharacters = defaultFieldCharacters();
+
+    private PdfStream staticLayer;
+
+    private PdfDictionary templateFont;
+
+    /**
+     * 从模板字体字典解析的字体，只用于判断字符是否在子集中
+     */
+    private PdfFont templateGlyphs;
+
+    public DocumentTemplate(PageSize pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * 设置模板使用的字体文件，默认使用不嵌入的Helvetica（不支持中文）
+     */
+    public DocumentTemplate setFont(String fontPath) throws IOException {
+        checkNotCompiled();
+        this.fontProgram = FontProgramFactory.createFont(Files.readAllBytes(Paths.get(fontPath)), false);
+        return this;
+    }
+
+    /**
+     * 设置预先放入字体子集的字段字符，默认为可打印的ASCII和Latin-1字符
+     */
+    public DocumentTemplate setFieldCharacters(String fieldCharacters) {
+        checkNotCompiled();
+        this.fieldCharacters = fieldCharacters;
+        return this;
+    }
+
+    /**
+     * 添加在指定区域中依次排版的固定内容
+     */
+    public DocumentTemplate addStatic(Rectangle area, IBlockElement... elements) {
+        checkNotCompiled();
+        staticBlocks.add(new StaticBlock(area, Arrays.asList(elements)));
+        return this;
+    }
+
+    /**
+     * 添加字号为12的字段
+     */
+    public DocumentTemplate addField(String name, Rectangle area) {
+        return addField(name, area, 12);
+    }
+
+    /**
+     * 添加字段，每个文档在指定区域中排版字段的值
+     */
+    public DocumentTemplate addField(String name, Rectangle area, float fontSize) {
+        checkNotCompiled();
+        fields.put(name, new Field(area, fontSize));
+        return this;
+    }
+
+    /**
+     * 排版固定内容并生成可以复制到任何文档的XObject。
+     * 固定内容写入一个内存PDF再读回，字体子集等资源已经完整写出，复制时不会缺少内容
+     * 固定内容的流使用编译时的默认压缩配置
+     */
+    public synchronized DocumentTemplate compile() throws IOException {
+        if (staticLayer != null) {
+            return this;
+        }
+        try (OperationTimer timer = Metrics.start("template-compile", Phase.LAYOUT)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            PdfDocument pdf = new PdfDocument(PdfOutputs.newWriter(out));
+            PdfFont font = createFont();
+            // 把字段字符加入字体子集
+            font.convertToBytes(fieldCharacters);
+            PdfFormXObject layer = new PdfFormXObject(pageSize);
+            PdfCanvas layerCanvas = new PdfCanvas(layer, pdf);
+            for (StaticBlock block : staticBlocks) {
+                Canvas canvas = new Canvas(layerCanvas, block.area);
+                canvas.setFont(font);
+                for (IBlockElement element : block.elements) {
+                    canvas.add(element);
+                }
+                canvas.close();
+            }
+            PdfPage page = pdf.addNewPage(pageSize);
+            new PdfCanvas(page).addXObjectAt(layer, 0, 0);
+            // 固定内容可能没有用到字体，放入页面资源保证字体被写出
+            PdfName fontName = page.getResources().addFont(pdf, font);
+            pdf.close();
+
+            PdfDocument written = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())));
+            PdfResources resources = written.getPage(1).getResources();
+            PdfDictionary xObjects = resources.getResource(PdfName.XObject);
+            staticLayer = xObjects.getAsStream(xObjects.keySet().iterator().next());
+            templateFont = resources.getResource(PdfName.Font).getAsDictionary(fontName);
+            templateGlyphs = PdfFontFactory.createFont(templateFont);
+            timer.success();
+        }
+        return this;
+    }
+
+    /**
+     * 用字段的值生成文档并写入文件
+     */
+    public void render(Map<String, String> values, String dest) throws IOException {
+        try (OutputStream out = new FileOutputStream(dest)) {
+            render(values, out);
+        }
+    }
+
+    /**
+     * 用字段的值生成文档并写入输出流，输出流不会被关闭
+     *
+     * @throws IllegalArgumentException 缺少某个字段的值
+     */
+    public void render(Map<String, String> values, OutputStream out) throws IOException {
+        try (OperationTimer timer = Metrics.start("template", Phase.LAYOUT)) {
+            for (String name : fields.keySet()) {
+                if (!values.containsKey(name)) {
+                    throw new IllegalArgumentException("missing value for template field: " + name);
+                }
+            }
+            compile();
+
+            PdfDocument pdf = new PdfDocument(PdfOutputs.newWriter(out));
+            PdfFormXObject layer;
+            PdfDictionary copiedFont;
+            // 模板文档的对象是按需从内存中读取的，复制时需要串行。
+            // 固定内容引用的字体在复制固定内容时已经复制，这里取到的是同一个对象
+            synchronized (staticLayer) {
+                layer = new PdfFormXObject((PdfStream) staticLayer.copyTo(pdf));
+                copiedFont = (PdfDictionary) templateFont.copyTo(pdf);
+            }
+            // 嵌入的字体直接用共享的字体程序排版，标准字体的字典很小，直接解析
+            PdfFont font = fontProgram != null ? createFont() : PdfFontFactory.createFont(copiedFont);
+            PdfPage page = pdf.addNewPage(pageSize);
+            PdfCanvas pdfCanvas = new PdfCanvas(page);
+            pdfCanvas.addXObjectAt(layer, 0, 0);
+
+            PdfFont fallbackFont = null;
+            for (Map.Entry<String, Field> entry : fields.entrySet()) {
+                Field field = entry.getValue();
+                String value = values.get(entry.getKey());
+                PdfFont fieldFont = font;
+                if (!containsAll(templateGlyphs, value)) {
+                    if (fallbackFont == null) {
+                        fallbackFont = createFont();
+                    }
+                    fieldFont = fallbackFont;
+                }
+                Canvas canvas = new Canvas(pdfCanvas, field.area);
+                canvas.add(new Paragraph(value).setFont(fieldFont).setFontSize(field.fontSize).setMargin(0));
+                canvas.close();
+            }
+            if (fontProgram != null) {
+                writeAsTemplateFont(font, copiedFont);
+            }
+            pdf.close();
+            timer.success();
+        }
+    }
+
+    /**
+     * 把排版字段用的字体写成模板字体的内容。字体被提前写出，关闭文档时不会再为它生成子集
+     */
+    private static void writeAsTemplateFont(PdfFont font, PdfDictionary copiedFont) {
+        PdfDictionary dictionary = font.getPdfObject();
+        if (dictionary.getIndirectReference() == null) {
+            // 所有字段都使用了单独生成子集的字体
+            return;
+        }
+        dictionary.putAll(copiedFont);
+        dictionary.flush();
+    }
+
+    /**
+     * 为一个文档创建字体。字体程序在所有文档之间共享，嵌入子集时iText使用独立的读取视图
+     */
+    private PdfFont createFont() throws IOException {
+        if (fontProgram == null) {
+            return PdfFontFactory.createFont(StandardFonts.HELVETICA);
+        }
+        return PdfFontFactory.createFont(fontProgram, PdfEncodings.IDENTITY_H,
+                PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
+    }
+
+    private static boolean containsAll(PdfFont font, String value) {
+        for (int i = 0; i < value.length(); i = value.offsetByCodePoints(i, 1)) {
+            int codePoint = value.codePointAt(i);
+            if (!Character.isWhitespace(codePoint) && !font.containsGlyph(codePoint)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String defaultFieldCharacters() {
+        StringBuilder characters = new StringBuilder();
+        for (char c = 0x20; c < 0x7F; c++) {
+            characters.append(c);
+        }
+        for (char c = 0xA0; c <= 0xFF; c++) {
+            characters.append(c);
+        }
+        return characters.toString();
+    }
+
+    private synchronized void checkNotCompiled() {
+        if (staticLayer != null) {
+            throw new IllegalStateException("template is already compiled");
+        }
+    }
+
+    private static class StaticBlock {
+
+        private final Rectangle area;
+
+        private final List<IBlockElement> elements;
+
+        StaticBlock(Rectangle area, List<IBlockElement> elements) {
+            this.area = area;
+            this.elements = elements;
+        }
+    }
+
+    private static class Field {
+
+        private final Rectangle area;
+
+        private final float fontSize;
+
+        Field(Rectangle area, float fontSize) {
+            this.area = area;
+            this.fontSize = fontSize;
+        }
+    }
+}
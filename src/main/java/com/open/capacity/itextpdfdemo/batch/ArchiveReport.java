@@ -0,0 +1,96 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 批量PDF/A归档的执行结果统计，各阶段耗时为所有文件之和
+ */
+public class ArchiveReport {
+
+    private final int converted;
+
+    private final int skipped;
+
+    private final long pages;
+
+    private final long elapsedNanos;
+
+    private final long copyNanos;
+
+    private final long checkNanos;
+
+    private final long writeNanos;
+
+    private final Map<String, String> failures;
+
+    ArchiveReport(int converted, int skipped, long pages, long elapsedNanos, long copyNanos, long checkNanos,
+                  long writeNanos, Map<String, String> failures) {
+        this.converted = converted;
+        this.skipped = skipped;
+        this.pages = pages;
+        this.elapsedNanos = elapsedNanos;
+        this.copyNanos = copyNanos;
+        this.checkNanos = checkNanos;
+        this.writeNanos = writeNanos;
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    public int getConverted() {
+        return converted;
+    }
+
+    public int getFailed() {
+        return failures.size();
+    }
+
+    /**
+     * 结果日志中已经转换成功、本次跳过的文件数
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public long getPages() {
+        return pages;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 读取源文件并把页面复制到PDF/A文档的时间（不含复制过程中的合规检查）
+     */
+    public long getCopyNanos() {
+        return copyNanos;
+    }
+
+    /**
+     * PDF/A合规检查的时间
+     */
+    public long getCheckNanos() {
+        return checkNanos;
+    }
+
+    /**
+     * 关闭文档、写出文件的时间（不含关闭时的合规检查）
+     */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * 转换失败的源文件及错误信息
+     */
+    public Map<String, String> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("成功 %d 个, 失败 %d 个, 跳过 %d 个, %d 页, 耗时 %.1f ms, 复制 %.1f ms, 合规检查 %.1f ms, 写出 %.1f ms",
+                converted, getFailed(), skipped, pages, elapsedNanos / 1e6, copyNanos / 1e6, checkNanos / 1e6,
+                writeNanos / 1e6);
+    }
+}
@@ -0,0 +1,85 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量水印的执行结果统计
+ */
+public class BatchReport {
+
+    private final int succeeded;
+
+    private final long pages;
+
+    private final long elapsedNanos;
+
+    private final long p50Nanos;
+
+    private final long p99Nanos;
+
+    private final Map<WatermarkJob, String> failures;
+
+    BatchReport(int succeeded, long pages, long elapsedNanos, LatencyRecorder latencies,
+                Map<WatermarkJob, String> failures) {
+        this.succeeded = succeeded;
+        this.pages = pages;
+        this.elapsedNanos = elapsedNanos;
+        this.p50Nanos = latencies.percentile(50);
+        this.p99Nanos = latencies.percentile(99);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failures.size();
+    }
+
+    public long getPages() {
+        return pages;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getFilesPerSecond() {
+        return elapsedNanos == 0 ? 0 : succeeded / (elapsedNanos / 1e9);
+    }
+
+    public double getPagesPerSecond() {
+        return elapsedNanos == 0 ? 0 : pages / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * 单个文档处理延迟的中位数（纳秒）
+     */
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    /**
+     * 单个文档处理延迟的P99（纳秒）
+     */
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    /**
+     * 重试后仍然失败、已被隔离的任务及最后一次的错误信息
+     */
+    public Map<WatermarkJob, String> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("成功 %d 个, 失败 %d 个, %d 页, 耗时 %.1f ms, %.1f 文件/秒, %.1f 页/秒, p50 %.1f ms, p99 %.1f ms",
+                succeeded, getFailed(), pages, elapsedNanos / 1e6, getFilesPerSecond(), getPagesPerSecond(),
+                p50Nanos / 1e6, p99Nanos / 1e6);
+    }
+}
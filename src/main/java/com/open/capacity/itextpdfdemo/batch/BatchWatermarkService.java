@@ -0,0 +1,192 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import com.open.capacity.itextpdfdemo.content.AddWatermarkExample;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量水印服务
+ *
+ * 在固定大小的线程池上处理一个目录或一串水印任务，并通过两个信号量做背压：
+ * 同时打开的文档数和处理中的源文件总字节数都有上限，达到上限时提交线程阻塞，
+ * 不会一次性把所有任务读入内存。失败的任务按次数重试，仍然失败则被隔离。
+ */
+public class BatchWatermarkService {
+
+    private static final int KB = 1024;
+
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    private int maxOpenDocuments = workers * 2;
+
+    private long maxInFlightBytes = 256L * 1024 * 1024;
+
+    private int maxAttempts = 2;
+
+    private Path quarantineDir;
+
+    private WatermarkOperation operation = AddWatermarkExample::addShared;
+
+    /**
+     * 设置工作线程数
+     */
+    public BatchWatermarkService setWorkers(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * 设置同时打开的文档数上限
+     */
+    public BatchWatermarkService setMaxOpenDocuments(int maxOpenDocuments) {
+        this.maxOpenDocuments = maxOpenDocuments;
+        return this;
+    }
+
+    /**
+     * 设置处理中的源文件总字节数上限，超过上限的单个文件会独占全部额度
+     */
+    public BatchWatermarkService setMaxInFlightBytes(long maxInFlightBytes) {
+        this.maxInFlightBytes = maxInFlightBytes;
+        return this;
+    }
+
+    /**
+     * 设置每个任务的最大尝试次数（包括第一次）
+     */
+    public BatchWatermarkService setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * 设置隔离目录，最终失败的源文件会被复制到这里；为空时只在结果中记录
+     */
+    public BatchWatermarkService setQuarantineDir(Path quarantineDir) {
+        this.quarantineDir = quarantineDir;
+        return this;
+    }
+
+    /**
+     * 设置单个文件的水印操作，默认为 {@link AddWatermarkExample#addShared}
+     */
+    public BatchWatermarkService setOperation(WatermarkOperation operation) {
+        this.operation = operation;
+        return this;
+    }
+
+    /**
+     * 给目录中所有PDF文件添加水印，输出到目标目录中的同名文件
+     */
+    public BatchReport watermarkDirectory(Path srcDir, Path destDir) throws IOException, InterruptedException {
+        Files.createDirectories(destDir);
+        List<WatermarkJob> jobs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(srcDir, "*.pdf")) {
+            for (Path file : files) {
+                jobs.add(new WatermarkJob(file.toString(), destDir.resolve(file.getFileName()).toString()));
+            }
+        }
+        return run(jobs.iterator());
+    }
+
+    /**
+     * 执行一串水印任务，任务按需从迭代器中取出，等全部完成后返回统计结果
+     */
+    public BatchReport run(Iterator<WatermarkJob> jobs) throws InterruptedException {
+        int byteBudget = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxInFlightBytes / KB));
+        Semaphore openDocuments = new Semaphore(maxOpenDocuments);
+        Semaphore inFlightKb = new Semaphore(byteBudget);
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicLong pages = new AtomicLong();
+        LatencyRecorder latencies = new LatencyRecorder();
+        Map<WatermarkJob, String> failures = new LinkedHashMap<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        long start = System.nanoTime();
+        try {
+            while (jobs.hasNext()) {
+                WatermarkJob job = jobs.next();
+                int kb = (int) Math.min(byteBudget, Math.max(1, new File(job.getSrc()).length() / KB));
+
+                // 背压：文档数或字节数达到上限时在这里阻塞
+                openDocuments.acquire();
+                try {
+                    inFlightKb.acquire(kb);
+                } catch (InterruptedException e) {
+                    openDocuments.release();
+                    throw e;
+                }
+
+                executor.execute(() -> {
+                    try {
+                        long jobStart = System.nanoTime();
+                        String error = null;
+                        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+                            try {
+                                pages.addAndGet(operation.apply(job.getSrc(), job.getDest()));
+                                error = null;
+                                break;
+                            } catch (Exception e) {
+                                error = e.toString();
+                            }
+                        }
+                        if (error == null) {
+                            succeeded.incrementAndGet();
+                            latencies.record(System.nanoTime() - jobStart);
+                        } else {
+                            quarantine(job);
+                            synchronized (failures) {
+                                failures.put(job, error);
+                            }
+                        }
+                    } finally {
+                        inFlightKb.release(kb);
+                        openDocuments.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        BatchReport report = new BatchReport(succeeded.get(), pages.get(), System.nanoTime() - start,
+                latencies, failures);
+        System.out.println("批量水印完成: " + report);
+        return report;
+    }
+
+    /**
+     * 删除失败任务的不完整输出，并把源文件复制到隔离目录
+     */
+    private void quarantine(WatermarkJob job) {
+        new File(job.getDest()).delete();
+        if (quarantineDir == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(quarantineDir);
+            Path src = new File(job.getSrc()).toPath();
+            Files.copy(src, quarantineDir.resolve(src.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("隔离文件时出错: " + job.getSrc() + ", 错误: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 任务清单的检查点日志
+ *
+ * 每个任务完成后立即追加一行 {@code OK<TAB>ID<TAB>页数<TAB>毫秒}，失败追加 {@code FAILED<TAB>ID<TAB>错误}，
+ * 进程被杀死时最多丢失正在写的一行。打开时读取已经成功的ID，续跑时跳过这些任务，失败的任务会重新执行。
+ * <p>
+ * 一次运行有几百万个任务，已完成的ID按UTF-8连续存放在一个字节数组中，用开放寻址的哈希表索引，
+ * 每个任务除ID本身外占20到28个字节。哈希值相同时再比较完整的ID，不会因为哈希冲突跳过没有完成的任务。
+ */
+class Checkpoint implements Closeable {
+
+    private static final String OK = "OK";
+
+    private static final String FAILED = "FAILED";
+
+    private final CompletedIds completed;
+
+    private final Writer log;
+
+    private Checkpoint(CompletedIds completed, Writer log) {
+        this.completed = completed;
+        this.log = log;
+    }
+
+    /**
+     * 读取检查点日志中已经成功的任务并打开日志用于追加，为空时不记录也不能续跑
+     */
+    static Checkpoint open(Path path) throws IOException {
+        CompletedIds completed = new CompletedIds();
+        if (path == null) {
+            return new Checkpoint(completed, null);
+        }
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // 最后一行可能因为中断而不完整
+                    String[] fields = line.split("\t");
+                    if (fields.length >= 4 && OK.equals(fields[0])) {
+                        completed.add(fields[1]);
+                    }
+                }
+            }
+            terminateLastLine(path);
+        }
+        completed.index();
+        Writer log = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new Checkpoint(completed, log);
+    }
+
+    /**
+     * 上次运行中已经成功的任务数
+     */
+    int getCompletedCount() {
+        return completed.size();
+    }
+
+    boolean isCompleted(String id) {
+        return completed.contains(id);
+    }
+
+    void succeeded(String id, int pages, long nanos) {
+        append(OK + '\t' + id + '\t' + pages + '\t' + nanos / 1000000);
+    }
+
+    void failed(String id, String error) {
+        append(FAILED + '\t' + id + '\t' + error.replaceAll("\\s+", " "));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    /**
+     * 追加一行并立即刷新，保证进程被杀死时已完成的任务都有记录
+     */
+    private void append(String line) {
+        if (log == null) {
+            return;
+        }
+        synchronized (log) {
+            try {
+                log.write(line);
+                log.write('\n');
+                log.flush();
+            } catch (IOException e) {
+                System.err.println("写入检查点时出错: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 上次运行中断在一行中间时补上换行，新追加的记录从新的一行开始。
+     * 同一个包中其他追加写入的日志也使用这个方法
+     */
+    static void terminateLastLine(Path path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            long length = file.length();
+            if (length > 0) {
+                file.seek(length - 1);
+                if (file.read() != '\n') {
+                    file.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * 64位FNV-1a哈希，再用MurmurHash3的终结步骤打散各位
+     */
+    static long hash(byte[] bytes, int from, int to) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            h ^= bytes[i] & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 已完成任务的ID集合：ID按读取顺序连续存放，哈希表只保存ID的序号
+     */
+    static class CompletedIds {
+
+        private byte[] ids = new byte[16 * 1024];
+
+        /**
+         * 第i个ID在 {@link #ids} 中的范围是 {@code starts[i]} 到 {@code starts[i + 1]}
+         */
+        private int[] starts = new int[1025];
+
+        private int count;
+
+        /**
+         * 第i个ID的哈希值
+         */
+        private long[] hashes = new long[0];
+
+        /**
+         * 哈希表中每个位置的ID序号加1，0表示空位
+         */
+        private int[] slots = new int[0];
+
+        void add(String id) {
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            int start = starts[count];
+            if (start + bytes.length > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, start + bytes.length));
+            }
+            System.arraycopy(bytes, 0, ids, start, bytes.length);
+            if (count + 2 > starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[++count] = start + bytes.length;
+        }
+
+        /**
+         * 所有ID加入后建立哈希表，容量是不小于ID数两倍的2的幂
+         */
+        void index() {
+            int capacity = Integer.highestOneBit(Math.max(2 * count - 1, 1)) << 1;
+            hashes = new long[count];
+            slots = new int[capacity];
+            for (int i = 0; i < count; i++) {
+                hashes[i] = hash(ids, starts[i], starts[i + 1]);
+                int slot = (int) hashes[i] & (capacity - 1);
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                slots[slot] = i + 1;
+            }
+            ids = Arrays.copyOf(ids, starts[count]);
+            starts = Arrays.copyOf(starts, count + 1);
+        }
+
+        int size() {
+            return count;
+        }
+
+        boolean contains(String id) {
+            if (count == 0) {
+                return false;
+            }
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            long hash = hash(bytes, 0, bytes.length);
+            int mask = slots.length - 1;
+            for (int slot = (int) hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                int index = slots[slot] - 1;
+                if (hashes[index] == hash && matches(index, bytes)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean matches(int index, byte[] bytes) {
+            int start = starts[index];
+            if (starts[index + 1] - start != bytes.length) {
+                return false;
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                if (ids[start + i] != bytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import java.util.Arrays;
+
+/**
+ * 线程安全的延迟记录器，用于计算分位数
+ */
+public class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+
+    private int count;
+
+    public synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * 按最近秩法计算分位数
+     *
+     * @param percentile 0到100之间的分位数
+     * @return 对应的延迟（纳秒），没有样本时返回0
+     */
+    public synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.min(Math.max(rank, 1), count) - 1];
+    }
+}
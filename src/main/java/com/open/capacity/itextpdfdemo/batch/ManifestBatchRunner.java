@@ -0,0 +1,331 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.open.capacity.itextpdfdemo.advanced.CreatePdfAExample;
+import com.open.capacity.itextpdfdemo.advanced.PdfAContext;
+import com.open.capacity.itextpdfdemo.advanced.SvgToPdfExample;
+import com.open.capacity.itextpdfdemo.basic.CreateHelloPdf;
+import com.open.capacity.itextpdfdemo.content.AddImageExample;
+import com.open.capacity.itextpdfdemo.content.AddTableExample;
+import com.open.capacity.itextpdfdemo.content.AddWatermarkExample;
+import com.open.capacity.itextpdfdemo.io.PdfInputs;
+import com.open.capacity.itextpdfdemo.page.MergePdfsExample;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按任务清单批量生成PDF
+ *
+ * 从JSONL或CSV清单中逐行读取任务（见 {@link ManifestReader}），在固定大小的线程池中执行，
+ * 排队的任务数有上限，几百万个任务的清单也不会一次读入内存。每个任务完成后写入检查点日志，
+ * 进程崩溃或被杀死后用同一个检查点重新运行，已经成功的任务被跳过，失败和未完成的任务重新执行。
+ * 任务之间没有依赖关系、同时执行，使用其他任务输出的任务应放在下一个清单中。
+ * <p>
+ * 内置的操作和参数：
+ * <ul>
+ *     <li>{@code create}：dest</li>
+ *     <li>{@code image}：dest, image</li>
+ *     <li>{@code table}：dest, rows（可选，指定时流式生成这么多行的大表格）</li>
+ *     <li>{@code watermark}：src, dest</li>
+ *     <li>{@code merge}：sources（多值）, dest</li>
+ *     <li>{@code pdfa}：dest, icc, font（可选）</li>
+ *     <li>{@code svg}：src, dest</li>
+ * </ul>
+ * 可以通过 {@link #register} 添加或替换操作。
+ */
+public class ManifestBatchRunner {
+
+    private static final String[] TABLE_HEADERS = {"ID", "Name", "Price"};
+
+    /**
+     * 报告中最多保留的失败任务数
+     */
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    private final Map<String, ManifestOperation> operations = new HashMap<>();
+
+    /**
+     * 按ICC配置文件和字体缓存的PDF/A上下文
+     */
+    private final Map<String, PdfAContext> pdfAContexts = new ConcurrentHashMap<>();
+
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    private int maxQueuedJobs = workers * 2;
+
+    private int slowestCount = 10;
+
+    private Path checkpoint;
+
+    public ManifestBatchRunner() {
+        register("create", job -> {
+            String dest = destination(job);
+            CreateHelloPdf.create(dest);
+            return countPages(dest);
+        });
+        register("image", job -> {
+            String dest = destination(job);
+            AddImageExample.create(dest, job.require("image"));
+            return countPages(dest);
+        });
+        register("table", job -> {
+            String dest = destination(job);
+            int rows = job.getInt("rows", 0);
+            if (rows > 0) {
+                AddTableExample.createStreaming(dest, TABLE_HEADERS, tableRows(rows), 100);
+            } else {
+                AddTableExample.create(dest);
+            }
+            return countPages(dest);
+        });
+        register("watermark", job -> AddWatermarkExample.add(source(job.require("src")), destination(job)));
+        register("merge", job -> {
+            List<String> sources = job.getList("sources");
+            if (sources.isEmpty()) {
+                throw new IllegalArgumentException("job " + job.getId() + " (merge) requires parameter: sources");
+            }
+            for (String source : sources) {
+                source(source);
+            }
+            String dest = destination(job);
+            // 任何一个源文件合并失败时任务失败，避免缺页的结果被当作成功记入检查点
+            MergePdfsExample.mergeStrict(sources.toArray(new String[0]), dest);
+            return countPages(dest);
+        });
+        register("pdfa", job -> {
+            String dest = destination(job);
+            CreatePdfAExample.create(dest, pdfAContext(job.require("icc"), job.getString("font")));
+            return countPages(dest);
+        });
+        register("svg", job -> {
+            String dest = destination(job);
+            SvgToPdfExample.create(dest, source(job.require("src")));
+            return countPages(dest);
+        });
+    }
+
+    /**
+     * 设置工作线程数，排队的任务数上限随之设为线程数的两倍
+     */
+    public ManifestBatchRunner setWorkers(int workers) {
+        this.workers = workers;
+        this.maxQueuedJobs = workers * 2;
+        return this;
+    }
+
+    /**
+     * 设置检查点日志，为空时不记录也不能续跑
+     */
+    public ManifestBatchRunner setCheckpoint(Path checkpoint) {
+        this.checkpoint = checkpoint;
+        return this;
+    }
+
+    /**
+     * 设置报告中列出的最慢任务数，默认10个
+     */
+    public ManifestBatchRunner setSlowestCount(int slowestCount) {
+        this.slowestCount = slowestCount;
+        return this;
+    }
+
+    /**
+     * 添加或替换一种操作
+     */
+    public ManifestBatchRunner register(String name, ManifestOperation operation) {
+        operations.put(name, operation);
+        return this;
+    }
+
+    /**
+     * 执行清单中的所有任务，等全部完成后返回统计结果
+     */
+    public ManifestReport run(Path manifest) throws IOException, InterruptedException {
+        try (ManifestReader reader = new ManifestReader(manifest)) {
+            return run(reader);
+        }
+    }
+
+    /**
+     * 执行一串任务，任务按需从迭代器中取出。迭代器抛出的 {@link IllegalArgumentException}
+     * 作为一个失败的任务记录，之后继续读取
+     */
+    public ManifestReport run(Iterator<ManifestJob> jobs) throws IOException, InterruptedException {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong pages = new AtomicLong();
+        AtomicLong bytesWritten = new AtomicLong();
+        LatencyRecorder latencies = new LatencyRecorder();
+        PriorityQueue<ManifestReport.JobTiming> slowest =
+                new PriorityQueue<>(Comparator.comparingLong(ManifestReport.JobTiming::getNanos));
+        Map<String, String> failures = new LinkedHashMap<>();
+        int skipped = 0;
+
+        Semaphore queued = new Semaphore(maxQueuedJobs);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        long start = System.nanoTime();
+        try (Checkpoint log = Checkpoint.open(checkpoint)) {
+            try {
+                while (jobs.hasNext()) {
+                    ManifestJob job;
+                    try {
+                        job = jobs.next();
+                    } catch (IllegalArgumentException e) {
+                        recordFailure(failures, "invalid#" + failed.incrementAndGet(), e.getMessage());
+                        continue;
+                    }
+                    if (log.isCompleted(job.getId())) {
+                        skipped++;
+                        continue;
+                    }
+
+                    queued.acquire();
+                    executor.execute(() -> {
+                        long jobStart = System.nanoTime();
+                        try {
+                            int jobPages = execute(job);
+                            long nanos = System.nanoTime() - jobStart;
+                            String dest = job.getString("dest");
+                            if (dest != null) {
+                                bytesWritten.addAndGet(new File(dest).length());
+                            }
+                            succeeded.incrementAndGet();
+                            pages.addAndGet(jobPages);
+                            latencies.record(nanos);
+                            synchronized (slowest) {
+                                slowest.add(new ManifestReport.JobTiming(job.getId(), job.getOperation(),
+                                        jobPages, nanos));
+                                if (slowest.size() > slowestCount) {
+                                    slowest.poll();
+                                }
+                            }
+                            log.succeeded(job.getId(), jobPages, nanos);
+                        } catch (Throwable e) {
+                            // 错误（例如病态SVG导致的栈溢出）同样记录到报告和检查点中
+                            String dest = job.getString("dest");
+                            if (dest != null) {
+                                new File(dest).delete();
+                            }
+                            failed.incrementAndGet();
+                            recordFailure(failures, job.getId(), e.toString());
+                            log.failed(job.getId(), e.toString());
+                            // 栈溢出只影响这个任务，其他错误记录后继续抛出
+                            if (e instanceof Error && !(e instanceof StackOverflowError)) {
+                                throw (Error) e;
+                            }
+                        } finally {
+                            queued.release();
+                        }
+                    });
+                }
+            } finally {
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        List<ManifestReport.JobTiming> slowestJobs = new ArrayList<>(slowest);
+        slowestJobs.sort(Comparator.comparingLong(ManifestReport.JobTiming::getNanos).reversed());
+        ManifestReport report = new ManifestReport(succeeded.get(), failed.get(), skipped, pages.get(),
+                bytesWritten.get(), System.nanoTime() - start, latencies, slowestJobs, failures);
+        System.out.println("任务清单执行完成: " + report);
+        for (ManifestReport.JobTiming timing : report.getSlowest()) {
+            System.out.println("  慢任务: " + timing);
+        }
+        return report;
+    }
+
+    private int execute(ManifestJob job) throws Exception {
+        ManifestOperation operation = operations.get(job.getOperation());
+        if (operation == null) {
+            throw new IllegalArgumentException("unknown operation: " + job.getOperation());
+        }
+        return operation.execute(job);
+    }
+
+    private static void recordFailure(Map<String, String> failures, String id, String error) {
+        synchronized (failures) {
+            if (failures.size() < MAX_REPORTED_FAILURES) {
+                failures.put(id, error);
+            }
+        }
+    }
+
+    private PdfAContext pdfAContext(String iccProfilePath, String fontPath) {
+        return pdfAContexts.computeIfAbsent(iccProfilePath + '\n' + fontPath, key -> {
+            try {
+                return fontPath == null ? PdfAContext.forProfile(iccProfilePath)
+                        : PdfAContext.forProfile(iccProfilePath, fontPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * 返回输出文件路径，并创建它所在的目录
+     */
+    private static String destination(ManifestJob job) throws IOException {
+        Path dest = Paths.get(job.require("dest"));
+        Path parent = dest.toAbsolutePath().getParent();
+        if (parent != null && !Files.isDirectory(parent)) {
+            Files.createDirectories(parent);
+        }
+        return dest.toString();
+    }
+
+    private static String source(String path) throws NoSuchFileException {
+        if (!Files.isReadable(Paths.get(path))) {
+            throw new NoSuchFileException(path);
+        }
+        return path;
+    }
+
+    /**
+     * 只读取页面树的根节点得到页数
+     */
+    private static int countPages(String path) throws IOException {
+        try (PdfDocument pdf = new PdfDocument(PdfInputs.open(path))) {
+            return pdf.getNumberOfPages();
+        }
+    }
+
+    private static Iterator<String[]> tableRows(int count) {
+        return new Iterator<String[]>() {
+
+            private int next = 1;
+
+            @Override
+            public boolean hasNext() {
+                return next <= count;
+            }
+
+            @Override
+            public String[] next() {
+                int row = next++;
+                return new String[]{String.valueOf(row), "Item " + row, String.valueOf(row * 10)};
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任务清单中的一个任务：唯一的ID、操作名称和操作参数
+ */
+public class ManifestJob {
+
+    private final String id;
+
+    private final String operation;
+
+    private final Map<String, List<String>> params;
+
+    private final long line;
+
+    public ManifestJob(String id, String operation, Map<String, List<String>> params, long line) {
+        this.id = id;
+        this.operation = operation;
+        this.params = Collections.unmodifiableMap(params);
+        this.line = line;
+    }
+
+    /**
+     * 任务ID，在整个清单中唯一，续跑时按ID跳过已完成的任务
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * 任务在清单文件中的行号，从1开始
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * 返回参数值，参数不存在时返回空
+     */
+    public String getString(String name) {
+        List<String> values = params.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * 返回必需的参数值
+     *
+     * @throws IllegalArgumentException 缺少参数
+     */
+    public String require(String name) {
+        String value = getString(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("job " + id + " (" + operation + ") requires parameter: " + name);
+        }
+        return value;
+    }
+
+    public int getInt(String name, int defaultValue) {
+        String value = getString(name);
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * 返回多值参数：JSON中的数组，或者用分号分隔的单个值（CSV中的写法）
+     */
+    public List<String> getList(String name) {
+        List<String> values = params.get(name);
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        if (values.size() == 1) {
+            return Arrays.asList(values.get(0).split(";"));
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return id + " (" + operation + ")";
+    }
+}
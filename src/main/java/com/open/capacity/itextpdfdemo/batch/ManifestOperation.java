@@ -0,0 +1,13 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+/**
+ * 任务清单中一种操作的实现，按任务的参数生成输出文件
+ */
+@FunctionalInterface
+public interface ManifestOperation {
+
+    /**
+     * @return 输出文件的页数
+     */
+    int execute(ManifestJob job) throws Exception;
+}
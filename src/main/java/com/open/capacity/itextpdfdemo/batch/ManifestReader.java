@@ -0,0 +1,326 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 逐行读取任务清单，不把整个清单读入内存
+ *
+ * 支持两种格式，按文件扩展名区分：
+ * <ul>
+ *     <li>JSONL（默认）：每行一个JSON对象，值为字符串、数字、布尔值或由它们组成的数组，例如
+ *     {@code {"id":"m1","op":"merge","sources":["a.pdf","b.pdf"],"dest":"m1.pdf"}}</li>
+ *     <li>CSV（{@code .csv}）：第一行是列名，之后每行一个任务，字段可以用双引号包围，
+ *     多值参数用分号分隔；字段中不能换行</li>
+ * </ul>
+ * 每个任务必须有 {@code id} 和 {@code op}，ID中不能有制表符和换行，空行和以 {@code #} 开头的行被忽略。
+ * 格式错误的行在 {@link #next()} 中抛出 {@link IllegalArgumentException}，之后可以继续读取下一行。
+ */
+public class ManifestReader implements Iterator<ManifestJob>, Closeable {
+
+    private final BufferedReader reader;
+
+    private final boolean csv;
+
+    private List<String> columns;
+
+    private String pending;
+
+    private long lineNumber;
+
+    public ManifestReader(Path manifest) throws IOException {
+        this.reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8);
+        this.csv = manifest.getFileName().toString().toLowerCase().endsWith(".csv");
+        if (csv) {
+            String header = readLine();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV manifest has no header: " + manifest);
+            }
+            columns = parseCsv(header);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pending == null) {
+            pending = readLine();
+        }
+        return pending != null;
+    }
+
+    /**
+     * @throws IllegalArgumentException 当前行格式错误，错误信息包含行号
+     */
+    @Override
+    public ManifestJob next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String line = pending;
+        pending = null;
+        try {
+            Map<String, List<String>> params = csv ? csvRecord(line) : new JsonLine(line).parseObject();
+            String id = single(params.remove("id"));
+            String operation = single(params.remove("op"));
+            if (id == null || id.isEmpty() || operation == null || operation.isEmpty()) {
+                throw new IllegalArgumentException("missing id or op");
+            }
+            if (id.indexOf('\t') >= 0 || id.indexOf('\n') >= 0 || id.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("id must not contain tabs or line breaks: " + id);
+            }
+            return new ManifestJob(id, operation, params, lineNumber);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("manifest line " + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 当前已读取的行号
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * 读取下一个非空、非注释行
+     */
+    private String readLine() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                    return trimmed;
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String single(List<String> values) {
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private Map<String, List<String>> csvRecord(String line) {
+        List<String> fields = parseCsv(line);
+        if (fields.size() > columns.size()) {
+            throw new IllegalArgumentException("expected " + columns.size() + " fields but found " + fields.size());
+        }
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            if (!fields.get(i).isEmpty()) {
+                params.put(columns.get(i), Collections.singletonList(fields.get(i)));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * 按RFC 4180拆分一行CSV：字段中的逗号和双引号需要用双引号包围，字段内的双引号写作两个双引号
+     */
+    static List<String> parseCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    /**
+     * 只支持任务清单需要的JSON子集：一个对象，值为标量或标量数组，数字和布尔值按原文保存为字符串
+     */
+    private static class JsonLine {
+
+        private final String text;
+
+        private int position;
+
+        JsonLine(String text) {
+            this.text = text;
+        }
+
+        Map<String, List<String>> parseObject() {
+            Map<String, List<String>> object = new LinkedHashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                position++;
+            } else {
+                do {
+                    String name = parseString();
+                    expect(':');
+                    object.put(name, parseValue());
+                } while (consume(','));
+                expect('}');
+            }
+            skipWhitespace();
+            if (position < text.length()) {
+                throw error("unexpected content after object");
+            }
+            return object;
+        }
+
+        private List<String> parseValue() {
+            if (peek() != '[') {
+                String scalar = parseScalar();
+                return scalar == null ? Collections.emptyList() : Collections.singletonList(scalar);
+            }
+            position++;
+            List<String> values = new ArrayList<>();
+            if (peek() == ']') {
+                position++;
+                return values;
+            }
+            do {
+                String scalar = parseScalar();
+                if (scalar != null) {
+                    values.add(scalar);
+                }
+            } while (consume(','));
+            expect(']');
+            return values;
+        }
+
+        /**
+         * 解析字符串、数字、布尔值或null，null返回空
+         */
+        private String parseScalar() {
+            char c = peek();
+            if (c == '"') {
+                return parseString();
+            }
+            if (c == '{' || c == '[') {
+                throw error("nested values are not supported");
+            }
+            int start = position;
+            while (position < text.length() && ",]} \t".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty()) {
+                throw error("value expected");
+            }
+            return "null".equals(literal) ? null : literal;
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                char escape = text.charAt(position++);
+                switch (escape) {
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("invalid unicode escape");
+                        }
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escape);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private char peek() {
+            skipWhitespace();
+            if (position >= text.length()) {
+                throw error("unexpected end of line");
+            }
+            return text.charAt(position);
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("'" + c + "' expected");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (position + 1));
+        }
+    }
+}
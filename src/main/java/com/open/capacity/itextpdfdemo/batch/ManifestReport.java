@@ -0,0 +1,168 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任务清单的执行结果统计
+ */
+public class ManifestReport {
+
+    private final int succeeded;
+
+    private final int failed;
+
+    private final int skipped;
+
+    private final long pages;
+
+    private final long bytesWritten;
+
+    private final long elapsedNanos;
+
+    private final long p50Nanos;
+
+    private final long p99Nanos;
+
+    private final List<JobTiming> slowest;
+
+    private final Map<String, String> failures;
+
+    ManifestReport(int succeeded, int failed, int skipped, long pages, long bytesWritten, long elapsedNanos,
+                   LatencyRecorder latencies, List<JobTiming> slowest, Map<String, String> failures) {
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.skipped = skipped;
+        this.pages = pages;
+        this.bytesWritten = bytesWritten;
+        this.elapsedNanos = elapsedNanos;
+        this.p50Nanos = latencies.percentile(50);
+        this.p99Nanos = latencies.percentile(99);
+        this.slowest = Collections.unmodifiableList(slowest);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * 检查点中已经完成、这次没有执行的任务数
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public long getPages() {
+        return pages;
+    }
+
+    /**
+     * 成功任务的输出文件总字节数
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getJobsPerSecond() {
+        return elapsedNanos == 0 ? 0 : succeeded / (elapsedNanos / 1e9);
+    }
+
+    public double getPagesPerSecond() {
+        return elapsedNanos == 0 ? 0 : pages / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * 每秒写出的MB数
+     */
+    public double getMegabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytesWritten / 1048576.0 / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * 单个任务延迟的中位数（纳秒）
+     */
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    /**
+     * 单个任务延迟的P99（纳秒）
+     */
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    /**
+     * 耗时最长的若干个成功任务，从慢到快排列
+     */
+    public List<JobTiming> getSlowest() {
+        return slowest;
+    }
+
+    /**
+     * 失败的任务及错误信息，任务很多时只保留前面的一部分，总数见 {@link #getFailed()}
+     */
+    public Map<String, String> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("成功 %d 个, 失败 %d 个, 跳过 %d 个, %d 页, 耗时 %.1f ms, %.1f 任务/秒, %.1f 页/秒, "
+                        + "%.2f MB/秒, p50 %.1f ms, p99 %.1f ms",
+                succeeded, failed, skipped, pages, elapsedNanos / 1e6, getJobsPerSecond(), getPagesPerSecond(),
+                getMegabytesPerSecond(), p50Nanos / 1e6, p99Nanos / 1e6);
+    }
+
+    /**
+     * 单个任务的耗时
+     */
+    public static class JobTiming {
+
+        private final String id;
+
+        private final String operation;
+
+        private final int pages;
+
+        private final long nanos;
+
+        JobTiming(String id, String operation, int pages, long nanos) {
+            this.id = id;
+            this.operation = operation;
+            this.pages = pages;
+            this.nanos = nanos;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public int getPages() {
+            return pages;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s) %d 页, %.1f ms", id, operation, pages, nanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import com.itextpdf.commons.utils.MessageFormatUtil;
+import com.itextpdf.kernel.pdf.IsoKey;
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfOutputIntent;
+import com.itextpdf.kernel.pdf.PdfResources;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.pdfa.PdfADocument;
+import com.itextpdf.pdfa.exceptions.PdfAConformanceException;
+import com.open.capacity.itextpdfdemo.advanced.PdfAContext;
+import com.open.capacity.itextpdfdemo.io.PdfInputs;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量PDF/A归档转换
+ *
+ * 在线程池中把已有PDF的页面复制到新的 {@link PdfADocument} 中，分别统计复制、合规检查和写出的时间。
+ * 复制过来的页面中的字体iText不会检查，这里额外检查字体是否嵌入，未嵌入字体的文件转换失败。
+ * 每个文件处理完立即在结果日志中追加一行，中断后重新运行时跳过日志中已经成功的文件；
+ * 失败的文件会在下次运行时重试。
+ */
+public class PdfAArchiveConverter {
+
+    private static final String OK = "OK";
+
+    private static final String FAILED = "FAILED";
+
+    private final PdfAContext context;
+
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    private PdfAConformanceLevel conformanceLevel = PdfAConformanceLevel.PDF_A_2B;
+
+    private Path resultsLog;
+
+    public PdfAArchiveConverter(PdfAContext context) {
+        this.context = context;
+    }
+
+    /**
+     * 设置工作线程数
+     */
+    public PdfAArchiveConverter setWorkers(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * 设置目标合规级别，默认PDF/A-2B
+     */
+    public PdfAArchiveConverter setConformanceLevel(PdfAConformanceLevel conformanceLevel) {
+        this.conformanceLevel = conformanceLevel;
+        return this;
+    }
+
+    /**
+     * 设置结果日志，为空时不记录也不能续跑
+     */
+    public PdfAArchiveConverter setResultsLog(Path resultsLog) {
+        this.resultsLog = resultsLog;
+        return this;
+    }
+
+    /**
+     * 把目录中所有PDF文件转换为PDF/A，输出到目标目录中的同名文件
+     */
+    public ArchiveReport convertDirectory(Path srcDir, Path destDir) throws IOException, InterruptedException {
+        Files.createDirectories(destDir);
+        List<Path> sources = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(srcDir, "*.pdf")) {
+            for (Path file : files) {
+                sources.add(file);
+            }
+        }
+        Set<String> completed = readCompleted();
+
+        AtomicInteger converted = new AtomicInteger();
+        AtomicLong pages = new AtomicLong();
+        AtomicLong copyNanos = new AtomicLong();
+        AtomicLong checkNanos = new AtomicLong();
+        AtomicLong writeNanos = new AtomicLong();
+        Map<String, String> failures = new LinkedHashMap<>();
+        int skipped = 0;
+
+        Semaphore queued = new Semaphore(workers * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        long start = System.nanoTime();
+        try (Writer log = openLog()) {
+            try {
+                for (Path source : sources) {
+                    String src = source.toAbsolutePath().toString();
+                    if (completed.contains(src)) {
+                        skipped++;
+                        continue;
+                    }
+                    String dest = destDir.resolve(source.getFileName()).toString();
+
+                    queued.acquire();
+                    executor.execute(() -> {
+                        try {
+                            Timing timing = convert(src, dest);
+                            converted.incrementAndGet();
+                            pages.addAndGet(timing.pages);
+                            copyNanos.addAndGet(timing.copyNanos);
+                            checkNanos.addAndGet(timing.checkNanos);
+                            writeNanos.addAndGet(timing.writeNanos);
+                            appendLog(log, OK + '\t' + src + '\t' + timing);
+                        } catch (Exception e) {
+                            new File(dest).delete();
+                            synchronized (failures) {
+                                failures.put(src, e.toString());
+                            }
+                            appendLog(log, FAILED + '\t' + src + '\t' + e.toString().replaceAll("\\s+", " "));
+                        } finally {
+                            queued.release();
+                        }
+                    });
+                }
+            } finally {
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        ArchiveReport report = new ArchiveReport(converted.get(), skipped, pages.get(), System.nanoTime() - start,
+                copyNanos.get(), checkNanos.get(), writeNanos.get(), failures);
+        System.out.println("PDF/A归档完成: " + report);
+        return report;
+    }
+
+    /**
+     * 转换单个文件，失败时关闭输出并抛出异常
+     */
+    private Timing convert(String src, String dest) throws IOException {
+        try (OperationTimer timer = Metrics.start("pdfa-archive")) {
+            long start = System.nanoTime();
+            PdfOutputIntent outputIntent = context.createOutputIntent();
+            PdfWriter writer = PdfOutputs.newWriter(dest, conformanceLevel);
+            TimedPdfADocument pdfA = new TimedPdfADocument(writer, conformanceLevel, outputIntent);
+            try {
+                int pageCount;
+                PdfDocument sourceDoc = new PdfDocument(PdfInputs.open(src));
+                try {
+                    pageCount = sourceDoc.getNumberOfPages();
+                    sourceDoc.copyPagesTo(1, pageCount, pdfA);
+                } finally {
+                    sourceDoc.close();
+                }
+                pdfA.checkCopiedFonts();
+                long copied = System.nanoTime();
+                long checkDuringCopy = pdfA.checkNanos;
+
+                pdfA.close();
+                long closed = System.nanoTime();
+                long checkDuringClose = pdfA.checkNanos - checkDuringCopy;
+                timer.success();
+                return new Timing(pageCount, copied - start - checkDuringCopy, pdfA.checkNanos,
+                        closed - copied - checkDuringClose);
+            } catch (IOException | RuntimeException e) {
+                // 合规检查失败时文档没有关闭，需要单独关闭输出文件
+                if (!pdfA.isClosed()) {
+                    try {
+                        pdfA.getWriter().close();
+                    } catch (IOException ignored) {
+                        // 保留原始异常
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 读取结果日志中已经成功的源文件，最后一行可能因为中断而不完整
+     */
+    private Set<String> readCompleted() throws IOException {
+        Set<String> completed = new HashSet<>();
+        if (resultsLog == null || !Files.exists(resultsLog)) {
+            return completed;
+        }
+        for (String line : Files.readAllLines(resultsLog, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t");
+            if (fields.length >= 3 && OK.equals(fields[0])) {
+                completed.add(fields[1]);
+            }
+        }
+        return completed;
+    }
+
+    private Writer openLog() throws IOException {
+        if (resultsLog == null) {
+            return null;
+        }
+        if (Files.exists(resultsLog)) {
+            // 上次中断时写了一半的行不能和新记录连在一起
+            Checkpoint.terminateLastLine(resultsLog);
+        }
+        return Files.newBufferedWriter(resultsLog, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * 追加一行结果并立即刷新，保证中断时已完成的文件都有记录
+     */
+    private static void appendLog(Writer log, String line) {
+        if (log == null) {
+            return;
+        }
+        synchronized (log) {
+            try {
+                log.write(line);
+                log.write('\n');
+                log.flush();
+            } catch (IOException e) {
+                System.err.println("写入结果日志时出错: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 单个文件各阶段的耗时
+     */
+    private static class Timing {
+
+        final int pages;
+
+        final long copyNanos;
+
+        final long checkNanos;
+
+        final long writeNanos;
+
+        Timing(int pages, long copyNanos, long checkNanos, long writeNanos) {
+            this.pages = pages;
+            this.copyNanos = copyNanos;
+            this.checkNanos = checkNanos;
+            this.writeNanos = writeNanos;
+        }
+
+        @Override
+        public String toString() {
+            return pages + "\t" + copyNanos / 1000000 + "\t" + checkNanos / 1000000 + "\t" + writeNanos / 1000000;
+        }
+    }
+
+    /**
+     * 统计合规检查耗时的PDF/A文档。检查可能嵌套调用，只统计最外层
+     */
+    private static class TimedPdfADocument extends PdfADocument {
+
+        private long checkNanos;
+
+        private int depth;
+
+        private long checkStart;
+
+        TimedPdfADocument(PdfWriter writer, PdfAConformanceLevel conformanceLevel, PdfOutputIntent outputIntent) {
+            super(writer, conformanceLevel, outputIntent);
+        }
+
+        @Override
+        public void checkIsoConformance(Object obj, IsoKey key, PdfResources resources, PdfStream contentStream) {
+            enter();
+            try {
+                super.checkIsoConformance(obj, key, resources, contentStream);
+            } finally {
+                exit();
+            }
+        }
+
+        @Override
+        protected void checkIsoConformance() {
+            enter();
+            try {
+                super.checkIsoConformance();
+            } finally {
+                exit();
+            }
+        }
+
+        /**
+         * iText只检查在本文档中创建的字体，复制过来的页面中的字体需要单独检查是否已经嵌入
+         */
+        void checkCopiedFonts() {
+            enter();
+            try {
+                Set<PdfDictionary> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (int i = 1; i <= getNumberOfPages(); i++) {
+                    checkFonts(getPage(i).getResources().getPdfObject(), visited);
+                }
+            } finally {
+                exit();
+            }
+        }
+
+        /**
+         * 检查资源中的字体，并递归检查表单XObject的资源
+         */
+        private static void checkFonts(PdfDictionary resources, Set<PdfDictionary> visited) {
+            if (resources == null || !visited.add(resources)) {
+                return;
+            }
+            PdfDictionary fonts = resources.getAsDictionary(PdfName.Font);
+            if (fonts != null) {
+                for (PdfName name : fonts.keySet()) {
+                    PdfDictionary font = fonts.getAsDictionary(name);
+                    if (font != null && !isEmbedded(font)) {
+                        throw new PdfAConformanceException(MessageFormatUtil.format(
+                                PdfAConformanceException.ALL_THE_FONTS_MUST_BE_EMBEDDED_THIS_ONE_IS_NOT_0,
+                                font.getAsName(PdfName.BaseFont)));
+                    }
+                }
+            }
+            PdfDictionary xObjects = resources.getAsDictionary(PdfName.XObject);
+            if (xObjects != null) {
+                for (PdfName name : xObjects.keySet()) {
+                    PdfStream xObject = xObjects.getAsStream(name);
+                    if (xObject != null && PdfName.Form.equals(xObject.getAsName(PdfName.Subtype))) {
+                        checkFonts(xObject.getAsDictionary(PdfName.Resources), visited);
+                    }
+                }
+            }
+        }
+
+        private static boolean isEmbedded(PdfDictionary font) {
+            PdfName subtype = font.getAsName(PdfName.Subtype);
+            if (PdfName.Type3.equals(subtype)) {
+                // Type3字体的字形定义在文档中，不需要嵌入
+                return true;
+            }
+            if (PdfName.Type0.equals(subtype)) {
+                PdfArray descendants = font.getAsArray(PdfName.DescendantFonts);
+                font = descendants != null ? descendants.getAsDictionary(0) : null;
+                if (font == null) {
+                    return false;
+                }
+            }
+            PdfDictionary descriptor = font.getAsDictionary(PdfName.FontDescriptor);
+            return descriptor != null && (descriptor.containsKey(PdfName.FontFile)
+                    || descriptor.containsKey(PdfName.FontFile2) || descriptor.containsKey(PdfName.FontFile3));
+        }
+
+        private void enter() {
+            if (depth++ == 0) {
+                checkStart = System.nanoTime();
+            }
+        }
+
+        private void exit() {
+            if (--depth == 0) {
+                checkNanos += System.nanoTime() - checkStart;
+            }
+        }
+    }
+}
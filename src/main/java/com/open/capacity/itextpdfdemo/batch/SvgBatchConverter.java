@@ -0,0 +1,308 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.styledxmlparser.node.IDocumentNode;
+import com.itextpdf.styledxmlparser.node.IElementNode;
+import com.itextpdf.styledxmlparser.node.INode;
+import com.itextpdf.svg.converter.SvgConverter;
+import com.itextpdf.svg.processors.impl.SvgConverterProperties;
+import com.itextpdf.svg.renderers.ISvgNodeRenderer;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
+import com.open.capacity.itextpdfdemo.metrics.PhaseScope;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 批量SVG转PDF
+ *
+ * 在线程池中把每个SVG文件转换为一个与SVG同样大小的单页PDF。每个文件有三道限制：
+ * 文件大小在读取前检查，元素数在解析后、渲染前检查，超过限制的文件直接拒绝；
+ * 时间限制从开始处理这个文件时计时，到期后中断工作线程，转换在下一个阶段之间或下一次写出时停止，
+ * 已经写出的部分文件会被删除。Java不能强行停止正在计算的线程，单个阶段（例如绘制一个巨大的路径）
+ * 仍然可能超出时间限制，因此大小和元素数限制是防止病态输入的第一道防线。
+ */
+public class SvgBatchConverter {
+
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    private long timeoutMillis = 30000;
+
+    private int maxElements;
+
+    private long maxBytes = 20L * 1024 * 1024;
+
+    /**
+     * 设置工作线程数
+     */
+    public SvgBatchConverter setWorkers(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * 设置单个文件的时间限制（毫秒），默认30秒，0表示不限制
+     */
+    public SvgBatchConverter setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    /**
+     * 设置单个文件的元素数上限，默认0表示不限制
+     */
+    public SvgBatchConverter setMaxElements(int maxElements) {
+        this.maxElements = maxElements;
+        return this;
+    }
+
+    /**
+     * 设置单个文件的字节数上限，默认20MB，0表示不限制
+     */
+    public SvgBatchConverter setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    /**
+     * 转换目录中所有SVG文件，输出到目标目录中同名的PDF文件
+     */
+    public SvgBatchReport convertDirectory(Path srcDir, Path destDir) throws IOException, InterruptedException {
+        List<Path> sources = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(srcDir, "*.svg")) {
+            for (Path file : files) {
+                sources.add(file);
+            }
+        }
+        return convert(sources, destDir);
+    }
+
+    /**
+     * 转换指定的SVG文件，输出到目标目录中同名的PDF文件
+     */
+    public SvgBatchReport convert(List<Path> sources, Path destDir) throws IOException, InterruptedException {
+        Files.createDirectories(destDir);
+        List<SvgConversionResult> results = new ArrayList<>();
+
+        Semaphore queued = new Semaphore(workers * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "svg-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        try {
+            for (Path source : sources) {
+                String name = source.getFileName().toString().replaceFirst("(?i)\\.svg$", "") + ".pdf";
+                Path dest = destDir.resolve(name);
+
+                queued.acquire();
+                executor.execute(() -> {
+                    try {
+                        SvgConversionResult result = convert(source, dest, watchdog);
+                        if (result.getStatus() != SvgConversionResult.Status.OK) {
+                            System.err.println("SVG转换未成功: " + result);
+                        }
+                        synchronized (results) {
+                            results.add(result);
+                        }
+                    } finally {
+                        queued.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            watchdog.shutdownNow();
+        }
+
+        SvgBatchReport report = new SvgBatchReport(results, System.nanoTime() - start);
+        System.out.println("批量SVG转换完成: " + report);
+        return report;
+    }
+
+    /**
+     * 在当前线程中转换单个文件，任何错误都记录在结果中
+     */
+    @SuppressWarnings("try")
+    private SvgConversionResult convert(Path source, Path dest, ScheduledExecutorService watchdog) {
+        try (OperationTimer timer = Metrics.start("svg-batch", Phase.LAYOUT)) {
+            String src = source.toAbsolutePath().toString();
+            long start = System.nanoTime();
+            int elements = -1;
+            Budget budget = new Budget(Thread.currentThread());
+            ScheduledFuture<?> alarm = timeoutMillis > 0
+                    ? watchdog.schedule(budget::expire, timeoutMillis, TimeUnit.MILLISECONDS) : null;
+            try {
+                long size = Files.size(source);
+                if (maxBytes > 0 && size > maxBytes) {
+                    return new SvgConversionResult(src, SvgConversionResult.Status.REJECTED, elements,
+                            System.nanoTime() - start, "文件大小 " + size + " 字节超过限制 " + maxBytes);
+                }
+
+                INode root;
+                try (InputStream in = Files.newInputStream(source);
+                     PhaseScope ignored = Metrics.phase(Phase.PARSE)) {
+                    root = SvgConverter.parse(in);
+                }
+                elements = countElements(root);
+                if (maxElements > 0 && elements > maxElements) {
+                    return new SvgConversionResult(src, SvgConversionResult.Status.REJECTED, elements,
+                            System.nanoTime() - start, "元素数 " + elements + " 超过限制 " + maxElements);
+                }
+                budget.check();
+                // SVG中引用的图片等相对路径按SVG文件所在的目录解析
+                SvgConverterProperties properties = new SvgConverterProperties()
+                        .setBaseUri(source.toAbsolutePath().getParent().toUri().toString());
+                ISvgNodeRenderer renderer = SvgConverter.process(root, properties).getRootRenderer();
+                budget.check();
+
+                // 写入器不关闭输出流，文件由这里关闭
+                try (OutputStream out = new BudgetOutputStream(Files.newOutputStream(dest), budget);
+                     PdfDocument pdf = new PdfDocument(PdfOutputs.newWriter(out))) {
+                    PdfFormXObject xObject = SvgConverter.convertToXObject(renderer, pdf);
+                    budget.check();
+                    PdfPage page = pdf.addNewPage(new PageSize(xObject.getBBox().toRectangle()));
+                    new PdfCanvas(page).addXObjectAt(xObject, 0, 0);
+                }
+                timer.success();
+                return new SvgConversionResult(src, SvgConversionResult.Status.OK, elements,
+                        System.nanoTime() - start, null);
+            } catch (Exception e) {
+                try {
+                    Files.deleteIfExists(dest);
+                } catch (IOException ignored) {
+                    // 保留原始错误
+                }
+                if (budget.isExpired()) {
+                    return new SvgConversionResult(src, SvgConversionResult.Status.TIMEOUT, elements,
+                            System.nanoTime() - start, "超过时间限制 " + timeoutMillis + " ms");
+                }
+                return new SvgConversionResult(src, SvgConversionResult.Status.FAILED, elements,
+                        System.nanoTime() - start, e.toString().replaceAll("\\s+", " "));
+            } finally {
+                if (alarm != null) {
+                    alarm.cancel(false);
+                }
+                budget.finish();
+            }
+        }
+    }
+
+    /**
+     * 统计节点树中的元素数（不包括文档节点本身），用栈遍历，很深的SVG也不会栈溢出
+     */
+    static int countElements(INode root) {
+        int count = 0;
+        Deque<INode> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            INode node = pending.pop();
+            if (node instanceof IElementNode && !(node instanceof IDocumentNode)) {
+                count++;
+            }
+            for (INode child : node.childNodes()) {
+                pending.push(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 单个文件的时间预算。到期时标记并中断工作线程，转换结束后不再中断，避免影响线程处理下一个文件
+     */
+    private static class Budget {
+
+        private final Thread worker;
+
+        private volatile boolean expired;
+
+        private boolean finished;
+
+        Budget(Thread worker) {
+            this.worker = worker;
+        }
+
+        synchronized void expire() {
+            if (!finished) {
+                expired = true;
+                worker.interrupt();
+            }
+        }
+
+        void finish() {
+            synchronized (this) {
+                finished = true;
+            }
+            // 清除可能已经送达的中断
+            Thread.interrupted();
+        }
+
+        boolean isExpired() {
+            return expired;
+        }
+
+        void check() throws TimeoutException {
+            if (expired) {
+                throw new TimeoutException("time budget exceeded");
+            }
+        }
+    }
+
+    /**
+     * 时间预算到期后拒绝继续写出的输出流
+     */
+    private static class BudgetOutputStream extends FilterOutputStream {
+
+        private final Budget budget;
+
+        BudgetOutputStream(OutputStream out, Budget budget) {
+            super(out);
+            this.budget = budget;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            check();
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            check();
+            out.write(b, off, len);
+        }
+
+        private void check() throws InterruptedIOException {
+            if (budget.isExpired()) {
+                throw new InterruptedIOException("time budget exceeded");
+            }
+        }
+    }
+}
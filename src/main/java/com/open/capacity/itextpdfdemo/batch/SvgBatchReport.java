@@ -0,0 +1,93 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 批量SVG转换的执行结果统计
+ */
+public class SvgBatchReport {
+
+    private final List<SvgConversionResult> results;
+
+    private final long elapsedNanos;
+
+    private final long p50Nanos;
+
+    private final long p99Nanos;
+
+    SvgBatchReport(List<SvgConversionResult> results, long elapsedNanos) {
+        this.results = Collections.unmodifiableList(results);
+        this.elapsedNanos = elapsedNanos;
+        LatencyRecorder latencies = new LatencyRecorder();
+        for (SvgConversionResult result : results) {
+            if (result.getStatus() == SvgConversionResult.Status.OK) {
+                latencies.record(result.getLatencyNanos());
+            }
+        }
+        this.p50Nanos = latencies.percentile(50);
+        this.p99Nanos = latencies.percentile(99);
+    }
+
+    /**
+     * 每个文件的结果，顺序与完成顺序一致
+     */
+    public List<SvgConversionResult> getResults() {
+        return results;
+    }
+
+    public int count(SvgConversionResult.Status status) {
+        int count = 0;
+        for (SvgConversionResult result : results) {
+            if (result.getStatus() == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getConverted() {
+        return count(SvgConversionResult.Status.OK);
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getFilesPerSecond() {
+        return elapsedNanos == 0 ? 0 : getConverted() / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * 成功转换的文件延迟的中位数（纳秒）
+     */
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    /**
+     * 成功转换的文件延迟的P99（纳秒）
+     */
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    /**
+     * 耗时最长的若干个文件，包括超时的文件，用于找出代价高的输入
+     */
+    public List<SvgConversionResult> getSlowest(int limit) {
+        List<SvgConversionResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingLong(SvgConversionResult::getLatencyNanos).reversed());
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("成功 %d 个, 拒绝 %d 个, 超时 %d 个, 失败 %d 个, 耗时 %.1f ms, %.1f 文件/秒, p50 %.1f ms, p99 %.1f ms",
+                getConverted(), count(SvgConversionResult.Status.REJECTED), count(SvgConversionResult.Status.TIMEOUT),
+                count(SvgConversionResult.Status.FAILED), elapsedNanos / 1e6, getFilesPerSecond(),
+                p50Nanos / 1e6, p99Nanos / 1e6);
+    }
+}
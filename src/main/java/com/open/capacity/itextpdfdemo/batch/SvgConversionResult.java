@@ -0,0 +1,76 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+/**
+ * 单个SVG文件的转换结果
+ */
+public class SvgConversionResult {
+
+    /**
+     * 转换状态
+     */
+    public enum Status {
+        OK,
+        /**
+         * 文件大小或元素数超过限制，没有转换
+         */
+        REJECTED,
+        /**
+         * 超过单个文件的时间限制
+         */
+        TIMEOUT,
+        FAILED
+    }
+
+    private final String src;
+
+    private final Status status;
+
+    private final int elementCount;
+
+    private final long latencyNanos;
+
+    private final String message;
+
+    SvgConversionResult(String src, Status status, int elementCount, long latencyNanos, String message) {
+        this.src = src;
+        this.status = status;
+        this.elementCount = elementCount;
+        this.latencyNanos = latencyNanos;
+        this.message = message;
+    }
+
+    public String getSrc() {
+        return src;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * SVG中的元素数，没有解析到这一步时为-1
+     */
+    public int getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * 从开始读取文件到结束（包括被拒绝或超时）的耗时
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * 未成功时的原因
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return status + "\t" + src + "\t" + elementCount + "\t" + latencyNanos / 1000000
+                + (message != null ? "\t" + message : "");
+    }
+}
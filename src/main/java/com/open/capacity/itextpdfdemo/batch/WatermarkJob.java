@@ -0,0 +1,29 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+/**
+ * 批量水印任务：一个源文件和对应的输出文件
+ */
+public class WatermarkJob {
+
+    private final String src;
+
+    private final String dest;
+
+    public WatermarkJob(String src, String dest) {
+        this.src = src;
+        this.dest = dest;
+    }
+
+    public String getSrc() {
+        return src;
+    }
+
+    public String getDest() {
+        return dest;
+    }
+
+    @Override
+    public String toString() {
+        return src + " -> " + dest;
+    }
+}
@@ -0,0 +1,15 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import java.io.IOException;
+
+/**
+ * 单个文件的水印操作，例如 {@code AddWatermarkExample::addShared}
+ */
+@FunctionalInterface
+public interface WatermarkOperation {
+
+    /**
+     * @return 处理的页数
+     */
+    int apply(String src, String dest) throws IOException;
+}
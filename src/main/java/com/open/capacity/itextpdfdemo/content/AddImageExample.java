@@ -1,27 +1,198 @@
 package com.open.capacity.itextpdfdemo.content;
-import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.io.image.ImageData;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Image;
 import com.itextpdf.layout.element.Paragraph;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
 
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 public class AddImageExample {
     public static void create(String dest, String imagePath) throws FileNotFoundException, MalformedURLException {
-        PdfWriter writer = new PdfWriter(dest);
-        PdfDocument pdf = new PdfDocument(writer);
-        try (Document document = new Document(pdf)) {
-            document.add(new Paragraph("添加图片示例:"));
-
-            // 读取图片并添加到PDF
-            Image image = new Image(ImageDataFactory.create(imagePath));
-            // 缩放图片
-            image.scaleToFit(300, 300);
-            document.add(image);
+        write(PdfOutputs.newWriter(dest), imagePath);
+        System.out.println("图片添加成功: " + dest);
+    }
+
+    /**
+     * 写入调用方提供的输出流，不关闭输出流
+     */
+    public static void create(OutputStream out, String imagePath) throws MalformedURLException {
+        write(PdfOutputs.newWriter(out), imagePath);
+    }
+
+    private static void write(PdfWriter writer, String imagePath) throws MalformedURLException {
+        try (OperationTimer timer = Metrics.start("image", Phase.LAYOUT)) {
+            PdfDocument pdf = new PdfDocument(writer);
+            try (Document document = new Document(pdf)) {
+                document.add(new Paragraph("添加图片示例:"));
+
+                // 从缓存读取图片并添加到PDF，同一张图片不会重复解码
+                Image image = new Image(ImageCache.getDefault().getXObject(pdf, imagePath));
+                // 缩放图片
+                image.scaleToFit(300, 300);
+                document.add(image);
+            }
+            timer.success();
         }
+    }
+
+    /**
+     * 先按显示尺寸重新采样和编码图片再嵌入，大图片只嵌入显示所需的分辨率
+     */
+    public static void create(String dest, String imagePath, ImagePreparer preparer) throws IOException {
+        write(PdfOutputs.newWriter(dest), imagePath, preparer);
         System.out.println("图片添加成功: " + dest);
     }
+
+    /**
+     * 预处理图片后写入调用方提供的输出流，不关闭输出流
+     */
+    public static void create(OutputStream out, String imagePath, ImagePreparer preparer) throws IOException {
+        write(PdfOutputs.newWriter(out), imagePath, preparer);
+    }
+
+    private static void write(PdfWriter writer, String imagePath, ImagePreparer preparer) throws IOException {
+        try (OperationTimer timer = Metrics.start("image", Phase.LAYOUT)) {
+            PdfDocument pdf = new PdfDocument(writer);
+            try (Document document = new Document(pdf)) {
+                document.add(new Paragraph("添加图片示例:"));
+
+                Image image = toImage(pdf, imagePath, preparer.prepare(imagePath, 300, 300));
+                image.scaleToFit(300, 300);
+                document.add(image);
+            }
+            timer.success();
+        }
+    }
+
+    /**
+     * 生成图片目录，每张图片占一段，按输入顺序排列
+     * 图片在线程池中提前解码和预处理，排版线程只负责按顺序取出并排版；
+     * 最多提前准备 {@code lookahead} 张图片，已解码图片占用的内存有上限。
+     * 没有预处理时提前解码只是预热 {@link ImageCache}，排版线程通过 {@link ImageCache#getXObject} 嵌入，
+     * 共享的解码结果不会在多个线程中同时被转换成XObject，同一张图片在文档中只嵌入一次。
+     *
+     * @param preparer  图片预处理，为空时只解码（经过 {@link ImageCache}）
+     * @param workers   解码线程数，为0时在排版线程中依次解码
+     * @param lookahead 最多提前准备的图片数
+     * @return 成功添加的图片数
+     */
+    public static int createCatalog(String dest, List<String> imagePaths, ImagePreparer preparer, int workers,
+                                    int lookahead) throws FileNotFoundException {
+        checkLookahead(lookahead);
+        int added = writeCatalog(PdfOutputs.newWriter(dest), imagePaths, preparer, workers, lookahead);
+        System.out.println("图片目录生成成功: " + dest + ", 共 " + added + " 张");
+        return added;
+    }
+
+    /**
+     * 生成图片目录并写入调用方提供的输出流，不关闭输出流
+     */
+    public static int createCatalog(OutputStream out, List<String> imagePaths, ImagePreparer preparer, int workers,
+                                    int lookahead) {
+        checkLookahead(lookahead);
+        return writeCatalog(PdfOutputs.newWriter(out), imagePaths, preparer, workers, lookahead);
+    }
+
+    private static void checkLookahead(int lookahead) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("lookahead must be positive: " + lookahead);
+        }
+    }
+
+    private static int writeCatalog(PdfWriter writer, List<String> imagePaths, ImagePreparer preparer, int workers,
+                                    int lookahead) {
+        try (OperationTimer timer = Metrics.start("image-catalog", Phase.LAYOUT)) {
+            ExecutorService decoders = workers > 0 ? Executors.newFixedThreadPool(workers) : null;
+            Deque<Future<ImageData>> window = new ArrayDeque<>(lookahead);
+            int added = 0;
+
+            PdfDocument pdf = new PdfDocument(writer);
+            try (Document document = new Document(pdf)) {
+                int next = 0;
+                for (int i = 0; i < imagePaths.size(); i++) {
+                    // 保持窗口填满，窗口内的图片按提交顺序取出
+                    while (next < imagePaths.size() && window.size() < lookahead) {
+                        String path = imagePaths.get(next++);
+                        Callable<ImageData> decode = () -> decode(path, preparer);
+                        window.add(decoders != null ? decoders.submit(decode) : completed(decode));
+                    }
+
+                    String path = imagePaths.get(i);
+                    try {
+                        Image image = toImage(pdf, path, window.poll().get());
+                        image.scaleToFit(300, 300);
+                        document.add(new Paragraph((i + 1) + ". " + new File(path).getName()));
+                        document.add(image);
+                        added++;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("生成图片目录被中断", e);
+                    } catch (Exception e) {
+                        Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                        System.err.println("添加图片时出错: " + path + ", 错误: " + cause.getMessage());
+                    }
+                }
+            } finally {
+                for (Future<ImageData> pending : window) {
+                    pending.cancel(true);
+                }
+                if (decoders != null) {
+                    decoders.shutdownNow();
+                }
+            }
+            timer.success();
+            return added;
+        }
+    }
+
+    /**
+     * 预处理图片；没有预处理时只把解码结果放入缓存，返回空
+     */
+    private static ImageData decode(String path, ImagePreparer preparer) throws IOException {
+        if (preparer != null) {
+            return preparer.prepare(path, 300, 300);
+        }
+        ImageCache.getDefault().get(path);
+        return null;
+    }
+
+    /**
+     * 在排版线程中创建图片。缓存共享的解码结果（没有预处理或预处理时使用原图）经过缓存嵌入，
+     * 只有预处理新生成的图片直接使用
+     */
+    private static Image toImage(PdfDocument pdf, String path, ImageData prepared) throws MalformedURLException {
+        ImageCache cache = ImageCache.getDefault();
+        if (prepared == null || cache.isShared(prepared)) {
+            return new Image(cache.getXObject(pdf, path));
+        }
+        return new Image(prepared);
+    }
+
+    /**
+     * 在当前线程中执行，失败时由 {@link Future#get()} 抛出异常，与线程池中的任务行为一致
+     */
+    private static Future<ImageData> completed(Callable<ImageData> decode) {
+        FutureTask<ImageData> task = new FutureTask<>(decode);
+        task.run();
+        return task;
+    }
 }
\ No newline at end of file
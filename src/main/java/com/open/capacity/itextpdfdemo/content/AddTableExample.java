@@ -5,33 +5,204 @@ import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
 
 import java.io.FileNotFoundException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 public class AddTableExample {
     public static void create(String dest) throws FileNotFoundException {
-        PdfWriter writer = new PdfWriter(dest);
-        PdfDocument pdf = new PdfDocument(writer);
-        try (Document document = new Document(pdf)) {
-            document.add(new Paragraph("表格示例:"));
-
-            // 创建3列的表格
-            Table table = new Table(3);
-            // 添加表头
-            table.addHeaderCell(new Cell().add(new Paragraph("ID")));
-            table.addHeaderCell(new Cell().add(new Paragraph("名称")));
-            table.addHeaderCell(new Cell().add(new Paragraph("数量")));
-
-            // 添加数据行
-            table.addCell("1");
-            table.addCell("产品A");
-            table.addCell("100");
-            table.addCell("2");
-            table.addCell("产品B");
-            table.addCell("200");
-
-            document.add(table);
-        }
+        write(PdfOutputs.newWriter(dest));
         System.out.println("表格添加成功: " + dest);
     }
-}
\ No newline at end of file
+
+    /**
+     * 写入调用方提供的输出流，不关闭输出流
+     */
+    public static void create(OutputStream out) {
+        write(PdfOutputs.newWriter(out));
+    }
+
+    private static void write(PdfWriter writer) {
+        try (OperationTimer timer = Metrics.start("table", Phase.LAYOUT)) {
+            PdfDocument pdf = new PdfDocument(writer);
+            try (Document document = new Document(pdf)) {
+                document.add(new Paragraph("表格示例:"));
+
+                // 创建3列的表格
+                Table table = new Table(3);
+                // 添加表头
+                table.addHeaderCell(new Cell().add(new Paragraph("ID")));
+                table.addHeaderCell(new Cell().add(new Paragraph("名称")));
+                table.addHeaderCell(new Cell().add(new Paragraph("数量")));
+
+                // 添加数据行
+                table.addCell("1");
+                table.addCell("产品A");
+                table.addCell("100");
+                table.addCell("2");
+                table.addCell("产品B");
+                table.addCell("200");
+
+                document.add(table);
+            }
+            timer.success();
+        }
+    }
+
+    /**
+     * 一次性生成表格
+     * 所有行都加入表格后再排版；{@code layout} 为空时使用自动布局，需要测量每个单元格来确定列宽，
+     * 否则使用固定布局，直接按声明的列宽排版。
+     *
+     * @return 写入的行数
+     * @throws IllegalArgumentException 某一行的列数与表头不同，异常信息中包含行号
+     */
+    public static long create(String dest, String[] headers, Iterator<String[]> rows, FixedTableLayout layout)
+            throws FileNotFoundException {
+        checkLayout(headers, layout);
+        long rowCount = write(PdfOutputs.newWriter(dest), headers, rows, layout);
+        System.out.println("表格添加成功: " + dest + ", 共 " + rowCount + " 行");
+        return rowCount;
+    }
+
+    /**
+     * 一次性生成表格并写入调用方提供的输出流，不关闭输出流
+     */
+    public static long create(OutputStream out, String[] headers, Iterator<String[]> rows, FixedTableLayout layout) {
+        checkLayout(headers, layout);
+        return write(PdfOutputs.newWriter(out), headers, rows, layout);
+    }
+
+    private static long write(PdfWriter writer, String[] headers, Iterator<String[]> rows, FixedTableLayout layout) {
+        try (OperationTimer timer = Metrics.start("table", Phase.LAYOUT)) {
+            long rowCount = 0;
+            PdfDocument pdf = new PdfDocument(writer);
+            try (Document document = new Document(pdf)) {
+                Table table = layout != null ? layout.createTable(false) : new Table(headers.length);
+                for (String header : headers) {
+                    table.addHeaderCell(new Cell().add(new Paragraph(header)));
+                }
+                while (rows.hasNext()) {
+                    String[] row = checkRow(rows.next(), headers, ++rowCount);
+                    for (String value : row) {
+                        table.addCell(value);
+                    }
+                }
+                document.add(table);
+            }
+            timer.success();
+            return rowCount;
+        }
+    }
+
+    /**
+     * 流式生成大表格
+     * 行数据从迭代器（例如数据库游标）中逐行读取，使用iText的大表格模式，
+     * 每添加若干行就把已完成的行排版并写出，表头在每一页重复，表格本身不会完整地保留在内存中。
+     *
+     * @param headers    表头
+     * @param rows       行数据，每行的列数与表头相同
+     * @param flushEvery 每添加多少行写出一次
+     * @return 写入的行数
+     * @throws IllegalArgumentException 某一行的列数与表头不同，异常信息中包含行号
+     */
+    public static long createStreaming(String dest, String[] headers, Iterator<String[]> rows, int flushEvery)
+            throws FileNotFoundException {
+        return createStreaming(dest, headers, rows, flushEvery, null);
+    }
+
+    /**
+     * 流式生成大表格，使用声明的列宽；{@code layout} 为空时各列等宽
+     */
+    public static long createStreaming(String dest, String[] headers, Iterator<String[]> rows, int flushEvery,
+                                       FixedTableLayout layout) throws FileNotFoundException {
+        checkFlushEvery(flushEvery);
+        checkLayout(headers, layout);
+        long rowCount = writeStreaming(PdfOutputs.newWriter(dest), headers, rows, flushEvery, layout);
+        System.out.println("表格添加成功: " + dest + ", 共 " + rowCount + " 行");
+        return rowCount;
+    }
+
+    /**
+     * 流式生成大表格并写入调用方提供的输出流，不关闭输出流
+     */
+    public static long createStreaming(OutputStream out, String[] headers, Iterator<String[]> rows, int flushEvery,
+                                       FixedTableLayout layout) {
+        checkFlushEvery(flushEvery);
+        checkLayout(headers, layout);
+        return writeStreaming(PdfOutputs.newWriter(out), headers, rows, flushEvery, layout);
+    }
+
+    private static void checkFlushEvery(int flushEvery) {
+        if (flushEvery < 1) {
+            throw new IllegalArgumentException("flushEvery must be positive: " + flushEvery);
+        }
+    }
+
+    /**
+     * 固定布局的列数必须与表头一致，否则单元格会错位到下一行
+     */
+    private static void checkLayout(String[] headers, FixedTableLayout layout) {
+        if (layout != null && layout.getNumberOfColumns() != headers.length) {
+            throw new IllegalArgumentException("layout has " + layout.getNumberOfColumns()
+                    + " columns but there are " + headers.length + " headers");
+        }
+    }
+
+    /**
+     * 每行的列数必须与表头一致，否则之后的单元格都会错位
+     *
+     * @param rowNumber 从1开始的数据行号，不含表头
+     */
+    private static String[] checkRow(String[] row, String[] headers, long rowNumber) {
+        if (row.length != headers.length) {
+            throw new IllegalArgumentException("row " + rowNumber + " has " + row.length
+                    + " values but there are " + headers.length + " headers");
+        }
+        return row;
+    }
+
+    private static long writeStreaming(PdfWriter writer, String[] headers, Iterator<String[]> rows, int flushEvery,
+                                       FixedTableLayout layout) {
+        try (OperationTimer timer = Metrics.start("table-streaming", Phase.LAYOUT)) {
+            long rowCount = 0;
+            PdfDocument pdf = new PdfDocument(writer);
+            try (Document document = new Document(pdf)) {
+                Table table = layout != null ? layout.createTable(true) : new Table(headers.length, true);
+                for (String header : headers) {
+                    table.addHeaderCell(new Cell().add(new Paragraph(header)));
+                }
+                // 大表格需要先加入文档，之后添加的行才能分批写出
+                document.add(table);
+
+                while (rows.hasNext()) {
+                    String[] row = checkRow(rows.next(), headers, ++rowCount);
+                    for (String value : row) {
+                        table.addCell(value);
+                    }
+                    if (rowCount % flushEvery == 0) {
+                        table.flush();
+                    }
+                }
+                table.complete();
+            }
+            timer.success();
+            return rowCount;
+        }
+    }
+
+    /**
+     * 流式生成大表格，行数据来自 {@link Spliterator}
+     */
+    public static long createStreaming(String dest, String[] headers, Spliterator<String[]> rows, int flushEvery)
+            throws FileNotFoundException {
+        return createStreaming(dest, headers, Spliterators.iterator(rows), flushEvery);
+    }
+}
@@ -2,50 +2,165 @@
 package com.open.capacity.itextpdfdemo.content;
 
 import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfPage;
 import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.StampingProperties;
 import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
 import com.itextpdf.layout.Canvas;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.properties.TextAlignment;
+import com.open.capacity.itextpdfdemo.io.PdfInputs;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 
 public class AddWatermarkExample {
-    public static void add(String src, String dest) throws IOException {
-        PdfReader reader = new PdfReader(src);
-        PdfWriter writer = new PdfWriter(dest);
-        PdfDocument pdf = new PdfDocument(reader, writer);
 
-        // 获取总页数
+    /** 默认水印文本 */
+    static final String WATERMARK_TEXT = "水印示例";
+
+    public static int add(String src, String dest) throws IOException {
+        try (OperationTimer timer = Metrics.start("watermark", Phase.LAYOUT)) {
+            PdfReader reader = PdfInputs.open(src);
+            PdfWriter writer = PdfOutputs.newWriter(dest);
+            PdfDocument pdf = new PdfDocument(reader, writer);
+
+            // 获取总页数
+            int pageCount = pdf.getNumberOfPages();
+            for (int i = 1; i <= pageCount; i++) {
+                PdfPage page = pdf.getPage(i);
+                // 获取页面大小
+                float pageWidth = page.getPageSize().getWidth();
+                float pageHeight = page.getPageSize().getHeight();
+
+                // 创建画布绘制水印
+                PdfCanvas canvas = new PdfCanvas(page.newContentStreamAfter(), page.getResources(), pdf);
+
+                // 使用Canvas添加水印文本
+                new Canvas(canvas, page.getPageSize())
+                        .showTextAligned(
+                                createWatermark(),
+                                pageWidth / 2, pageHeight / 2,  // 居中位置
+                                i,  // 页码
+                                TextAlignment.CENTER, null, 45  // 旋转45度
+                        );
+            }
+
+            pdf.close();
+            System.out.println("水印添加成功: " + dest);
+            timer.success();
+            return pageCount;
+        }
+    }
+
+    /**
+     * 共享XObject方式添加水印
+     * 水印文本只排版一次并写入Form XObject，相同尺寸的页面通过一个Do操作符复用同一个XObject，
+     * 适合几千页的大文档
+     *
+     * @return 添加水印的页数
+     */
+    public static int addShared(String src, String dest) throws IOException {
+        try (OperationTimer timer = Metrics.start("watermark-shared", Phase.LAYOUT)) {
+            PdfReader reader = PdfInputs.open(src);
+            PdfWriter writer = PdfOutputs.newWriter(dest);
+            PdfDocument pdf = new PdfDocument(reader, writer);
+
+            int pageCount = stampShared(pdf);
+
+            pdf.close();
+            System.out.println("水印添加成功: " + dest);
+            timer.success();
+            return pageCount;
+        }
+    }
+
+    /**
+     * 增量更新（追加模式）方式添加水印
+     * 原文件字节原样复制到输出，只在文件末尾追加水印XObject、新的内容流和修改过的页面字典，
+     * 不会重新解析、改写和压缩源文件中的其他对象，适合几百MB的扫描归档文件
+     *
+     * @return 添加水印的页数
+     */
+    public static int addIncremental(String src, String dest) throws IOException {
+        try (OperationTimer timer = Metrics.start("watermark-incremental", Phase.LAYOUT)) {
+            PdfReader reader = PdfInputs.open(src);
+            PdfWriter writer = PdfOutputs.newWriter(dest);
+            PdfDocument pdf = new PdfDocument(reader, writer, new StampingProperties().useAppendMode());
+
+            int pageCount = stampShared(pdf);
+
+            pdf.close();
+            System.out.println("水印添加成功: " + dest);
+            timer.success();
+            return pageCount;
+        }
+    }
+
+    /**
+     * 在每一页上通过共享XObject绘制水印
+     */
+    private static int stampShared(PdfDocument pdf) {
+        // 按页面尺寸缓存水印XObject
+        Map<String, PdfFormXObject> watermarks = new HashMap<>();
         int pageCount = pdf.getNumberOfPages();
         for (int i = 1; i <= pageCount; i++) {
             PdfPage page = pdf.getPage(i);
-            // 获取页面大小
-            float pageWidth = page.getPageSize().getWidth();
-            float pageHeight = page.getPageSize().getHeight();
-
-            // 创建画布绘制水印
-            PdfCanvas canvas = new PdfCanvas(page.newContentStreamAfter(), page.getResources(), pdf);
-            
-            // 使用Canvas添加水印文本
-            new Canvas(canvas, page.getPageSize())
-                    .showTextAligned(
-                            new Paragraph("水印示例")
-                                    .setFontColor(ColorConstants.LIGHT_GRAY)
-                                    .setFontSize(50),
-                            pageWidth / 2, pageHeight / 2,  // 居中位置
-                            i,  // 页码
-                            TextAlignment.CENTER, null, 45  // 旋转45度
-                    );
+            Rectangle pageSize = page.getPageSize();
+            String key = pageSize.getWidth() + "x" + pageSize.getHeight();
+            PdfFormXObject watermark = watermarks.get(key);
+            if (watermark == null) {
+                watermark = createWatermarkXObject(pdf, pageSize.getWidth(), pageSize.getHeight());
+                watermarks.put(key, watermark);
+            }
+
+            new PdfCanvas(page.newContentStreamAfter(), page.getResources(), pdf)
+                    .addXObjectAt(watermark, pageSize.getX(), pageSize.getY());
         }
+        return pageCount;
+    }
+
+    /**
+     * 将水印文本排版到指定尺寸的Form XObject中
+     */
+    static PdfFormXObject createWatermarkXObject(PdfDocument pdf, float width, float height) {
+        return createWatermarkXObject(pdf, width, height, WATERMARK_TEXT);
+    }
+
+    /**
+     * 将指定的水印文本排版到指定尺寸的Form XObject中
+     */
+    static PdfFormXObject createWatermarkXObject(PdfDocument pdf, float width, float height, String text) {
+        PdfFormXObject xObject = new PdfFormXObject(new Rectangle(width, height));
+        new Canvas(xObject, pdf)
+                .showTextAligned(
+                        createWatermark(text),
+                        width / 2, height / 2,  // 居中位置
+                        1,
+                        TextAlignment.CENTER, null, 45  // 旋转45度
+                );
+        return xObject;
+    }
+
+    private static Paragraph createWatermark() {
+        return createWatermark(WATERMARK_TEXT);
+    }
 
-        pdf.close();
-        System.out.println("水印添加成功: " + dest);
+    private static Paragraph createWatermark(String text) {
+        return new Paragraph(text)
+                .setFontColor(ColorConstants.LIGHT_GRAY)
+                .setFontSize(50);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.xobject.PdfXObject;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 每个文档中已经嵌入的XObject
+ *
+ * 按文档的对象标识（而不是 {@code equals}）区分文档，文档只被弱引用：
+ * 关闭的文档在下次访问时移除，没有关闭就被丢弃的文档在被回收后移除，缓存不会让它们一直留在内存中。
+ * XObject的流属于文档，会通过间接引用指向文档，因此这里对XObject同样只保留弱引用；
+ * 流在文档的交叉引用表中一直存在，只要文档还在使用，就能找回同一个流。
+ * 所有方法都是同步的，可以在多个线程之间共享。
+ *
+ * @param <T> XObject的类型
+ */
+public class DocumentXObjects<T extends PdfXObject> {
+
+    private final ReferenceQueue<PdfDocument> collected = new ReferenceQueue<>();
+
+    private final Map<DocumentKey, Map<String, XObjectRef<T>>> documents = new HashMap<>();
+
+    private final Function<PdfStream, T> wrapper;
+
+    /**
+     * @param wrapper 包装器被回收后，用文档中的流重新创建XObject
+     */
+    public DocumentXObjects(Function<PdfStream, T> wrapper) {
+        this.wrapper = wrapper;
+    }
+
+    /**
+     * 返回指定文档中已经嵌入的XObject，没有时返回空
+     */
+    public synchronized T get(PdfDocument pdf, String key) {
+        expunge();
+        Map<String, XObjectRef<T>> xObjects = documents.get(new DocumentKey(pdf, null));
+        if (xObjects == null) {
+            return null;
+        }
+        XObjectRef<T> ref = xObjects.get(key);
+        return ref != null ? ref.get(wrapper) : null;
+    }
+
+    /**
+     * 记录在指定文档中嵌入的XObject，已经有同一个键的XObject时返回已有的。
+     * 记录的XObject会被设为间接对象，由文档保留它的流
+     */
+    public synchronized T putIfAbsent(PdfDocument pdf, String key, T xObject) {
+        T existing = get(pdf, key);
+        if (existing != null) {
+            return existing;
+        }
+        if (xObject.getPdfObject().getIndirectReference() == null) {
+            xObject.makeIndirect(pdf);
+        }
+        documents.computeIfAbsent(new DocumentKey(pdf, collected), doc -> new HashMap<>())
+                .put(key, new XObjectRef<>(xObject));
+        return xObject;
+    }
+
+    /**
+     * 当前记录的文档数
+     */
+    public synchronized int size() {
+        expunge();
+        return documents.size();
+    }
+
+    /**
+     * 移除已经关闭和已经被回收的文档
+     */
+    private void expunge() {
+        Reference<? extends PdfDocument> ref;
+        while ((ref = collected.poll()) != null) {
+            documents.remove(ref);
+        }
+        Iterator<DocumentKey> keys = documents.keySet().iterator();
+        while (keys.hasNext()) {
+            PdfDocument pdf = keys.next().get();
+            if (pdf == null || pdf.isClosed()) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * 按对象标识比较的文档弱引用
+     */
+    private static class DocumentKey extends WeakReference<PdfDocument> {
+
+        private final int hash;
+
+        DocumentKey(PdfDocument pdf, ReferenceQueue<PdfDocument> queue) {
+            super(pdf, queue);
+            this.hash = System.identityHashCode(pdf);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof DocumentKey)) {
+                return false;
+            }
+            PdfDocument pdf = get();
+            return pdf != null && pdf == ((DocumentKey) other).get();
+        }
+    }
+
+    /**
+     * 对XObject和它的流的弱引用，包装器被回收后用流重新包装
+     */
+    private static class XObjectRef<T extends PdfXObject> {
+
+        private final WeakReference<PdfStream> stream;
+
+        private WeakReference<T> xObject;
+
+        XObjectRef(T xObject) {
+            this.stream = new WeakReference<>(xObject.getPdfObject());
+            this.xObject = new WeakReference<>(xObject);
+        }
+
+        T get(Function<PdfStream, T> wrapper) {
+            T result = xObject.get();
+            if (result == null) {
+                PdfStream pdfStream = stream.get();
+                if (pdfStream == null) {
+                    return null;
+                }
+                result = wrapper.apply(pdfStream);
+                xObject = new WeakReference<>(result);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.UnitValue;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 固定布局表格的列宽
+ *
+ * 自动布局（{@code new Table(n)}）需要测量每个单元格内容的最小和最大宽度才能确定列宽，
+ * 行数多、文字多时这一步开销很大。固定布局直接使用声明的列宽，排版时跳过这一步。
+ * 列宽可以是绝对值（点）、百分比，或者由少量样本行一次性计算得到。
+ */
+public class FixedTableLayout {
+
+    /**
+     * 单元格左右内边距和边框的宽度之和（默认内边距各2点，边框各0.5点）
+     */
+    private static final float CELL_EXTRA_WIDTH = 5;
+
+    private final UnitValue[] columnWidths;
+
+    private final boolean percent;
+
+    private FixedTableLayout(UnitValue[] columnWidths, boolean percent) {
+        this.columnWidths = columnWidths;
+        this.percent = percent;
+    }
+
+    /**
+     * 使用绝对列宽，表格宽度为各列之和
+     *
+     * @param widths 每列的宽度，单位为点
+     */
+    public static FixedTableLayout ofPoints(float... widths) {
+        return new FixedTableLayout(toUnitValues(widths, false), false);
+    }
+
+    /**
+     * 使用百分比列宽，表格占满可用宽度
+     *
+     * @param percents 每列占表格宽度的百分比
+     */
+    public static FixedTableLayout ofPercents(float... percents) {
+        return new FixedTableLayout(toUnitValues(percents, true), true);
+    }
+
+    /**
+     * 根据样本行计算列宽：取每列文字的最大宽度，按比例换算成百分比，
+     * 每列至少占 {@code minPercent}，避免短列被挤得过窄。只测量一次样本，之后的行不再测量。
+     * 样本中为空的列按单元格内边距和边框的宽度计算
+     *
+     * @param sampleRows 样本行，通常是表头加前几十行数据
+     * @param font       单元格使用的字体
+     * @param fontSize   单元格使用的字号
+     * @param minPercent 每列的最小百分比
+     */
+    public static FixedTableLayout fromSample(List<String[]> sampleRows, PdfFont font, float fontSize,
+                                              float minPercent) {
+        if (sampleRows.isEmpty()) {
+            throw new IllegalArgumentException("sampleRows must not be empty");
+        }
+        int columns = sampleRows.get(0).length;
+        float[] widths = new float[columns];
+        Arrays.fill(widths, CELL_EXTRA_WIDTH);
+        for (String[] row : sampleRows) {
+            for (int i = 0; i < columns && i < row.length; i++) {
+                widths[i] = Math.max(widths[i], font.getWidth(row[i], fontSize) + CELL_EXTRA_WIDTH);
+            }
+        }
+
+        if (minPercent * columns > 100) {
+            throw new IllegalArgumentException("minPercent too large for " + columns + " columns: " + minPercent);
+        }
+        // 按文字宽度分配百分比；低于最小值的列固定为最小值，剩余部分在其他列中重新分配，直到没有新的列被固定
+        float[] percents = new float[columns];
+        boolean[] pinned = new boolean[columns];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            float free = 100;
+            float freeWidth = 0;
+            int freeColumns = 0;
+            for (int i = 0; i < columns; i++) {
+                if (pinned[i]) {
+                    free -= minPercent;
+                } else {
+                    freeWidth += widths[i];
+                    freeColumns++;
+                }
+            }
+            for (int i = 0; i < columns; i++) {
+                if (pinned[i]) {
+                    percents[i] = minPercent;
+                    continue;
+                }
+                // 没有可以按比例分配的宽度时剩余部分平均分配
+                percents[i] = freeWidth > 0 ? free * widths[i] / freeWidth : free / freeColumns;
+                if (percents[i] < minPercent) {
+                    pinned[i] = true;
+                    changed = true;
+                }
+            }
+        }
+        return ofPercents(percents);
+    }
+
+    public int getNumberOfColumns() {
+        return columnWidths.length;
+    }
+
+    /**
+     * 创建使用固定布局的表格
+     *
+     * @param largeTable 是否为大表格（分批写出）
+     */
+    public Table createTable(boolean largeTable) {
+        Table table = new Table(columnWidths.clone(), largeTable);
+        // 固定布局需要确定的表格宽度，否则iText会退回自动布局
+        if (percent) {
+            table.setWidth(UnitValue.createPercentValue(100));
+        } else {
+            float total = 0;
+            for (UnitValue width : columnWidths) {
+                total += width.getValue();
+            }
+            table.setWidth(total);
+        }
+        table.setFixedLayout();
+        return table;
+    }
+
+    private static UnitValue[] toUnitValues(float[] widths, boolean percent) {
+        if (widths.length == 0) {
+            throw new IllegalArgumentException("at least one column width is required");
+        }
+        UnitValue[] values = new UnitValue[widths.length];
+        for (int i = 0; i < widths.length; i++) {
+            if (widths[i] <= 0) {
+                throw new IllegalArgumentException("column width must be positive: " + widths[i]);
+            }
+            values[i] = percent ? UnitValue.createPercentValue(widths[i]) : UnitValue.createPointValue(widths[i]);
+        }
+        return values;
+    }
+}
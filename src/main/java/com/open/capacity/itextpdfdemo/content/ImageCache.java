@@ -0,0 +1,203 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
+import com.open.capacity.itextpdfdemo.metrics.PhaseScope;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 解码后图片的进程级缓存
+ *
+ * 以路径加修改时间和文件大小为键缓存 {@link ImageData}，文件被替换后自动失效。
+ * 缓存按解码数据的字节数设上限，超过上限时淘汰最久未使用的图片，并统计命中、未命中和淘汰次数。
+ * 同一个文档中多次使用同一张图片时，通过 {@link #getXObject} 只嵌入一次，各页引用同一个图片XObject。
+ */
+public class ImageCache {
+
+    private static final ImageCache DEFAULT = new ImageCache(64L * 1024 * 1024);
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 解码后交给调用方的图片，淘汰后仍然记录，直到图片被回收
+     */
+    private final Map<ImageData, Boolean> shared = new WeakHashMap<>();
+
+    /**
+     * 每个文档已经嵌入的图片，不会让已经关闭或被丢弃的文档留在内存中
+     */
+    private final DocumentXObjects<PdfImageXObject> embedded = new DocumentXObjects<>(PdfImageXObject::new);
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private long maxBytes;
+
+    private long currentBytes;
+
+    public ImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 进程级默认缓存，上限64MB
+     */
+    public static ImageCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 读取图片，文件未变化时直接返回缓存的解码结果
+     *
+     * 返回的 {@link ImageData} 被所有线程和文档共享，创建XObject时可能被修改，调用方不能自己用它
+     * 创建 {@link PdfImageXObject} 或 {@code Image}，嵌入时使用 {@link #getXObject}。
+     * 因此只在包内用于预热缓存和判断是否需要预处理
+     */
+    ImageData get(String path) throws MalformedURLException {
+        return lookup(path, key(path)).data;
+    }
+
+    /**
+     * 获取图片在指定文档中的XObject，同一文档中同一张图片只嵌入一次
+     */
+    public PdfImageXObject getXObject(PdfDocument pdf, String path) throws MalformedURLException {
+        String key = key(path);
+        PdfImageXObject cached = embedded.get(pdf, key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Entry entry = lookup(path, key);
+        PdfImageXObject xObject;
+        // 部分格式在创建XObject时会更新ImageData的属性，不同文档并发嵌入同一张图片时需要串行
+        synchronized (entry.data) {
+            xObject = new PdfImageXObject(entry.data);
+        }
+        return embedded.putIfAbsent(pdf, key, xObject);
+    }
+
+    @SuppressWarnings("try")
+    private Entry lookup(String path, String key) throws MalformedURLException {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry;
+            }
+        }
+
+        // 在锁外解码，避免大图片阻塞其他线程
+        misses.incrementAndGet();
+        ImageData data;
+        try (PhaseScope ignored = Metrics.phase(Phase.PARSE)) {
+            data = ImageDataFactory.create(path);
+        }
+        Entry entry = new Entry(data, data.getData() != null ? data.getData().length : new File(path).length());
+        synchronized (this) {
+            shared.put(data, Boolean.TRUE);
+            Entry existing = entries.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (entry.bytes <= maxBytes) {
+                entries.put(key, entry);
+                currentBytes += entry.bytes;
+                evictIfNeeded();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 图片是否是这个缓存共享的解码结果，这样的图片只能通过 {@link #getXObject} 嵌入
+     */
+    public synchronized boolean isShared(ImageData data) {
+        return shared.containsKey(data);
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            currentBytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * 设置缓存的字节数上限，缩小时立即淘汰多出的图片
+     */
+    public synchronized ImageCache setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        evictIfNeeded();
+        return this;
+    }
+
+    /**
+     * 清空缓存和统计
+     */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return "命中 " + getHits() + ", 未命中 " + getMisses() + ", 淘汰 " + getEvictions()
+                + ", 缓存 " + size() + " 张/" + getCurrentBytes() + " bytes";
+    }
+
+    private static String key(String path) {
+        File file = new File(path);
+        return file.getAbsolutePath() + '|' + file.lastModified() + '|' + file.length();
+    }
+
+    private static class Entry {
+
+        private final ImageData data;
+
+        private final long bytes;
+
+        Entry(ImageData data, long bytes) {
+            this.data = data;
+            this.bytes = bytes;
+        }
+    }
+}
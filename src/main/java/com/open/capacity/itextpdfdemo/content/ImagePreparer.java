@@ -0,0 +1,167 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * 图片预处理
+ *
+ * {@code Image.scaleToFit} 只改变显示尺寸，嵌入的仍是原始分辨率的位图。
+ * 这里按图片最终的显示尺寸和目标DPI重新采样，再以JPEG或PNG（Flate）重新编码，
+ * 原图已经不大于目标分辨率时直接使用原图，不做任何处理。
+ */
+public class ImagePreparer {
+
+    /**
+     * 重新编码的格式
+     */
+    public enum Encoding {
+        /**
+         * 有透明通道时使用PNG，否则使用JPEG
+         */
+        AUTO,
+        JPEG,
+        /**
+         * PNG，嵌入PDF后为Flate压缩的位图
+         */
+        FLATE
+    }
+
+    /**
+     * 原图比目标分辨率大不到这个比例时不处理，避免为很小的收益重新编码
+     */
+    private static final double SKIP_RATIO = 1.1;
+
+    private float targetDpi = 150;
+
+    private float jpegQuality = 0.8f;
+
+    private Encoding encoding = Encoding.AUTO;
+
+    /**
+     * 设置目标分辨率，默认150 DPI
+     */
+    public ImagePreparer setTargetDpi(float targetDpi) {
+        this.targetDpi = targetDpi;
+        return this;
+    }
+
+    /**
+     * 设置JPEG质量（0到1），默认0.8
+     */
+    public ImagePreparer setJpegQuality(float jpegQuality) {
+        this.jpegQuality = jpegQuality;
+        return this;
+    }
+
+    public ImagePreparer setEncoding(Encoding encoding) {
+        this.encoding = encoding;
+        return this;
+    }
+
+    /**
+     * 按图片放入 {@code maxWidth} x {@code maxHeight} 点的区域（保持宽高比）后的尺寸准备图片
+     *
+     * 不需要或无法重新采样时返回 {@link ImageCache} 中共享的原图，{@link ImageCache#isShared} 为真，
+     * 这时应通过 {@link ImageCache#getXObject} 嵌入，不能直接创建 {@code Image}
+     */
+    public ImageData prepare(String path, float maxWidth, float maxHeight) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new File(path))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                // ImageIO不支持的格式交给iText处理
+                return ImageCache.getDefault().get(path);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                // 只读取图片头部得到像素尺寸
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                double placed = Math.min(maxWidth / width, maxHeight / height);
+                int targetWidth = Math.max(1, (int) Math.round(width * placed * targetDpi / 72));
+                int targetHeight = Math.max(1, (int) Math.round(height * placed * targetDpi / 72));
+                if (width <= targetWidth * SKIP_RATIO) {
+                    return ImageCache.getDefault().get(path);
+                }
+
+                // 解码时先按整数倍抽样，不把整张大图读入内存，再平滑缩放到目标尺寸
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.min(width / targetWidth, height / targetHeight) / 2);
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage decoded;
+                try {
+                    decoded = reader.read(0, param);
+                } catch (IOException | RuntimeException e) {
+                    // ImageIO无法解码的图片（如CMYK/YCCK的JPEG、不完整的文件）不重新采样，交给iText嵌入原图
+                    System.err.println("图片无法重新采样，使用原图: " + path + ", 错误: " + e.getMessage());
+                    return ImageCache.getDefault().get(path);
+                }
+                return ImageDataFactory.create(encode(resize(decoded, targetWidth, targetHeight)));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width, int height) {
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        boolean png = encoding == Encoding.FLATE
+                || (encoding == Encoding.AUTO && image.getColorModel().hasAlpha());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (png) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+
+        BufferedImage rgb = image;
+        if (image.getColorModel().hasAlpha()) {
+            // JPEG不支持透明通道，先铺白底
+            rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = rgb.createGraphics();
+            g.drawImage(image, 0, 0, Color.WHITE, null);
+            g.dispose();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,176 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.open.capacity.itextpdfdemo.io.PdfInputs;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+
+/**
+ * 按页范围并行添加水印的引擎
+ *
+ * PdfDocument 不是线程安全的，因此并行部分不直接修改源文档：
+ * 1. 先读取所有页面尺寸，按页范围拆分任务；
+ * 2. 每个页范围在 fork-join 线程池中独立排版、压缩水印，生成只包含水印XObject的内存PDF；
+ * 3. 最后由单线程以盖章模式打开源文件，按页序把各范围的水印XObject原样（不重新压缩）复制过来。
+ *
+ * 源文件本身只被盖章而不是拆分重组，所以页序、链接和书签都保持不变。
+ *
+ * 每页的水印要先写入内存PDF再复制一次，单线程时只有 {@link AddWatermarkExample#addShared} 一半左右的速度
+ * （单核机器上约1.5千页/秒对3.1千页/秒，见 ParallelWatermarkBenchmark），多核上的加速没有测量过。
+ * 所有页面水印相同、或者只有一个可用核心时应该使用 {@code addShared}；
+ * 只有逐页不同（如带页码）的水印、并且有多个空闲核心时才考虑本引擎，使用前应在目标机器上运行基准测试确认。
+ */
+public class ParallelWatermarkEngine {
+
+    private final int parallelism;
+
+    private final int rangeSize;
+
+    private final IntFunction<String> watermarkText;
+
+    /**
+     * @param parallelism 并行度（线程数）
+     */
+    public ParallelWatermarkEngine(int parallelism) {
+        this(parallelism, 0, pageNumber -> AddWatermarkExample.WATERMARK_TEXT);
+    }
+
+    /**
+     * @param parallelism   并行度（线程数）
+     * @param rangeSize     每个任务处理的页数，小于等于0时按并行度自动计算
+     * @param watermarkText 根据页码生成水印文本
+     */
+    public ParallelWatermarkEngine(int parallelism, int rangeSize, IntFunction<String> watermarkText) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.rangeSize = rangeSize;
+        this.watermarkText = watermarkText;
+    }
+
+    /**
+     * @return 添加水印的页数
+     */
+    public int add(String src, String dest) throws IOException {
+        try (OperationTimer timer = Metrics.start("watermark-parallel", Phase.LAYOUT)) {
+            // 读取页面尺寸
+            Rectangle[] pageSizes;
+            try (PdfDocument source = new PdfDocument(PdfInputs.open(src))) {
+                pageSizes = new Rectangle[source.getNumberOfPages()];
+                for (int i = 1; i <= pageSizes.length; i++) {
+                    pageSizes[i - 1] = source.getPage(i).getPageSize();
+                }
+            }
+
+            int size = rangeSize > 0 ? rangeSize : Math.max(1, (pageSizes.length + parallelism * 4 - 1) / (parallelism * 4));
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                // 并行排版各页范围的水印
+                List<ForkJoinTask<byte[]>> ranges = new ArrayList<>();
+                for (int from = 1; from <= pageSizes.length; from += size) {
+                    final int start = from;
+                    final int end = Math.min(from + size - 1, pageSizes.length);
+                    ranges.add(pool.submit(() -> renderRange(pageSizes, start, end)));
+                }
+
+                // 按页序把水印合并到源文件
+                PdfReader reader = PdfInputs.open(src);
+                PdfWriter writer = null;
+                try {
+                    writer = PdfOutputs.newWriter(dest);
+                    PdfDocument pdf = new PdfDocument(reader, writer);
+                    int pageNumber = 1;
+                    for (ForkJoinTask<byte[]> range : ranges) {
+                        try (PdfDocument overlay = new PdfDocument(PdfInputs.open(range.join()))) {
+                            for (int i = 1; i <= overlay.getNumberOfPages(); i++, pageNumber++) {
+                                stamp(pdf, pdf.getPage(pageNumber), overlay.getPage(i));
+                            }
+                        }
+                    }
+                    pdf.close();
+                } catch (IOException | RuntimeException e) {
+                    pool.shutdownNow();
+                    abort(reader, writer, dest, e);
+                    throw e;
+                }
+            } finally {
+                pool.shutdown();
+            }
+            System.out.println("水印添加成功: " + dest);
+            timer.success();
+            return pageSizes.length;
+        }
+    }
+
+    /**
+     * 未完成的文档不能正常关闭（关闭会按已经修改的状态写出整个文档），
+     * 直接关闭读写器，释放源文件并删除不完整的输出
+     */
+    private static void abort(PdfReader reader, PdfWriter writer, String dest, Exception e) {
+        try {
+            reader.close();
+        } catch (IOException closeError) {
+            e.addSuppressed(closeError);
+        }
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException closeError) {
+                e.addSuppressed(closeError);
+            }
+            new File(dest).delete();
+        }
+    }
+
+    /**
+     * 在独立的内存文档中排版一个页范围的水印，每页一个Form XObject
+     */
+    private byte[] renderRange(Rectangle[] pageSizes, int from, int to) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfDocument overlay = new PdfDocument(PdfOutputs.newWriter(out));
+        for (int i = from; i <= to; i++) {
+            Rectangle pageSize = pageSizes[i - 1];
+            PdfFormXObject watermark = AddWatermarkExample.createWatermarkXObject(
+                    overlay, pageSize.getWidth(), pageSize.getHeight(), watermarkText.apply(i));
+            PdfPage page = overlay.addNewPage(new PageSize(pageSize.getWidth(), pageSize.getHeight()));
+            new PdfCanvas(page).addXObjectAt(watermark, 0, 0);
+        }
+        overlay.close();
+        return out.toByteArray();
+    }
+
+    /**
+     * 把水印页上的XObject复制到目标页，流内容保持压缩状态直接复制
+     */
+    private static void stamp(PdfDocument pdf, PdfPage page, PdfPage overlayPage) {
+        PdfDictionary xObjects = overlayPage.getResources().getResource(PdfName.XObject);
+        PdfStream watermark = xObjects.getAsStream(xObjects.keySet().iterator().next());
+        PdfFormXObject copy = new PdfFormXObject((PdfStream) watermark.copyTo(pdf));
+
+        Rectangle pageSize = page.getPageSize();
+        new PdfCanvas(page.newContentStreamAfter(), page.getResources(), pdf)
+                .addXObjectAt(copy, pageSize.getX(), pageSize.getY());
+    }
+}
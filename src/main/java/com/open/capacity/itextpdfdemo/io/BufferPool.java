@@ -0,0 +1,92 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存输出缓冲区池
+ *
+ * 在内存中生成小文档时，每次借出一个 {@link PooledBuffer}，用完归还，缓冲区的数组在请求之间重复使用，
+ * 不再为每个文档从小数组开始反复扩容。池中最多保留若干个空闲缓冲区；
+ * 被大文档撑大、超过保留上限的缓冲区归还时直接丢弃，避免池长期占用大块内存。
+ */
+public class BufferPool {
+
+    private static final BufferPool DEFAULT = new BufferPool(32, 64 * 1024, 4 * 1024 * 1024);
+
+    private final ArrayDeque<PooledBuffer> free = new ArrayDeque<>();
+
+    private final int maxPooled;
+
+    private final int initialCapacity;
+
+    private final int maxRetainedCapacity;
+
+    private final AtomicLong acquired = new AtomicLong();
+
+    private final AtomicLong created = new AtomicLong();
+
+    /**
+     * @param maxPooled           最多保留的空闲缓冲区数
+     * @param initialCapacity     新建缓冲区的初始容量
+     * @param maxRetainedCapacity 归还时容量超过这个值的缓冲区不再保留
+     */
+    public BufferPool(int maxPooled, int initialCapacity, int maxRetainedCapacity) {
+        this.maxPooled = maxPooled;
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+    }
+
+    /**
+     * 进程级默认缓冲池：最多32个空闲缓冲区，初始64KB，超过4MB的缓冲区不保留
+     */
+    public static BufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 借出一个空的缓冲区，池中没有空闲缓冲区时新建
+     */
+    public PooledBuffer acquire() {
+        acquired.incrementAndGet();
+        PooledBuffer buffer;
+        synchronized (free) {
+            buffer = free.poll();
+        }
+        if (buffer == null) {
+            created.incrementAndGet();
+            buffer = new PooledBuffer(this, initialCapacity);
+        }
+        buffer.acquired();
+        return buffer;
+    }
+
+    void release(PooledBuffer buffer) {
+        buffer.released();
+        if (buffer.capacity() > maxRetainedCapacity) {
+            return;
+        }
+        synchronized (free) {
+            if (free.size() < maxPooled) {
+                free.push(buffer);
+            }
+        }
+    }
+
+    public long getAcquired() {
+        return acquired.get();
+    }
+
+    /**
+     * 新建的缓冲区数，与借出次数相差越多说明复用越充分
+     */
+    public long getCreated() {
+        return created.get();
+    }
+
+    public int getFree() {
+        synchronized (free) {
+            return free.size();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.itextpdf.io.source.DeflaterOutputStream;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.itextpdf.kernel.pdf.WriterProperties;
+
+/**
+ * 输出压缩配置
+ *
+ * 只影响本次新写出的流和文件结构；从其他文档复制过来的已压缩流按原样写出，不会重新压缩。
+ */
+public enum CompressionProfile {
+
+    /**
+     * 最低的Deflate级别，不使用对象流，适合交互式请求
+     */
+    FAST(CompressionConstants.BEST_SPEED, false),
+
+    /**
+     * iText的默认设置
+     */
+    DEFAULT(CompressionConstants.DEFAULT_COMPRESSION, false),
+
+    /**
+     * 最高的Deflate级别，并使用完全压缩模式：交叉引用流和对象流，适合归档
+     */
+    SMALLEST(CompressionConstants.BEST_COMPRESSION, true);
+
+    private final int compressionLevel;
+
+    private final boolean fullCompression;
+
+    CompressionProfile(int compressionLevel, boolean fullCompression) {
+        this.compressionLevel = compressionLevel;
+        this.fullCompression = fullCompression;
+    }
+
+    /**
+     * Deflate级别，取值与 {@link DeflaterOutputStream} 相同
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public boolean isFullCompression() {
+        return fullCompression;
+    }
+
+    /**
+     * 创建对应的写入属性。{@link WriterProperties} 是可变的，每个写入器使用一份新的属性
+     */
+    public WriterProperties toWriterProperties() {
+        return toWriterProperties(null);
+    }
+
+    /**
+     * 创建用于指定PDF/A级别的写入属性，为空时与 {@link #toWriterProperties()} 相同。
+     * PDF/A-1不允许交叉引用流和对象流，这时只保留Deflate级别，不使用完全压缩模式
+     */
+    public WriterProperties toWriterProperties(PdfAConformanceLevel conformanceLevel) {
+        WriterProperties properties = new WriterProperties().setCompressionLevel(compressionLevel);
+        if (isPdfA1(conformanceLevel)) {
+            properties.setFullCompressionMode(false);
+        } else if (fullCompression) {
+            // 不使用完全压缩时保持未设置，追加模式下由iText沿用源文件的交叉引用格式
+            properties.setFullCompressionMode(true);
+        }
+        return properties;
+    }
+
+    private static boolean isPdfA1(PdfAConformanceLevel conformanceLevel) {
+        return conformanceLevel != null && "1".equals(conformanceLevel.getPart());
+    }
+}
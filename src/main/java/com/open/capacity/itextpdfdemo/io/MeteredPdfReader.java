@@ -0,0 +1,70 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.itextpdf.io.source.IRandomAccessSource;
+import com.itextpdf.kernel.pdf.PdfIndirectReference;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.ReaderProperties;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
+
+import java.io.IOException;
+
+/**
+ * 向当前操作报告解析阶段和读取字节数的 {@link PdfReader}
+ *
+ * 读取交叉引用表、按需读取对象和解码流的时间计入 {@link Phase#PARSE}，
+ * 打开文档时把文件大小计入读取的字节数。
+ */
+class MeteredPdfReader extends PdfReader {
+
+    MeteredPdfReader(IRandomAccessSource source, ReaderProperties properties) throws IOException {
+        super(source, properties);
+    }
+
+    @Override
+    protected void readPdf() throws IOException {
+        OperationTimer timer = Metrics.current();
+        if (timer == null) {
+            super.readPdf();
+            return;
+        }
+        timer.addBytesRead(getFileLength());
+        Phase previous = timer.enter(Phase.PARSE);
+        try {
+            super.readPdf();
+        } finally {
+            timer.exit(previous);
+        }
+    }
+
+    @Override
+    protected PdfObject readObject(PdfIndirectReference reference) {
+        OperationTimer timer = Metrics.current();
+        if (timer == null) {
+            return super.readObject(reference);
+        }
+        Phase previous = timer.enter(Phase.PARSE);
+        try {
+            return super.readObject(reference);
+        } finally {
+            timer.exit(previous);
+        }
+    }
+
+    @Override
+    public byte[] readStreamBytes(PdfStream stream, boolean decode) throws IOException {
+        OperationTimer timer = Metrics.current();
+        if (timer == null) {
+            return super.readStreamBytes(stream, decode);
+        }
+        Phase previous = timer.enter(Phase.PARSE);
+        try {
+            return super.readStreamBytes(stream, decode);
+        } finally {
+            timer.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * 向当前操作报告写出阶段、压缩阶段、页数和字节数的 {@link PdfWriter}
+ *
+ * 写出对象的时间计入 {@link Phase#WRITE}。iText在写出对象的同时压缩流，无法单独计时，
+ * 因此新建的流在写出前先由这里压缩并计入 {@link Phase#COMPRESS}，再交给iText原样写出；
+ * 压缩的参数和调用方式与iText相同，输出与普通的 {@link PdfWriter} 逐字节一致。
+ * 页数按写出的页面字典计数，追加模式下只计入修改过的页面。
+ * 没有正在进行的操作时与普通的 {@link PdfWriter} 完全相同。
+ */
+public class MeteredPdfWriter extends PdfWriter {
+
+    public MeteredPdfWriter(String filename, WriterProperties properties) throws FileNotFoundException {
+        super(filename, properties);
+    }
+
+    public MeteredPdfWriter(OutputStream out, WriterProperties properties) {
+        super(out, properties);
+    }
+
+    @Override
+    protected void flushObject(PdfObject pdfObject, boolean canBeInObjStm) {
+        OperationTimer timer = Metrics.current();
+        if (timer == null) {
+            super.flushObject(pdfObject, canBeInObjStm);
+            return;
+        }
+        Phase previous = timer.enter(Phase.WRITE);
+        try {
+            if (pdfObject.getType() == PdfObject.STREAM) {
+                compress((PdfStream) pdfObject, timer);
+            } else if (pdfObject.getType() == PdfObject.DICTIONARY
+                    && PdfName.Page.equals(((PdfDictionary) pdfObject).getAsName(PdfName.Type))) {
+                timer.addPages(1);
+            }
+            super.flushObject(pdfObject, canBeInObjStm);
+        } finally {
+            timer.exit(previous);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        OperationTimer timer = Metrics.current();
+        if (timer == null) {
+            super.close();
+            return;
+        }
+        Phase previous = timer.enter(Phase.WRITE);
+        try {
+            super.close();
+        } finally {
+            timer.addBytesWritten(getCurrentPos());
+            timer.exit(previous);
+        }
+    }
+
+    private void compress(PdfStream stream, OperationTimer timer) {
+        if (!isCompressible(stream)) {
+            return;
+        }
+        int level = compressionLevel(stream);
+        if (level == CompressionConstants.NO_COMPRESSION) {
+            return;
+        }
+        Phase previous = timer.enter(Phase.COMPRESS);
+        try {
+            stream.setData(deflate(stream.getBytes(false), level));
+            stream.put(PdfName.Filter, PdfName.FlateDecode);
+        } catch (IOException e) {
+            // 内存中的压缩不会失败；万一失败，流保持原样，由iText照常压缩
+        } finally {
+            timer.exit(previous);
+        }
+    }
+
+    /**
+     * 与iText写出时压缩的条件相同：内存中新建的流（从输入流创建或从源文件读取的流没有输出缓冲区），
+     * 没有过滤器，不是XMP元数据；对象流和交叉引用流由iText自己拼接和压缩
+     */
+    static boolean isCompressible(PdfStream stream) {
+        PdfName type = stream.getAsName(PdfName.Type);
+        return stream.getOutputStream() != null
+                && !stream.containsKey(PdfName.Filter)
+                && !stream.containsKey(PdfName.DecodeParms)
+                && !PdfName.Metadata.equals(type)
+                && !PdfName.ObjStm.equals(type)
+                && !PdfName.XRef.equals(type);
+    }
+
+    int compressionLevel(PdfStream stream) {
+        int level = stream.getCompressionLevel();
+        return level != CompressionConstants.UNDEFINED_COMPRESSION ? level : getCompressionLevel();
+    }
+
+    /**
+     * 与iText的 {@code DeflaterOutputStream} 相同的参数和一次性写入，得到相同的压缩结果
+     */
+    static byte[] deflate(byte[] data, int level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        Deflater deflater = new Deflater(level);
+        try {
+            DeflaterOutputStream zip = new DeflaterOutputStream(out, deflater, 512);
+            zip.write(data, 0, data.length);
+            zip.finish();
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+}
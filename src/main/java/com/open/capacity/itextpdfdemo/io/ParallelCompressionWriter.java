@@ -0,0 +1,262 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.itextpdf.kernel.events.PdfDocumentEvent;
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.Phase;
+import com.open.capacity.itextpdfdemo.metrics.PhaseScope;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 在线程池中并行压缩内容流和图片的 {@link PdfWriter}
+ *
+ * iText排版时，开始新的一页才写出再前一页，因此开始第N+1页时第N页的内容已经完成。
+ * 这时把第N页的内容流和其中尚未压缩的图片交给线程池压缩，排版线程继续处理第N+1页。
+ * 对象仍然由调用线程按原来的顺序写出：写出一个流时，如果它的内容与提交时相同就使用压缩好的数据，
+ * 否则由iText照常压缩。压缩的参数和调用方式与iText相同，输出与普通的 {@link PdfWriter} 逐字节一致。
+ * <p>
+ * 一个文档同时压缩的只有上一页的流，页内有多张图片时可以同时压缩多张。
+ * 关闭文档时才写出的页面和追加模式不使用并行压缩。
+ * <p>
+ * 这个模式只是把压缩从写出线程移到线程池，是否更快没有在多核机器上测量过。在单核机器上它没有加速，
+ * 反而因为复制流和切换线程略慢（ParallelCompressionBenchmark，2个压缩线程：1万行表格0.96倍，
+ * 24张图片的目录0.91倍）。默认不启用，启用前应在目标机器上运行这个基准测试确认。
+ */
+public class ParallelCompressionWriter extends MeteredPdfWriter {
+
+    /**
+     * 小于这个大小的流直接由iText压缩，不值得提交任务
+     */
+    private static final int MIN_PARALLEL_BYTES = 1024;
+
+    private final ExecutorService executor;
+
+    /**
+     * 已经提交压缩的流，只在调用线程中访问
+     */
+    private final Map<PdfStream, Compression> pending = new IdentityHashMap<>();
+
+    private int parallelCount;
+
+    private int fallbackCount;
+
+    public ParallelCompressionWriter(String filename, WriterProperties properties, ExecutorService executor)
+            throws FileNotFoundException {
+        super(filename, properties);
+        this.executor = executor;
+    }
+
+    public ParallelCompressionWriter(OutputStream out, WriterProperties properties, ExecutorService executor) {
+        super(out, properties);
+        this.executor = executor;
+    }
+
+    /**
+     * 使用线程池压缩结果写出的流的数量
+     */
+    public int getParallelCount() {
+        return parallelCount;
+    }
+
+    /**
+     * 提交后内容又发生变化或压缩失败、改由iText压缩的流的数量
+     */
+    public int getFallbackCount() {
+        return fallbackCount;
+    }
+
+    /**
+     * 文档打开时写出文件头，这时注册开始新页面的事件
+     */
+    @Override
+    protected void writeHeader() {
+        super.writeHeader();
+        document.addEventHandler(PdfDocumentEvent.START_PAGE, event -> {
+            // 只处理添加在末尾的页面，插入到中间的页面不代表前一页已经完成
+            int pageCount = document.getNumberOfPages();
+            if (pageCount > 1 && document.getPage(pageCount) == ((PdfDocumentEvent) event).getPage()) {
+                PdfPage previous = document.getPage(pageCount - 1);
+                if (!previous.isFlushed()) {
+                    submit(previous);
+                }
+            }
+        });
+    }
+
+    @Override
+    @SuppressWarnings("try")
+    protected void flushObject(PdfObject pdfObject, boolean canBeInObjStm) {
+        if (pdfObject.getType() == PdfObject.STREAM && !pending.isEmpty()) {
+            Compression compression = pending.remove(pdfObject);
+            if (compression != null) {
+                // 等待线程池压缩完成的时间计入压缩阶段
+                try (PhaseScope ignored = Metrics.phase(Phase.COMPRESS)) {
+                    apply((PdfStream) pdfObject, compression);
+                }
+            }
+        }
+        super.flushObject(pdfObject, canBeInObjStm);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Compression compression : pending.values()) {
+            compression.result.cancel(false);
+        }
+        pending.clear();
+        super.close();
+    }
+
+    private void submit(PdfPage page) {
+        for (int i = 0; i < page.getContentStreamCount(); i++) {
+            submit(page.getContentStream(i));
+        }
+        // 直接读取页面字典，不通过 getResources()，避免为没有资源的页面创建资源字典而改变输出
+        PdfDictionary resources = page.getPdfObject().getAsDictionary(PdfName.Resources);
+        PdfDictionary xObjects = resources != null ? resources.getAsDictionary(PdfName.XObject) : null;
+        if (xObjects == null) {
+            return;
+        }
+        for (PdfName name : xObjects.keySet()) {
+            PdfStream xObject = xObjects.getAsStream(name);
+            if (xObject != null && PdfName.Image.equals(xObject.getAsName(PdfName.Subtype))) {
+                submit(xObject);
+                PdfStream mask = xObject.getAsStream(PdfName.SMask);
+                if (mask != null) {
+                    submit(mask);
+                }
+            }
+        }
+    }
+
+    private void submit(PdfStream stream) {
+        if (stream == null || stream.isFlushed() || pending.containsKey(stream) || !isCompressible(stream)) {
+            return;
+        }
+        int level = compressionLevel(stream);
+        if (level == CompressionConstants.NO_COMPRESSION) {
+            return;
+        }
+        byte[] data = stream.getBytes(false);
+        if (data == null || data.length < MIN_PARALLEL_BYTES) {
+            return;
+        }
+        try {
+            pending.put(stream, new Compression(data, level, executor.submit(() -> deflate(data, level))));
+        } catch (RejectedExecutionException e) {
+            // 线程池已经关闭，由iText照常压缩
+        }
+    }
+
+    /**
+     * 内容与提交时相同时换上压缩好的数据并设置过滤器，iText写出时不会再次压缩
+     */
+    private void apply(PdfStream stream, Compression compression) {
+        byte[] compressed = compression.await();
+        if (compressed != null && isCompressible(stream) && compressionLevel(stream) == compression.level
+                && contentEquals(stream, compression.data)) {
+            stream.setData(compressed);
+            stream.put(PdfName.Filter, PdfName.FlateDecode);
+            parallelCount++;
+        } else {
+            fallbackCount++;
+        }
+    }
+
+    /**
+     * 不复制缓冲区，直接把流的内容写入比较用的输出流
+     */
+    private static boolean contentEquals(PdfStream stream, byte[] expected) {
+        ByteArrayOutputStream buffer = (ByteArrayOutputStream) stream.getOutputStream().getOutputStream();
+        if (buffer.size() != expected.length) {
+            return false;
+        }
+        ComparingOutputStream comparison = new ComparingOutputStream(expected);
+        try {
+            buffer.writeTo(comparison);
+        } catch (IOException e) {
+            return false;
+        }
+        return comparison.matches;
+    }
+
+    private static class Compression {
+
+        private final byte[] data;
+
+        private final int level;
+
+        private final Future<byte[]> result;
+
+        Compression(byte[] data, int level, Future<byte[]> result) {
+            this.data = data;
+            this.level = level;
+            this.result = result;
+        }
+
+        /**
+         * 等待压缩完成，失败或被中断时返回空
+         */
+        byte[] await() {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 把写入的内容与预期的字节逐段比较
+     */
+    private static class ComparingOutputStream extends OutputStream {
+
+        private final byte[] expected;
+
+        private int position;
+
+        private boolean matches = true;
+
+        ComparingOutputStream(byte[] expected) {
+            this.expected = expected;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (matches) {
+                for (int i = 0; i < len; i++) {
+                    if (expected[position + i] != b[off + i]) {
+                        matches = false;
+                        return;
+                    }
+                }
+            }
+            position += len;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.itextpdf.io.source.GetBufferedRandomAccessSource;
+import com.itextpdf.io.source.IRandomAccessSource;
+import com.itextpdf.io.source.RandomAccessSourceFactory;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.ReaderProperties;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * 统一的PDF输入层，所有示例操作都通过这里创建 {@link PdfReader}
+ *
+ * 支持几种读取策略：
+ * <ul>
+ *     <li>{@link Strategy#MAPPED}：内存映射文件，按需缺页读取，不把文件内容复制到堆中，适合几百MB的大文件；
+ *     映射失败时自动退回到 {@link Strategy#BUFFERED}</li>
+ *     <li>{@link Strategy#BUFFERED}：通过 RandomAccessFile 带缓冲地按需读取</li>
+ *     <li>{@link Strategy#IN_MEMORY}：一次性读入堆内存，对小文件只需要一次读调用</li>
+ *     <li>{@link Strategy#AUTO}：文件大小不小于阈值时内存映射，否则一次性读入内存</li>
+ * </ul>
+ * 启用 {@link Metrics} 时读取器向当前操作报告解析时间和读取的字节数。
+ */
+public final class PdfInputs {
+
+    /**
+     * 读取策略
+     */
+    public enum Strategy {
+        AUTO, MAPPED, BUFFERED, IN_MEMORY
+    }
+
+    private static volatile Strategy defaultStrategy = Strategy.AUTO;
+
+    private static volatile long mappedThreshold = 4L * 1024 * 1024;
+
+    private PdfInputs() {
+    }
+
+    public static Strategy getDefaultStrategy() {
+        return defaultStrategy;
+    }
+
+    /**
+     * 设置全局默认读取策略
+     */
+    public static void setDefaultStrategy(Strategy strategy) {
+        defaultStrategy = strategy;
+    }
+
+    public static long getMappedThreshold() {
+        return mappedThreshold;
+    }
+
+    /**
+     * 设置 {@link Strategy#AUTO} 下使用内存映射的文件大小阈值
+     */
+    public static void setMappedThreshold(long bytes) {
+        mappedThreshold = bytes;
+    }
+
+    /**
+     * 按默认策略打开PDF文件
+     */
+    public static PdfReader open(String path) throws IOException {
+        return open(path, defaultStrategy);
+    }
+
+    /**
+     * 按指定策略打开PDF文件，关闭 reader 时会一并关闭文件。
+     * 文件不是PDF等原因导致无法创建 reader 时立即关闭数据源，不留下文件映射或文件句柄
+     */
+    public static PdfReader open(String path, Strategy strategy) throws IOException {
+        IRandomAccessSource source = createSource(path, strategy);
+        PdfReader reader;
+        try {
+            reader = newReader(source);
+        } catch (IOException | RuntimeException e) {
+            try {
+                source.close();
+            } catch (IOException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw e;
+        }
+        reader.setCloseStream(true);
+        return reader;
+    }
+
+    /**
+     * 打开内存中的PDF，不复制字节数组
+     */
+    public static PdfReader open(byte[] bytes) throws IOException {
+        return newReader(new RandomAccessSourceFactory().createSource(bytes));
+    }
+
+    /**
+     * 启用统计时创建报告解析时间和读取字节数的读取器
+     */
+    private static PdfReader newReader(IRandomAccessSource source) throws IOException {
+        return Metrics.isEnabled() ? new MeteredPdfReader(source, new ReaderProperties())
+                : new PdfReader(source, new ReaderProperties());
+    }
+
+    /**
+     * 按指定策略创建随机访问数据源
+     */
+    public static IRandomAccessSource createSource(String path, Strategy strategy) throws IOException {
+        File file = new File(path);
+        if (strategy == Strategy.AUTO) {
+            strategy = file.length() >= mappedThreshold ? Strategy.MAPPED : Strategy.IN_MEMORY;
+        }
+        switch (strategy) {
+            case IN_MEMORY:
+                return new RandomAccessSourceFactory().createSource(Files.readAllBytes(file.toPath()));
+            case BUFFERED:
+                return new GetBufferedRandomAccessSource(
+                        new RandomAccessSourceFactory().setUsePlainRandomAccess(true).createBestSource(path));
+            case MAPPED:
+            default:
+                // 映射失败（如32位地址空间不足）时iText会自动退回到RandomAccessFile
+                return new RandomAccessSourceFactory().setForceRead(false).createBestSource(path);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+
+import java.io.FileNotFoundException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 统一的PDF输出层，所有示例操作都通过这里创建 {@link PdfWriter}
+ *
+ * 写入器使用全局默认的 {@link CompressionProfile}，也可以为单次调用传入自己的写入属性。
+ * PDF/A文档的写入器按符合性级别创建，PDF/A-1不使用完全压缩模式。
+ * 内存中的中间文档同样使用默认配置：它们的流之后会按原样复制到最终输出中。
+ * 设置了压缩线程数时创建 {@link ParallelCompressionWriter}，输出与串行写出完全相同。
+ * 启用 {@link Metrics} 时创建 {@link MeteredPdfWriter}，向当前操作报告压缩、写出时间和页数、字节数。
+ */
+public final class PdfOutputs {
+
+    private static volatile CompressionProfile defaultProfile = CompressionProfile.DEFAULT;
+
+    private static volatile ExecutorService compressionExecutor;
+
+    private static int compressionThreads;
+
+    private PdfOutputs() {
+    }
+
+    public static CompressionProfile getDefaultProfile() {
+        return defaultProfile;
+    }
+
+    /**
+     * 设置全局默认压缩配置
+     */
+    public static void setDefaultProfile(CompressionProfile profile) {
+        defaultProfile = profile;
+    }
+
+    public static synchronized int getCompressionThreads() {
+        return compressionThreads;
+    }
+
+    /**
+     * 设置并行压缩流的线程数，为0时由写出线程自己压缩（默认）。
+     * 线程池在所有文档之间共享，使用守护线程；替换下来的线程池在已提交的任务完成后结束。
+     * 并行压缩的效果没有在多核机器上测量过，见 {@link ParallelCompressionWriter}
+     */
+    public static synchronized void setCompressionThreads(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("threads must not be negative: " + threads);
+        }
+        if (compressionExecutor != null) {
+            compressionExecutor.shutdown();
+            compressionExecutor = null;
+        }
+        compressionThreads = threads;
+        if (threads > 0) {
+            AtomicInteger counter = new AtomicInteger();
+            compressionExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "pdf-compression-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * 按默认压缩配置创建写入属性，调用方可以在此基础上增加其他设置（例如智能模式）
+     */
+    public static WriterProperties writerProperties() {
+        return defaultProfile.toWriterProperties();
+    }
+
+    /**
+     * 按默认压缩配置创建用于指定PDF/A级别的写入属性，PDF/A-1的文档不使用对象流和交叉引用流
+     */
+    public static WriterProperties writerProperties(PdfAConformanceLevel conformanceLevel) {
+        return defaultProfile.toWriterProperties(conformanceLevel);
+    }
+
+    /**
+     * 使用默认压缩配置创建写入文件的 {@link PdfWriter}
+     */
+    public static PdfWriter newWriter(String dest) throws FileNotFoundException {
+        return newWriter(dest, writerProperties());
+    }
+
+    /**
+     * 创建写入文件的PDF/A文档的 {@link PdfWriter}，使用默认压缩配置中该级别允许的部分
+     */
+    public static PdfWriter newWriter(String dest, PdfAConformanceLevel conformanceLevel)
+            throws FileNotFoundException {
+        return newWriter(dest, writerProperties(conformanceLevel));
+    }
+
+    /**
+     * 使用指定的写入属性创建写入文件的 {@link PdfWriter}
+     */
+    public static PdfWriter newWriter(String dest, WriterProperties properties) throws FileNotFoundException {
+        ExecutorService executor = compressionExecutor;
+        if (executor != null) {
+            return new ParallelCompressionWriter(dest, properties, executor);
+        }
+        return Metrics.isEnabled() ? new MeteredPdfWriter(dest, properties) : new PdfWriter(dest, properties);
+    }
+
+    /**
+     * 创建写入指定输出流的 {@link PdfWriter}。输出流属于调用方，文档关闭时不会关闭它，
+     * 调用方可以继续向其中写入或在写完后读取内容（例如 {@link PooledBuffer}）
+     */
+    public static PdfWriter newWriter(OutputStream out) {
+        return newWriter(out, writerProperties());
+    }
+
+    /**
+     * 创建写入输出流的PDF/A文档的 {@link PdfWriter}，同样不关闭输出流
+     */
+    public static PdfWriter newWriter(OutputStream out, PdfAConformanceLevel conformanceLevel) {
+        return newWriter(out, writerProperties(conformanceLevel));
+    }
+
+    /**
+     * 使用指定的写入属性创建写入输出流的 {@link PdfWriter}，同样不关闭输出流
+     */
+    public static PdfWriter newWriter(OutputStream out, WriterProperties properties) {
+        ExecutorService executor = compressionExecutor;
+        PdfWriter writer;
+        if (executor != null) {
+            writer = new ParallelCompressionWriter(out, properties, executor);
+        } else {
+            writer = Metrics.isEnabled() ? new MeteredPdfWriter(out, properties) : new PdfWriter(out, properties);
+        }
+        writer.setCloseStream(false);
+        return writer;
+    }
+}
@@ -0,0 +1,197 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 从 {@link BufferPool} 借出的可增长内存缓冲区
+ *
+ * 继承 {@link ByteArrayOutputStream}，iText写入时不会再包一层缓冲流。{@link #close()} 不做任何事，
+ * 文档关闭后内容仍然可以读取；用完后调用 {@link #release()} 归还给缓冲池，归还后不能再使用，
+ * 写入和读取内容时抛出 {@link IllegalStateException}，避免读到已经借给其他请求的数据。
+ * {@link #toInputStream()} 返回的输入流直接读取缓冲区的数组，关闭输入流时归还缓冲区；
+ * 缓冲区已经归还（之后可能又借给了其他请求）时，这个输入流的读取会抛出 {@link IOException}。
+ */
+public final class PooledBuffer extends ByteArrayOutputStream {
+
+    private final BufferPool pool;
+
+    private boolean inUse;
+
+    /**
+     * 每次归还时加一，输入流据此判断缓冲区是否已经换了主人
+     */
+    private long generation;
+
+    PooledBuffer(BufferPool pool, int initialCapacity) {
+        super(initialCapacity);
+        this.pool = pool;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        checkInUse();
+        super.write(b);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        checkInUse();
+        super.write(b, off, len);
+    }
+
+    @Override
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        checkInUse();
+        super.writeTo(out);
+    }
+
+    @Override
+    public synchronized byte[] toByteArray() {
+        checkInUse();
+        return super.toByteArray();
+    }
+
+    /**
+     * 以输入流的形式读取内容，不复制数据。输入流拥有这个缓冲区：关闭输入流时归还缓冲区，
+     * 调用方不需要再调用 {@link #release()}；没有关闭输入流就归还缓冲区时，输入流不能再读取
+     */
+    public synchronized InputStream toInputStream() {
+        checkInUse();
+        return new BufferInputStream(count, generation);
+    }
+
+    /**
+     * 当前分配的容量
+     */
+    public synchronized int capacity() {
+        return buf.length;
+    }
+
+    /**
+     * 归还给缓冲池
+     *
+     * @throws IllegalStateException 已经归还过
+     */
+    public void release() {
+        pool.release(this);
+    }
+
+    private void checkInUse() {
+        if (!inUse) {
+            throw new IllegalStateException("buffer already released");
+        }
+    }
+
+    synchronized void acquired() {
+        inUse = true;
+    }
+
+    synchronized void released() {
+        if (!inUse) {
+            throw new IllegalStateException("buffer already released");
+        }
+        inUse = false;
+        generation++;
+        reset();
+    }
+
+    /**
+     * 读取借出期间内容的输入流
+     */
+    private final class BufferInputStream extends InputStream {
+
+        private final int end;
+
+        private final long owner;
+
+        private int pos;
+
+        private int mark;
+
+        private boolean closed;
+
+        BufferInputStream(int end, long owner) {
+            this.end = end;
+            this.owner = owner;
+        }
+
+        @Override
+        public int read() throws IOException {
+            synchronized (PooledBuffer.this) {
+                checkOwner();
+                return pos < end ? buf[pos++] & 0xFF : -1;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            synchronized (PooledBuffer.this) {
+                checkOwner();
+                if (len == 0) {
+                    return 0;
+                }
+                if (pos >= end) {
+                    return -1;
+                }
+                int n = Math.min(len, end - pos);
+                System.arraycopy(buf, pos, b, off, n);
+                pos += n;
+                return n;
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            synchronized (PooledBuffer.this) {
+                checkOwner();
+                long skipped = Math.max(0, Math.min(n, end - pos));
+                pos += (int) skipped;
+                return skipped;
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            synchronized (PooledBuffer.this) {
+                checkOwner();
+                return end - pos;
+            }
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            mark = pos;
+        }
+
+        @Override
+        public synchronized void reset() {
+            pos = mark;
+        }
+
+        @Override
+        public void close() {
+            boolean release;
+            synchronized (PooledBuffer.this) {
+                release = !closed && inUse && generation == owner;
+                closed = true;
+            }
+            if (release) {
+                PooledBuffer.this.release();
+            }
+        }
+
+        private void checkOwner() throws IOException {
+            if (closed || !inUse || generation != owner) {
+                throw new IOException("buffer already released");
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.open.capacity.itextpdfdemo.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 所有操作的统计入口
+ *
+ * 每个示例操作都通过 {@link #start} 计时，按操作名称累计次数、失败数、页数、读写字节数、耗时分布，
+ * 以及解析、排版、压缩、写出各阶段的时间。读写字节数、页数和解析、压缩、写出阶段
+ * 由 {@link com.open.capacity.itextpdfdemo.io.PdfInputs} 和 {@link com.open.capacity.itextpdfdemo.io.PdfOutputs}
+ * 创建的读写器自动记录，操作本身只需要声明它的主要阶段。
+ * <p>
+ * 默认禁用：{@link #start} 只读取一个volatile字段并返回共享的空计时器，读写器也不做任何包装。
+ * 统计可以通过 {@link #registerMBeans()} 以JMX MBean的形式暴露，也可以用 {@link #addSink} 接收每一次操作的记录。
+ * 一个操作中又开始的操作单独统计，同时计入外层操作当前的阶段。
+ */
+public final class Metrics {
+
+    public static final String JMX_DOMAIN = "com.open.capacity.itextpdfdemo";
+
+    private static final ThreadLocal<OperationTimer> CURRENT = new ThreadLocal<>();
+
+    private static final Map<String, OperationStats> STATS = new ConcurrentSkipListMap<>();
+
+    private static final List<MetricsSink> SINKS = new CopyOnWriteArrayList<>();
+
+    private static volatile boolean enabled;
+
+    private static volatile boolean mbeansRegistered;
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 启用或禁用统计，只影响之后开始的操作和之后创建的读写器
+     */
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * 开始一个操作，未声明阶段的时间计入 {@link Phase#OTHER}
+     */
+    public static OperationTimer start(String operation) {
+        return start(operation, Phase.OTHER);
+    }
+
+    /**
+     * 开始一个操作，未计入其他阶段的时间计入 {@code mainPhase}
+     */
+    public static OperationTimer start(String operation, Phase mainPhase) {
+        if (!enabled) {
+            return OperationTimer.NOOP;
+        }
+        OperationTimer timer = new OperationTimer(operation, mainPhase, CURRENT.get());
+        CURRENT.set(timer);
+        return timer;
+    }
+
+    /**
+     * 当前线程中正在进行的操作，禁用统计或没有操作时返回空
+     */
+    public static OperationTimer current() {
+        return enabled ? CURRENT.get() : null;
+    }
+
+    /**
+     * 在当前操作中进入一个阶段，没有操作时返回空的范围
+     */
+    public static PhaseScope phase(Phase phase) {
+        OperationTimer timer = current();
+        if (timer == null) {
+            return PhaseScope.NOOP;
+        }
+        return new PhaseScope(timer, timer.enter(phase));
+    }
+
+    public static void addSink(MetricsSink sink) {
+        SINKS.add(sink);
+    }
+
+    public static void removeSink(MetricsSink sink) {
+        SINKS.remove(sink);
+    }
+
+    /**
+     * 指定操作的累计统计，还没有记录过时返回空
+     */
+    public static OperationStats getStats(String operation) {
+        return STATS.get(operation);
+    }
+
+    /**
+     * 所有操作的累计统计，按名称排序
+     */
+    public static List<OperationStats> getAllStats() {
+        return new ArrayList<>(STATS.values());
+    }
+
+    /**
+     * 清空所有累计统计，已注册的MBean保留
+     */
+    public static void reset() {
+        for (OperationStats stats : STATS.values()) {
+            stats.reset();
+        }
+    }
+
+    /**
+     * 在平台MBean服务器上注册所有操作的统计，之后出现的操作也会注册，
+     * 名称为 {@code com.open.capacity.itextpdfdemo:type=Operation,name=操作名称}
+     */
+    public static synchronized void registerMBeans() {
+        mbeansRegistered = true;
+        for (OperationStats stats : STATS.values()) {
+            register(stats);
+        }
+    }
+
+    public static synchronized void unregisterMBeans() {
+        mbeansRegistered = false;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (OperationStats stats : STATS.values()) {
+            try {
+                ObjectName name = objectName(stats.getName());
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                System.err.println("注销MBean时出错: " + stats.getName() + ", 错误: " + e.getMessage());
+            }
+        }
+    }
+
+    public static ObjectName objectName(String operation) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=Operation,name=" + operation);
+    }
+
+    /**
+     * 所有操作的统计，每个操作一行
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        for (OperationStats stats : STATS.values()) {
+            report.append(stats).append('\n');
+        }
+        return report.toString();
+    }
+
+    /**
+     * 计时器关闭时调用：恢复外层操作，累计统计并通知所有接收器
+     */
+    static void finish(OperationTimer timer, OperationSample sample) {
+        if (timer.getParent() != null) {
+            CURRENT.set(timer.getParent());
+        } else {
+            CURRENT.remove();
+        }
+        stats(sample.getOperation()).add(sample);
+        for (MetricsSink sink : SINKS) {
+            try {
+                sink.record(sample);
+            } catch (RuntimeException e) {
+                // 接收器的错误不影响操作本身
+            }
+        }
+    }
+
+    private static OperationStats stats(String operation) {
+        OperationStats stats = STATS.get(operation);
+        if (stats == null) {
+            synchronized (Metrics.class) {
+                stats = STATS.get(operation);
+                if (stats == null) {
+                    stats = new OperationStats(operation);
+                    STATS.put(operation, stats);
+                    if (mbeansRegistered) {
+                        register(stats);
+                    }
+                }
+            }
+        }
+        return stats;
+    }
+
+    private static void register(OperationStats stats) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = objectName(stats.getName());
+            if (!server.isRegistered(name)) {
+                server.registerMBean(stats, name);
+            }
+        } catch (JMException e) {
+            System.err.println("注册MBean时出错: " + stats.getName() + ", 错误: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.open.capacity.itextpdfdemo.metrics;
+
+/**
+ * 接收每次操作记录的扩展点，例如转发到日志或外部监控系统
+ *
+ * 在执行操作的线程中同步调用，实现需要线程安全并尽快返回；抛出的异常会被忽略。
+ */
+@FunctionalInterface
+public interface MetricsSink {
+
+    void record(OperationSample sample);
+}
@@ -0,0 +1,76 @@
+package com.open.capacity.itextpdfdemo.metrics;
+
+/**
+ * 一次已完成操作的记录，交给每个 {@link MetricsSink}
+ */
+public class OperationSample {
+
+    private final String operation;
+
+    private final long durationNanos;
+
+    private final long[] phaseNanos;
+
+    private final long pages;
+
+    private final long bytesRead;
+
+    private final long bytesWritten;
+
+    private final boolean succeeded;
+
+    OperationSample(String operation, long durationNanos, long[] phaseNanos, long pages, long bytesRead,
+                    long bytesWritten, boolean succeeded) {
+        this.operation = operation;
+        this.durationNanos = durationNanos;
+        this.phaseNanos = phaseNanos;
+        this.pages = pages;
+        this.bytesRead = bytesRead;
+        this.bytesWritten = bytesWritten;
+        this.succeeded = succeeded;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * 计入指定阶段的时间，各阶段之和等于总耗时
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * 写出的页数
+     */
+    public long getPages() {
+        return pages;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public boolean isSucceeded() {
+        return succeeded;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder phases = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            phases.append(String.format(", %s %.1f ms", phase, getPhaseNanos(phase) / 1e6));
+        }
+        return String.format("%s %s, 耗时 %.1f ms%s, %d 页, 读取 %d 字节, 写出 %d 字节",
+                operation, succeeded ? "成功" : "失败", durationNanos / 1e6, phases, pages, bytesRead, bytesWritten);
+    }
+}
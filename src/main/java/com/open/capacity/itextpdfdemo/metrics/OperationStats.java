@@ -0,0 +1,157 @@
+package com.open.capacity.itextpdfdemo.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个操作的累计统计：次数、失败数、页数、读写字节数、耗时分布和各阶段的累计耗时
+ */
+public class OperationStats implements OperationStatsMBean {
+
+    private final String name;
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder pages = new LongAdder();
+
+    private final LongAdder bytesRead = new LongAdder();
+
+    private final LongAdder bytesWritten = new LongAdder();
+
+    private final Histogram latency = new Histogram();
+
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+
+    OperationStats(String name) {
+        this.name = name;
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+        }
+    }
+
+    void add(OperationSample sample) {
+        count.increment();
+        if (!sample.isSucceeded()) {
+            failures.increment();
+        }
+        pages.add(sample.getPages());
+        bytesRead.add(sample.getBytesRead());
+        bytesWritten.add(sample.getBytesWritten());
+        latency.record(sample.getDurationNanos());
+        for (Phase phase : Phase.values()) {
+            phaseNanos[phase.ordinal()].add(sample.getPhaseNanos(phase));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getPages() {
+        return pages.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * 每次操作的耗时分布（纳秒）
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * 所有操作计入指定阶段的累计时间
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.getMean() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.percentile(50) / 1e6;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.percentile(99) / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMax() / 1e6;
+    }
+
+    @Override
+    public double getParseMillis() {
+        return getPhaseNanos(Phase.PARSE) / 1e6;
+    }
+
+    @Override
+    public double getLayoutMillis() {
+        return getPhaseNanos(Phase.LAYOUT) / 1e6;
+    }
+
+    @Override
+    public double getCompressMillis() {
+        return getPhaseNanos(Phase.COMPRESS) / 1e6;
+    }
+
+    @Override
+    public double getWriteMillis() {
+        return getPhaseNanos(Phase.WRITE) / 1e6;
+    }
+
+    @Override
+    public double getOtherMillis() {
+        return getPhaseNanos(Phase.OTHER) / 1e6;
+    }
+
+    @Override
+    public void reset() {
+        count.reset();
+        failures.reset();
+        pages.reset();
+        bytesRead.reset();
+        bytesWritten.reset();
+        latency.reset();
+        for (LongAdder phase : phaseNanos) {
+            phase.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-22s %6d 次, 失败 %d, %d 页, 读取 %.1f KB, 写出 %.1f KB, 平均 %.1f ms, p50 %.1f ms, "
+                        + "p99 %.1f ms, 最大 %.1f ms | 解析 %.0f ms, 排版 %.0f ms, 压缩 %.0f ms, 写出 %.0f ms, 其他 %.0f ms",
+                name, getCount(), getFailures(), getPages(), getBytesRead() / 1024.0, getBytesWritten() / 1024.0,
+                getMeanMillis(), getP50Millis(), getP99Millis(), getMaxMillis(), getParseMillis(), getLayoutMillis(),
+                getCompressMillis(), getWriteMillis(), getOtherMillis());
+    }
+}
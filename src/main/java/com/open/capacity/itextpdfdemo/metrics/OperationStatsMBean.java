@@ -0,0 +1,39 @@
+package com.open.capacity.itextpdfdemo.metrics;
+
+/**
+ * 单个操作的累计统计，通过JMX暴露
+ */
+public interface OperationStatsMBean {
+
+    String getName();
+
+    long getCount();
+
+    long getFailures();
+
+    long getPages();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    double getParseMillis();
+
+    double getLayoutMillis();
+
+    double getCompressMillis();
+
+    double getWriteMillis();
+
+    double getOtherMillis();
+
+    void reset();
+}
@@ -0,0 +1,136 @@
+package com.open.capacity.itextpdfdemo.metrics;
+
+/**
+ * 一次操作的计时器，由 {@link Metrics#start} 创建，在同一个线程中使用并关闭
+ *
+ * 操作成功时调用 {@link #success()}，关闭时没有调用过的操作记为失败：
+ * <pre>
+ * try (OperationTimer timer = Metrics.start("create", Phase.LAYOUT)) {
+ *     ...
+ *     timer.success();
+ * }
+ * </pre>
+ * 禁用统计时 {@link Metrics#start} 返回一个共享的空计时器，所有方法直接返回。
+ */
+public class OperationTimer implements AutoCloseable {
+
+    static final OperationTimer NOOP = new OperationTimer();
+
+    private final String operation;
+
+    private final OperationTimer parent;
+
+    private final boolean active;
+
+    private final long start;
+
+    private final long[] phaseNanos;
+
+    private Phase phase;
+
+    private long phaseStart;
+
+    private long pages;
+
+    private long bytesRead;
+
+    private long bytesWritten;
+
+    private boolean succeeded;
+
+    private boolean closed;
+
+    private OperationTimer() {
+        this.operation = null;
+        this.parent = null;
+        this.active = false;
+        this.start = 0;
+        this.phaseNanos = null;
+    }
+
+    OperationTimer(String operation, Phase initialPhase, OperationTimer parent) {
+        this.operation = operation;
+        this.parent = parent;
+        this.active = true;
+        this.phaseNanos = new long[Phase.values().length];
+        this.phase = initialPhase;
+        this.start = System.nanoTime();
+        this.phaseStart = start;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * 进入一个阶段，返回之前的阶段，离开时传给 {@link #exit}
+     */
+    public Phase enter(Phase next) {
+        if (!active) {
+            return null;
+        }
+        Phase previous = phase;
+        switchTo(next);
+        return previous;
+    }
+
+    /**
+     * 回到进入阶段之前的阶段
+     */
+    public void exit(Phase previous) {
+        if (active && previous != null) {
+            switchTo(previous);
+        }
+    }
+
+    public void addPages(long count) {
+        if (active) {
+            pages += count;
+        }
+    }
+
+    public void addBytesRead(long count) {
+        if (active) {
+            bytesRead += count;
+        }
+    }
+
+    public void addBytesWritten(long count) {
+        if (active) {
+            bytesWritten += count;
+        }
+    }
+
+    /**
+     * 标记操作成功
+     */
+    public void success() {
+        succeeded = true;
+    }
+
+    /**
+     * 结束计时并记录，恢复外层的操作
+     */
+    @Override
+    public void close() {
+        if (!active || closed) {
+            return;
+        }
+        closed = true;
+        long end = System.nanoTime();
+        phaseNanos[phase.ordinal()] += end - phaseStart;
+        Metrics.finish(this, new OperationSample(operation, end - start, phaseNanos, pages, bytesRead,
+                bytesWritten, succeeded));
+    }
+
+    OperationTimer getParent() {
+        return parent;
+    }
+
+    private void switchTo(Phase next) {
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] += now - phaseStart;
+        phaseStart = now;
+        phase = next;
+    }
+}
@@ -0,0 +1,27 @@
+package com.open.capacity.itextpdfdemo.metrics;
+
+/**
+ * 一次操作中耗时所属的阶段，阶段可以嵌套，每段时间只计入最内层的阶段
+ */
+public enum Phase {
+    /**
+     * 读取和解析输入：源PDF的交叉引用表和对象、SVG和图片的解码
+     */
+    PARSE,
+    /**
+     * 排版和绘制页面内容
+     */
+    LAYOUT,
+    /**
+     * 压缩流
+     */
+    COMPRESS,
+    /**
+     * 序列化对象并写入输出
+     */
+    WRITE,
+    /**
+     * 不属于以上阶段的时间，例如合并时复制页面
+     */
+    OTHER
+}
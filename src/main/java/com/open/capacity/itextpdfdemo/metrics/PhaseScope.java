@@ -0,0 +1,31 @@
+package com.open.capacity.itextpdfdemo.metrics;
+
+/**
+ * 当前操作中的一段阶段，关闭时回到之前的阶段
+ *
+ * <pre>
+ * try (PhaseScope ignored = Metrics.phase(Phase.PARSE)) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class PhaseScope implements AutoCloseable {
+
+    static final PhaseScope NOOP = new PhaseScope(null, null);
+
+    private final OperationTimer timer;
+
+    private final Phase previous;
+
+    PhaseScope(OperationTimer timer, Phase previous) {
+        this.timer = timer;
+        this.previous = previous;
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.exit(previous);
+        }
+    }
+}
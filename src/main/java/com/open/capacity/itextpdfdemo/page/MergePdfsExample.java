@@ -4,9 +4,24 @@ import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.kernel.utils.PdfMerger;
+import com.open.capacity.itextpdfdemo.io.PdfInputs;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * PDF合并示例
@@ -14,16 +29,54 @@ import java.io.IOException;
 public class MergePdfsExample {
     
     public static void merge(String[] sources, String dest) throws IOException {
-        PdfWriter writer = new PdfWriter(dest);
+        try (OperationTimer timer = Metrics.start("merge")) {
+            merge(sources, dest, PdfOutputs.newWriter(dest), false);
+            timer.success();
+        }
+    }
+
+    /**
+     * 严格合并：任何一个源文件读取或复制失败时不生成结果，删除输出文件并抛出异常，
+     * 适合不能接受缺页结果的批量任务
+     */
+    public static void mergeStrict(String[] sources, String dest) throws IOException {
+        try (OperationTimer timer = Metrics.start("merge-strict")) {
+            merge(sources, dest, PdfOutputs.newWriter(dest), true);
+            timer.success();
+        }
+    }
+
+    /**
+     * 去重合并
+     * 使用iText的智能模式（smart mode）复制对象：对复制进来的流和字典按内容计算哈希，
+     * 内容相同的字体、图片、ICC配置等只写入一次，其他源文件直接引用已复制的间接对象。
+     * 适合合并由同一套生成程序产生的PDF。
+     * 智能模式需要保留已复制对象，不能与 {@link #mergeStreaming} 的逐个写出同时使用。
+     */
+    public static void mergeDeduplicated(String[] sources, String dest) throws IOException {
+        try (OperationTimer timer = Metrics.start("merge-deduplicated")) {
+            merge(sources, dest, PdfOutputs.newWriter(dest, PdfOutputs.writerProperties().useSmartMode()), false);
+            timer.success();
+        }
+    }
+
+    /**
+     * @param strict 为真时第一个失败的源文件终止合并，否则跳过失败的源文件
+     */
+    private static void merge(String[] sources, String dest, PdfWriter writer, boolean strict) throws IOException {
         PdfDocument mergedDoc = new PdfDocument(writer);
         PdfMerger merger = new PdfMerger(mergedDoc);
         
         for (String source : sources) {
-            try {
-                PdfDocument sourceDoc = new PdfDocument(new PdfReader(source));
+            try (PdfDocument sourceDoc = new PdfDocument(PdfInputs.open(source))) {
                 merger.merge(sourceDoc, 1, sourceDoc.getNumberOfPages());
-                sourceDoc.close();
             } catch (Exception e) {
+                if (strict) {
+                    // 没有页面的文档不能正常关闭，直接关闭写入器并删除不完整的输出
+                    writer.close();
+                    new File(dest).delete();
+                    throw new IOException("合并文件时出错: " + source, e);
+                }
                 System.err.println("合并文件时出错: " + source + ", 错误: " + e.getMessage());
             }
         }
@@ -31,4 +84,179 @@ public class MergePdfsExample {
         mergedDoc.close();
         System.out.println("PDF合并成功: " + dest);
     }
-}
\ No newline at end of file
+
+    /**
+     * 流式合并，适合几千个输入文件
+     * 每个源文件的页面复制完成后立即把复制过来的对象（页面、内容流、字体、图片等）写入输出并释放，
+     * 堆内存只与同时打开的源文件有关，而不随输入总大小增长。
+     * 为了能及时释放页面，流式合并不合并书签和结构标签。
+     *
+     * @param flushInterval 每合并多少个源文件写出一次，期间这些源文件保持打开
+     */
+    public static void mergeStreaming(String[] sources, String dest, int flushInterval) throws IOException {
+        if (flushInterval < 1) {
+            throw new IllegalArgumentException("flushInterval must be positive: " + flushInterval);
+        }
+        try (OperationTimer timer = Metrics.start("merge-streaming")) {
+            PdfWriter writer = PdfOutputs.newWriter(dest);
+            PdfDocument mergedDoc = new PdfDocument(writer);
+            mergeStreaming(sources, mergedDoc, flushInterval);
+            mergedDoc.close();
+            timer.success();
+        }
+        System.out.println("PDF合并成功: " + dest);
+    }
+
+    /**
+     * 把源文件逐个复制到输出文档并写出，不关闭输出文档
+     */
+    static void mergeStreaming(String[] sources, PdfDocument mergedDoc, int flushInterval) {
+        PdfMerger merger = new PdfMerger(mergedDoc, false, false);
+
+        // 已复制但尚未写出的源文件
+        List<PdfDocument> pending = new ArrayList<>(flushInterval);
+        for (String source : sources) {
+            try {
+                PdfDocument sourceDoc = new PdfDocument(PdfInputs.open(source));
+                pending.add(sourceDoc);
+                merger.merge(sourceDoc, 1, sourceDoc.getNumberOfPages());
+            } catch (Exception e) {
+                System.err.println("合并文件时出错: " + source + ", 错误: " + e.getMessage());
+            }
+            if (pending.size() >= flushInterval) {
+                flushPending(mergedDoc, pending);
+            }
+        }
+        flushPending(mergedDoc, pending);
+    }
+
+    /**
+     * 写出从这些源文件复制过来的对象，然后关闭源文件
+     */
+    private static void flushPending(PdfDocument mergedDoc, List<PdfDocument> pending) {
+        for (PdfDocument sourceDoc : pending) {
+            mergedDoc.flushCopiedObjects(sourceDoc);
+            sourceDoc.close();
+        }
+        pending.clear();
+    }
+
+    /**
+     * 流水线合并
+     * 由读取线程池提前读取并解析后面的若干个源文件（文件整体读入内存、解析交叉引用表和页面树），
+     * 合并线程仍然按输入顺序单线程复制页面，不再等待磁盘读取和解析。
+     *
+     * @param prefetchDepth    最多提前准备的源文件个数
+     * @param maxPrefetchBytes 提前读入内存的源文件总字节数上限，超过上限的单个文件会独占全部额度
+     */
+    public static void mergePipelined(String[] sources, String dest, int prefetchDepth, long maxPrefetchBytes)
+            throws IOException {
+        if (prefetchDepth < 1) {
+            throw new IllegalArgumentException("prefetchDepth must be positive: " + prefetchDepth);
+        }
+        int budgetKb = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxPrefetchBytes / 1024));
+        Semaphore budget = new Semaphore(budgetKb);
+        ExecutorService readers = Executors.newFixedThreadPool(
+                Math.min(prefetchDepth, Runtime.getRuntime().availableProcessors()));
+
+        // 源文件在读取线程中解析，不计入解析阶段；等待预读的时间计入其他阶段
+        try (OperationTimer timer = Metrics.start("merge-pipelined")) {
+            PdfWriter writer = PdfOutputs.newWriter(dest);
+            PdfDocument mergedDoc = new PdfDocument(writer);
+            PdfMerger merger = new PdfMerger(mergedDoc);
+
+            Deque<Prefetch> window = new ArrayDeque<>(prefetchDepth);
+            int next = 0;
+            try {
+                while (next < sources.length || !window.isEmpty()) {
+                    // 在深度和内存额度允许的范围内提交预读任务
+                    while (next < sources.length && window.size() < prefetchDepth) {
+                        String source = sources[next];
+                        int kb = (int) Math.min(budgetKb, Math.max(1, new File(source).length() / 1024));
+                        if (window.isEmpty()) {
+                            budget.acquireUninterruptibly(kb);
+                        } else if (!budget.tryAcquire(kb)) {
+                            break;
+                        }
+                        window.add(new Prefetch(source, kb, readers.submit(() -> prefetch(source))));
+                        next++;
+                    }
+
+                    Prefetch head = window.poll();
+                    PdfDocument sourceDoc = null;
+                    try {
+                        sourceDoc = head.document.get();
+                        timer.addBytesRead(sourceDoc.getReader().getFileLength());
+                        merger.merge(sourceDoc, 1, sourceDoc.getNumberOfPages());
+                    } catch (Exception e) {
+                        Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                        System.err.println("合并文件时出错: " + head.source + ", 错误: " + cause.getMessage());
+                    } finally {
+                        if (sourceDoc != null) {
+                            sourceDoc.close();
+                        }
+                        budget.release(head.kb);
+                    }
+                }
+            } finally {
+                closePrefetched(window, readers);
+            }
+
+            mergedDoc.close();
+            timer.success();
+        }
+        System.out.println("PDF合并成功: " + dest);
+    }
+
+    /**
+     * 停止预读并关闭已经读好但还没有合并的源文件。
+     * 排队中的任务不再执行；正在执行的任务等它结束后关闭结果，中断不一定能停止读取
+     */
+    private static void closePrefetched(Deque<Prefetch> window, ExecutorService readers) {
+        readers.shutdownNow();
+        try {
+            readers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Prefetch pending : window) {
+            if (!pending.document.isDone()) {
+                continue;
+            }
+            try {
+                pending.document.get().close();
+            } catch (Exception e) {
+                // 预读失败的源文件没有打开的文档
+            }
+        }
+    }
+
+    /**
+     * 把源文件整体读入内存并解析页面树
+     */
+    private static PdfDocument prefetch(String source) throws IOException {
+        PdfDocument document = new PdfDocument(PdfInputs.open(source, PdfInputs.Strategy.IN_MEMORY));
+        for (int i = 1; i <= document.getNumberOfPages(); i++) {
+            document.getPage(i);
+        }
+        return document;
+    }
+
+    /**
+     * 预读中的源文件
+     */
+    private static class Prefetch {
+
+        final String source;
+
+        final int kb;
+
+        final Future<PdfDocument> document;
+
+        Prefetch(String source, int kb, Future<PdfDocument> document) {
+            this.source = source;
+            this.kb = kb;
+            this.document = document;
+        }
+    }
+}
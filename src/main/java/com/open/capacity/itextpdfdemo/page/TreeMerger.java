@@ -0,0 +1,287 @@
+package com.open.capacity.itextpdfdemo.page;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.utils.PdfMerger;
+import com.open.capacity.itextpdfdemo.io.PdfInputs;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.metrics.Metrics;
+import com.open.capacity.itextpdfdemo.metrics.OperationTimer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分层并行合并（合并树）
+ *
+ * 把输入按顺序分成若干组，各组在线程池中并行合并成中间文档，再对中间文档重复分组合并，
+ * 直到剩下的文档不超过一组，最后合并到输出文件。每一层都保持组内和组间的顺序，
+ * 因此最终页序与 {@link MergePdfsExample#merge} 的线性合并完全一致。
+ * 合并前按一组输入的总大小估计中间文档的大小，不超过阈值并且内存中的中间文档总大小
+ * 不会因此超过阈值乘以并行线程数时在内存中合并，否则直接写入临时文件。
+ * 一层中的所有组同时提交，已经完成但还没有被下一层合并的中间文档也计入这个上限。
+ *
+ * 每个输入页面要被复制两次以上。在单核机器上（每个输入2页，并行线程数为1），1万个输入时
+ * 比 {@link MergePdfsExample#merge} 慢（8.4秒对7.9秒），5万个输入时快约10%（24.7秒对27.3秒），
+ * 多核上的扩展性没有测量过；输入不多时应该使用线性合并。
+ */
+public class TreeMerger {
+
+    private int groupSize = 32;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private long spillThresholdBytes = 16L * 1024 * 1024;
+
+    /**
+     * 当前保留在内存中的中间文档的字节数
+     */
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    private final AtomicLong peakRetainedBytes = new AtomicLong();
+
+    /**
+     * 设置每组合并的文档数，至少为2
+     */
+    public TreeMerger setGroupSize(int groupSize) {
+        if (groupSize < 2) {
+            throw new IllegalArgumentException("groupSize must be at least 2: " + groupSize);
+        }
+        this.groupSize = groupSize;
+        return this;
+    }
+
+    /**
+     * 设置并行合并的线程数
+     */
+    public TreeMerger setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 设置中间文档写入临时文件的大小阈值，按一组输入文档的总大小判断。
+     * 内存中的中间文档总大小不超过这个阈值乘以并行线程数
+     */
+    public TreeMerger setSpillThresholdBytes(long spillThresholdBytes) {
+        this.spillThresholdBytes = spillThresholdBytes;
+        return this;
+    }
+
+    public void merge(String[] sources, String dest) throws IOException {
+        try (OperationTimer timer = Metrics.start("merge-tree")) {
+            peakRetainedBytes.set(0);
+            List<Part> parts = new ArrayList<>(sources.length);
+            for (String source : sources) {
+                parts.add(new Part(new File(source), false));
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            try {
+                while (parts.size() > groupSize) {
+                    parts = mergeLevel(parts, executor);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            mergeGroup(parts, PdfOutputs.newWriter(dest));
+            System.out.println("PDF合并成功: " + dest);
+            timer.success();
+        }
+    }
+
+    /**
+     * 并行合并一层，返回按原顺序排列的中间文档
+     */
+    private List<Part> mergeLevel(List<Part> parts, ExecutorService executor) throws IOException {
+        List<Future<Part>> groups = new ArrayList<>();
+        for (int from = 0; from < parts.size(); from += groupSize) {
+            List<Part> group = parts.subList(from, Math.min(from + groupSize, parts.size()));
+            groups.add(executor.submit(() -> mergeIntermediate(group)));
+        }
+
+        List<Part> merged = new ArrayList<>(groups.size());
+        try {
+            for (Future<Part> group : groups) {
+                merged.add(group.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discard(groups, parts);
+            throw new IOException("合并被中断", e);
+        } catch (ExecutionException e) {
+            discard(groups, parts);
+            throw new IOException("合并中间文档时出错", e.getCause());
+        }
+        return merged;
+    }
+
+    /**
+     * 一层合并失败时删除这一层已经生成和仍在生成的临时文件，以及还没有合并的输入中的临时文件
+     */
+    private static void discard(List<Future<Part>> groups, List<Part> parts) {
+        boolean interrupted = Thread.interrupted();
+        for (Future<Part> group : groups) {
+            if (interrupted) {
+                group.cancel(true);
+            }
+            try {
+                group.get().release();
+            } catch (Exception ignored) {
+                // 失败或取消的组没有结果
+            }
+        }
+        for (Part part : parts) {
+            part.release();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 本次合并中同时保留在内存中的中间文档的最大字节数
+     */
+    long getPeakRetainedBytes() {
+        return peakRetainedBytes.get();
+    }
+
+    private Part mergeIntermediate(List<Part> group) throws IOException {
+        long inputBytes = 0;
+        for (Part part : group) {
+            inputBytes += part.size();
+        }
+        if (inputBytes <= spillThresholdBytes && reserve(inputBytes)) {
+            byte[] bytes;
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream((int) inputBytes);
+                mergeGroup(group, PdfOutputs.newWriter(out));
+                bytes = out.toByteArray();
+            } finally {
+                retainedBytes.addAndGet(-inputBytes);
+            }
+            // 合并结果可能比输入稍大，按实际大小重新预留，预留不到时写入临时文件
+            if (reserve(bytes.length)) {
+                return new Part(bytes, retainedBytes);
+            }
+            File spill = File.createTempFile("merge-tree", ".pdf");
+            try {
+                Files.write(spill.toPath(), bytes);
+            } catch (IOException e) {
+                spill.delete();
+                throw e;
+            }
+            return new Part(spill, true);
+        }
+        File spill = File.createTempFile("merge-tree", ".pdf");
+        try {
+            mergeGroup(group, PdfOutputs.newWriter(spill.getPath()));
+        } catch (IOException | RuntimeException e) {
+            spill.delete();
+            throw e;
+        }
+        return new Part(spill, true);
+    }
+
+    /**
+     * 在内存上限内预留字节数，超过上限时不预留并返回假
+     */
+    private boolean reserve(long bytes) {
+        long limit = spillThresholdBytes * parallelism;
+        while (true) {
+            long current = retainedBytes.get();
+            if (current + bytes > limit) {
+                return false;
+            }
+            if (retainedBytes.compareAndSet(current, current + bytes)) {
+                peakRetainedBytes.accumulateAndGet(current + bytes, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 按顺序把一组文档合并到指定的输出，合并完成后删除其中的临时文件
+     */
+    private static void mergeGroup(List<Part> group, PdfWriter writer) {
+        PdfDocument mergedDoc = new PdfDocument(writer);
+        PdfMerger merger = new PdfMerger(mergedDoc);
+        for (Part part : group) {
+            try (PdfDocument sourceDoc = new PdfDocument(part.open())) {
+                merger.merge(sourceDoc, 1, sourceDoc.getNumberOfPages());
+            } catch (Exception e) {
+                System.err.println("合并文件时出错: " + part + ", 错误: " + e.getMessage());
+            } finally {
+                part.release();
+            }
+        }
+        mergedDoc.close();
+    }
+
+    /**
+     * 待合并的文档：源文件、内存中的中间文档或临时文件中的中间文档
+     */
+    private static class Part {
+
+        private final File file;
+
+        private final boolean temporary;
+
+        /**
+         * 内存中的中间文档所计入的字节数，释放时减去
+         */
+        private final AtomicLong retained;
+
+        private byte[] bytes;
+
+        Part(File file, boolean temporary) {
+            this.file = file;
+            this.temporary = temporary;
+            this.retained = null;
+        }
+
+        Part(byte[] bytes, AtomicLong retained) {
+            this.file = null;
+            this.temporary = false;
+            this.bytes = bytes;
+            this.retained = retained;
+        }
+
+        PdfReader open() throws IOException {
+            if (file != null) {
+                return PdfInputs.open(file.getPath());
+            }
+            return PdfInputs.open(bytes);
+        }
+
+        long size() {
+            return file != null ? file.length() : bytes != null ? bytes.length : 0;
+        }
+
+        synchronized void release() {
+            if (bytes != null && retained != null) {
+                retained.addAndGet(-bytes.length);
+            }
+            bytes = null;
+            if (temporary) {
+                file.delete();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return file != null ? file.getPath() : "内存中间文档";
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.open.capacity.itextpdfdemo.pipeline;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 声明式的作业图
+ *
+ * 每个步骤声明自己依赖的步骤，依赖全部成功后立即在线程池中执行，互不依赖的步骤并发执行。
+ * 一个步骤完成时只检查依赖它的步骤，调度的代价与步骤数和依赖数成正比，适合有几百个步骤的作业。
+ * 步骤失败时，直接或间接依赖它的步骤被跳过，其他分支照常执行。
+ * <p>
+ * 执行结果包括每个步骤的开始时间、耗时、等待线程的时间，以及按实际耗时计算的关键路径。
+ */
+public class JobGraph {
+
+    /**
+     * 一个步骤的操作
+     */
+    public interface Step {
+        void run() throws Exception;
+    }
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 设置执行步骤的线程数，默认为CPU核心数
+     */
+    public JobGraph setWorkers(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive: " + workers);
+        }
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * 添加步骤。依赖的步骤可以在之后再添加，执行前统一检查
+     *
+     * @param name         步骤名称，在作业图中唯一
+     * @param dependencies 依赖的步骤名称
+     * @throws IllegalArgumentException 名称重复
+     */
+    public JobGraph addStep(String name, Step step, String... dependencies) {
+        if (nodes.containsKey(name)) {
+            throw new IllegalArgumentException("duplicate step: " + name);
+        }
+        nodes.put(name, new Node(nodes.size(), name, step, Arrays.asList(dependencies)));
+        return this;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 执行所有步骤并等待完成。单个步骤的失败记录在结果中，不会抛出
+     *
+     * @throws IllegalArgumentException 依赖了不存在的步骤
+     * @throws IllegalStateException    依赖关系中有环
+     */
+    public JobReport run() throws InterruptedException {
+        List<Node> order = topologicalOrder();
+        Execution execution = new Execution(new ArrayList<>(nodes.values()));
+        execution.start();
+        return execution.report(order);
+    }
+
+    /**
+     * 检查依赖并按依赖关系排序，被依赖的步骤在前
+     */
+    private List<Node> topologicalOrder() {
+        for (Node node : nodes.values()) {
+            node.dependents.clear();
+        }
+        for (Node node : nodes.values()) {
+            for (String dependency : node.dependencies) {
+                Node required = nodes.get(dependency);
+                if (required == null) {
+                    throw new IllegalArgumentException("step " + node.name + " depends on unknown step: " + dependency);
+                }
+                required.dependents.add(node);
+            }
+        }
+        int[] remaining = new int[nodes.size()];
+        Deque<Node> ready = new ArrayDeque<>();
+        for (Node node : nodes.values()) {
+            remaining[node.index] = node.dependencies.size();
+            if (remaining[node.index] == 0) {
+                ready.add(node);
+            }
+        }
+        List<Node> order = new ArrayList<>(nodes.size());
+        while (!ready.isEmpty()) {
+            Node node = ready.poll();
+            order.add(node);
+            for (Node dependent : node.dependents) {
+                if (--remaining[dependent.index] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (order.size() < nodes.size()) {
+            List<String> cyclic = new ArrayList<>();
+            for (Node node : nodes.values()) {
+                if (remaining[node.index] > 0) {
+                    cyclic.add(node.name);
+                }
+            }
+            throw new IllegalStateException("dependency cycle among steps: " + cyclic);
+        }
+        return order;
+    }
+
+    private static class Node {
+
+        private final int index;
+
+        private final String name;
+
+        private final Step step;
+
+        private final List<String> dependencies;
+
+        private final List<Node> dependents = new ArrayList<>();
+
+        Node(int index, String name, Step step, List<String> dependencies) {
+            this.index = index;
+            this.name = name;
+            this.step = step;
+            this.dependencies = dependencies;
+        }
+    }
+
+    /**
+     * 一次执行的状态，按步骤序号保存
+     */
+    private class Execution {
+
+        private final List<Node> nodes;
+
+        private final AtomicIntegerArray remaining;
+
+        /**
+         * 有依赖失败或被跳过的步骤标记为1，在减少依赖计数之前写入
+         */
+        private final AtomicIntegerArray blocked;
+
+        private final long[] readyAt;
+
+        private final StepResult[] results;
+
+        private final CountDownLatch done;
+
+        private ExecutorService executor;
+
+        private long start;
+
+        private long elapsed;
+
+        Execution(List<Node> nodes) {
+            this.nodes = nodes;
+            this.remaining = new AtomicIntegerArray(nodes.size());
+            this.blocked = new AtomicIntegerArray(nodes.size());
+            this.readyAt = new long[nodes.size()];
+            this.results = new StepResult[nodes.size()];
+            this.done = new CountDownLatch(nodes.size());
+            for (Node node : nodes) {
+                remaining.set(node.index, node.dependencies.size());
+            }
+        }
+
+        void start() throws InterruptedException {
+            executor = Executors.newFixedThreadPool(workers);
+            start = System.nanoTime();
+            try {
+                for (Node node : nodes) {
+                    if (node.dependencies.isEmpty()) {
+                        submit(node);
+                    }
+                }
+                done.await();
+            } finally {
+                executor.shutdownNow();
+            }
+            elapsed = System.nanoTime() - start;
+        }
+
+        private void submit(Node node) {
+            readyAt[node.index] = System.nanoTime();
+            executor.execute(() -> execute(node));
+        }
+
+        private void execute(Node node) {
+            long begin = System.nanoTime();
+            String failure = null;
+            try {
+                node.step.run();
+            } catch (Exception e) {
+                failure = e.toString();
+            } catch (Error e) {
+                failure = e.toString();
+                throw e;
+            } finally {
+                long end = System.nanoTime();
+                results[node.index] = new StepResult(node.name,
+                        failure == null ? StepResult.Status.OK : StepResult.Status.FAILED,
+                        begin - start, end - begin, begin - readyAt[node.index], failure);
+                finish(node, failure == null);
+            }
+        }
+
+        /**
+         * 减少依赖这个步骤的步骤的计数，计数为0的步骤提交执行或标记为跳过
+         */
+        private void finish(Node node, boolean succeeded) {
+            Deque<Node> finished = new ArrayDeque<>();
+            finished.add(node);
+            boolean ok = succeeded;
+            while (!finished.isEmpty()) {
+                Node current = finished.poll();
+                if (current != node) {
+                    ok = false;
+                }
+                for (Node dependent : current.dependents) {
+                    if (!ok) {
+                        blocked.set(dependent.index, 1);
+                    }
+                    if (remaining.decrementAndGet(dependent.index) == 0) {
+                        if (blocked.get(dependent.index) == 1) {
+                            results[dependent.index] = new StepResult(dependent.name, StepResult.Status.SKIPPED,
+                                    System.nanoTime() - start, 0, 0, "dependency failed");
+                            finished.add(dependent);
+                        } else {
+                            submit(dependent);
+                        }
+                    }
+                }
+                done.countDown();
+            }
+        }
+
+        JobReport report(List<Node> order) {
+            return new JobReport(Arrays.asList(results), criticalPath(order), elapsed);
+        }
+
+        /**
+         * 按拓扑顺序计算到每个步骤为止的最长耗时，再从终点沿最长的依赖回溯
+         */
+        private List<StepResult> criticalPath(List<Node> order) {
+            long[] longest = new long[nodes.size()];
+            Node[] previous = new Node[nodes.size()];
+            Node end = null;
+            for (Node node : order) {
+                long before = 0;
+                for (String dependency : node.dependencies) {
+                    Node required = JobGraph.this.nodes.get(dependency);
+                    if (previous[node.index] == null || longest[required.index] > before) {
+                        before = longest[required.index];
+                        previous[node.index] = required;
+                    }
+                }
+                longest[node.index] = before + results[node.index].getDurationNanos();
+                if (end == null || longest[node.index] > longest[end.index]) {
+                    end = node;
+                }
+            }
+            List<StepResult> path = new ArrayList<>();
+            for (Node node = end; node != null; node = previous[node.index]) {
+                path.add(results[node.index]);
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.open.capacity.itextpdfdemo.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 作业图的执行结果：每个步骤的耗时和关键路径
+ */
+public class JobReport {
+
+    private final List<StepResult> results;
+
+    private final List<StepResult> criticalPath;
+
+    private final long elapsedNanos;
+
+    JobReport(List<StepResult> results, List<StepResult> criticalPath, long elapsedNanos) {
+        this.results = Collections.unmodifiableList(results);
+        this.criticalPath = Collections.unmodifiableList(criticalPath);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * 每个步骤的结果，顺序与添加步骤的顺序一致
+     */
+    public List<StepResult> getResults() {
+        return results;
+    }
+
+    public int count(StepResult.Status status) {
+        int count = 0;
+        for (StepResult result : results) {
+            if (result.getStatus() == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean isSuccessful() {
+        return count(StepResult.Status.OK) == results.size();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 所有步骤耗时之和，即串行执行需要的时间
+     */
+    public long getTotalStepNanos() {
+        long total = 0;
+        for (StepResult result : results) {
+            total += result.getDurationNanos();
+        }
+        return total;
+    }
+
+    /**
+     * 按实际耗时计算的关键路径：耗时之和最长的一条依赖链，按执行顺序排列。
+     * 线程足够时整个作业图的耗时不会短于这条路径
+     */
+    public List<StepResult> getCriticalPath() {
+        return criticalPath;
+    }
+
+    public long getCriticalPathNanos() {
+        long total = 0;
+        for (StepResult result : criticalPath) {
+            total += result.getDurationNanos();
+        }
+        return total;
+    }
+
+    /**
+     * 耗时最长的若干个步骤
+     */
+    public List<StepResult> getSlowest(int limit) {
+        List<StepResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingLong(StepResult::getDurationNanos).reversed());
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder path = new StringBuilder();
+        for (StepResult result : criticalPath) {
+            if (path.length() > 0) {
+                path.append(" -> ");
+            }
+            path.append(result.getName());
+        }
+        return String.format("成功 %d 个, 失败 %d 个, 跳过 %d 个, 耗时 %.1f ms, 步骤耗时合计 %.1f ms, "
+                        + "关键路径 %.1f ms: %s",
+                count(StepResult.Status.OK), count(StepResult.Status.FAILED), count(StepResult.Status.SKIPPED),
+                elapsedNanos / 1e6, getTotalStepNanos() / 1e6, getCriticalPathNanos() / 1e6, path);
+    }
+}
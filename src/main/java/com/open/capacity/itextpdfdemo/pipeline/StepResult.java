@@ -0,0 +1,79 @@
+package com.open.capacity.itextpdfdemo.pipeline;
+
+/**
+ * 作业图中单个步骤的执行结果
+ */
+public class StepResult {
+
+    /**
+     * 执行状态
+     */
+    public enum Status {
+        OK,
+        FAILED,
+        /**
+         * 依赖的步骤失败或被跳过，没有执行
+         */
+        SKIPPED
+    }
+
+    private final String name;
+
+    private final Status status;
+
+    private final long startNanos;
+
+    private final long durationNanos;
+
+    private final long waitNanos;
+
+    private final String message;
+
+    StepResult(String name, Status status, long startNanos, long durationNanos, long waitNanos, String message) {
+        this.name = name;
+        this.status = status;
+        this.startNanos = startNanos;
+        this.durationNanos = durationNanos;
+        this.waitNanos = waitNanos;
+        this.message = message;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * 相对于作业图开始执行的开始时间
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * 依赖全部完成后等待空闲线程的时间，持续较长说明线程数不足
+     */
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    /**
+     * 失败或被跳过的原因
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-7s %-24s 开始 %8.1f ms  耗时 %8.1f ms  等待 %6.1f ms%s", status, name,
+                startNanos / 1e6, durationNanos / 1e6, waitNanos / 1e6, message != null ? "  " + message : "");
+    }
+}
@@ -0,0 +1,71 @@
+package com.open.capacity.itextpdfdemo.advanced;
+
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.itextpdf.kernel.pdf.PdfOutputIntent;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.pdfa.PdfADocument;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * PDF/A输出意图基准测试
+ * 比较每个文档重新读取ICC配置文件和使用 {@link PdfAContext} 缓存配置文件时的文档/秒
+ * 参数: [文档数，默认5000] [轮数，默认3]
+ */
+public class PdfABenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        Path workDir = BenchmarkSupport.createWorkDir("pdfa-bench");
+        try {
+            String iccProfile = workDir.resolve("sRGB.icc").toString();
+            Files.write(Paths.get(iccProfile), ICC_Profile.getInstance(ColorSpace.CS_sRGB).getData());
+            PdfAContext context = PdfAContext.forProfile(iccProfile);
+
+            for (int round = 1; round <= rounds; round++) {
+                System.out.println("--- 第 " + round + " 轮 ---");
+
+                long bytes = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < documents; i++) {
+                    // 原来的做法：每个文档打开并解析一次配置文件（这里关闭了输入流，只比较读取开销）
+                    try (InputStream icc = Files.newInputStream(Paths.get(iccProfile))) {
+                        bytes += write(new PdfOutputIntent("Custom", "", "http://www.color.org",
+                                "sRGB IEC61966-2.1", icc));
+                    }
+                }
+                BenchmarkSupport.report("read profile per document", documents, System.nanoTime() - start,
+                        bytes, "docs");
+
+                bytes = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < documents; i++) {
+                    bytes += write(context.createOutputIntent());
+                }
+                BenchmarkSupport.report("cached context", documents, System.nanoTime() - start, bytes, "docs");
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * 生成只有一个空白页的PDF/A文档，返回写出的字节数
+     */
+    private static long write(PdfOutputIntent outputIntent) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfADocument pdf = new PdfADocument(new PdfWriter(out), PdfAConformanceLevel.PDF_A_1B, outputIntent);
+        pdf.addNewPage();
+        pdf.close();
+        return out.size();
+    }
+}
@@ -0,0 +1,204 @@
+package com.open.capacity.itextpdfdemo.advanced;
+
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.pdfa.PdfADocument;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import com.open.capacity.itextpdfdemo.io.CompressionProfile;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * PDF/A上下文测试
+ */
+public class PdfAContextTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String outputDir;
+
+    private String iccProfile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        outputDir = tempDir.toString() + File.separator;
+        iccProfile = outputDir + "sRGB.icc";
+        Files.write(Paths.get(iccProfile), ICC_Profile.getInstance(ColorSpace.CS_sRGB).getData());
+    }
+
+    @Test
+    void testOutputIntentUsesCachedProfile() throws IOException {
+        PdfAContext context = PdfAContext.forProfile(iccProfile);
+        assertSame(context, PdfAContext.forProfile(iccProfile), "同一个配置文件应该只加载一次");
+
+        String dest = outputDir + "empty_pdfa.pdf";
+        PdfADocument pdf = context.createDocument(new PdfWriter(dest), PdfAConformanceLevel.PDF_A_1B);
+        pdf.addNewPage();
+        pdf.close();
+
+        PdfDocument result = new PdfDocument(new PdfReader(dest));
+        PdfArray outputIntents = result.getCatalog().getPdfObject().getAsArray(PdfName.OutputIntents);
+        assertEquals(1, outputIntents.size());
+        PdfStream profile = ((PdfDictionary) outputIntents.get(0)).getAsStream(PdfName.DestOutputProfile);
+        assertArrayEquals(Files.readAllBytes(Paths.get(iccProfile)), profile.getBytes(), "输出意图应该包含完整的配置文件");
+        assertEquals(3, profile.getAsNumber(PdfName.N).intValue());
+        result.close();
+    }
+
+    @Test
+    void testInvalidProfileRejectedOnLoad() {
+        assertThrows(IllegalArgumentException.class, () -> new PdfAContext(new byte[]{1, 2, 3, 4}, null),
+                "不合法的配置文件应该在加载时被拒绝");
+        byte[] truncated = new byte[200];
+        System.arraycopy(ICC_Profile.getInstance(ColorSpace.CS_sRGB).getData(), 0, truncated, 0, truncated.length);
+        assertThrows(IllegalArgumentException.class, () -> new PdfAContext(truncated, null));
+    }
+
+    @Test
+    void testCreateWithEmbeddedFont() throws IOException {
+        String font = BenchmarkSupport.findFont();
+        assumeTrue(font != null, "系统中没有可用的TrueType字体");
+        String dest = outputDir + "pdfa_font.pdf";
+
+        CreatePdfAExample.create(dest, iccProfile, font);
+
+        PdfDocument result = new PdfDocument(new PdfReader(dest));
+        assertTrue(PdfTextExtractor.getTextFromPage(result.getPage(1)).contains("PDF/A"));
+        result.close();
+    }
+
+    @Test
+    void testSmallestProfileKeepsPdfA1Conformant() throws IOException {
+        PdfOutputs.setDefaultProfile(CompressionProfile.SMALLEST);
+        try {
+            String pdfA1 = outputDir + "smallest_pdfa1.pdf";
+            PdfADocument pdf = PdfAContext.forProfile(iccProfile).createDocument(
+                    PdfOutputs.newWriter(pdfA1, PdfAConformanceLevel.PDF_A_1B), PdfAConformanceLevel.PDF_A_1B);
+            pdf.addNewPage();
+            pdf.close();
+            String pdfA2 = outputDir + "smallest_pdfa2.pdf";
+            pdf = PdfAContext.forProfile(iccProfile).createDocument(
+                    PdfOutputs.newWriter(pdfA2, PdfAConformanceLevel.PDF_A_2B), PdfAConformanceLevel.PDF_A_2B);
+            pdf.addNewPage();
+            pdf.close();
+
+            String content = new String(Files.readAllBytes(Paths.get(pdfA1)), StandardCharsets.ISO_8859_1);
+            assertTrue(content.contains("pdfaid:part=\"1\""));
+            assertFalse(content.contains("/XRef"), "PDF/A-1不允许交叉引用流");
+            assertFalse(content.contains("/ObjStm"), "PDF/A-1不允许对象流");
+            try (PdfReader reader = new PdfReader(pdfA1); PdfDocument pdfA = new PdfDocument(reader)) {
+                assertFalse(reader.hasXrefStm());
+                assertEquals(1, pdfA.getNumberOfPages());
+            }
+            // PDF/A-2允许完全压缩模式，仍然使用对象流
+            assertTrue(new String(Files.readAllBytes(Paths.get(pdfA2)), StandardCharsets.ISO_8859_1)
+                    .contains("/ObjStm"));
+        } finally {
+            PdfOutputs.setDefaultProfile(CompressionProfile.DEFAULT);
+        }
+    }
+
+    @Test
+    void testSharedAcrossThreads() throws Exception {
+        PdfAContext context = PdfAContext.forProfile(iccProfile);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Long>> sizes = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            String dest = outputDir + "concurrent_" + i + ".pdf";
+            sizes.add(executor.submit(() -> {
+                PdfADocument pdf = context.createDocument(new PdfWriter(dest), PdfAConformanceLevel.PDF_A_2B);
+                pdf.addNewPage();
+                pdf.close();
+                return new File(dest).length();
+            }));
+        }
+        long expected = sizes.get(0).get();
+        for (Future<Long> size : sizes) {
+            assertEquals(expected, (long) size.get(), "并发生成的文档大小应该相同");
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void testSharedFontSubsetsPerDocument() throws Exception {
+        String font = BenchmarkSupport.findFont();
+        assumeTrue(font != null, "系统中没有可用的TrueType字体");
+        PdfAContext context = PdfAContext.forProfile(iccProfile, font);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<String>> texts = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String dest = outputDir + "font_" + i + ".pdf";
+            String text = "Document " + i + (i % 2 == 0 ? " abc" : " XYZ");
+            texts.add(executor.submit(() -> {
+                try (PdfADocument pdf = context.createDocument(new PdfWriter(dest), PdfAConformanceLevel.PDF_A_2B);
+                     Document document = new Document(pdf)) {
+                    document.setFont(context.createFont());
+                    document.add(new Paragraph(text));
+                }
+                try (PdfDocument result = new PdfDocument(new PdfReader(dest))) {
+                    return PdfTextExtractor.getTextFromPage(result.getPage(1));
+                }
+            }));
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals("Document " + i + (i % 2 == 0 ? " abc" : " XYZ"), texts.get(i).get(),
+                    "共享字体程序的各个文档应该嵌入自己用到的字形");
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void testFileDescriptorsStayFlat() throws IOException {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        assumeTrue(os instanceof com.sun.management.UnixOperatingSystemMXBean, "只能在类Unix系统上统计文件描述符");
+        com.sun.management.UnixOperatingSystemMXBean unix = (com.sun.management.UnixOperatingSystemMXBean) os;
+
+        PdfAContext context = PdfAContext.forProfile(iccProfile);
+        String dest = outputDir + "fd.pdf";
+        createEmptyDocument(context, dest);
+        long before = unix.getOpenFileDescriptorCount();
+        for (int i = 0; i < 500; i++) {
+            createEmptyDocument(PdfAContext.forProfile(iccProfile), dest);
+        }
+        long after = unix.getOpenFileDescriptorCount();
+
+        assertTrue(after <= before + 5, "生成500个文档后文件描述符数不应增长: " + before + " -> " + after);
+    }
+
+    private static void createEmptyDocument(PdfAContext context, String dest) throws IOException {
+        PdfADocument pdf = context.createDocument(new PdfWriter(dest), PdfAConformanceLevel.PDF_A_1B);
+        pdf.addNewPage();
+        pdf.close();
+    }
+}
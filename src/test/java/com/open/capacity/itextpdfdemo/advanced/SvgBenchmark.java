@@ -0,0 +1,76 @@
+package com.open.capacity.itextpdfdemo.advanced;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.svg.converter.SvgConverter;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SVG转换基准测试
+ * 每个文档放入同一个图标若干次，比较每次都用 {@link SvgConverter} 转换和通过 {@link SvgCache} 复用时的转换/秒
+ * 参数: [文档数，默认200] [每个文档的图标数，默认20] [轮数，默认3]
+ */
+public class SvgBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int icons = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        byte[] svg = createIcon();
+
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println("--- 第 " + round + " 轮 ---");
+
+            long bytes = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < documents; i++) {
+                bytes += write(svg, icons, null);
+            }
+            BenchmarkSupport.report("convert every time", documents * icons, System.nanoTime() - start,
+                    bytes, "svgs");
+
+            SvgCache cache = new SvgCache(16);
+            bytes = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < documents; i++) {
+                bytes += write(svg, icons, cache);
+            }
+            BenchmarkSupport.report("svg cache", documents * icons, System.nanoTime() - start, bytes, "svgs");
+        }
+    }
+
+    /**
+     * 生成一个放入若干个图标的文档，返回写出的字节数
+     */
+    private static long write(byte[] svg, int icons, SvgCache cache) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfDocument pdf = new PdfDocument(new PdfWriter(out));
+        try (Document document = new Document(pdf)) {
+            for (int i = 0; i < icons; i++) {
+                document.add(new Image(cache != null ? cache.getXObject(pdf, svg)
+                        : SvgConverter.convertToXObject(new String(svg, StandardCharsets.UTF_8), pdf)));
+            }
+        }
+        return out.size();
+    }
+
+    /**
+     * 生成一个由几十个路径组成的图标，接近常见的矢量图标复杂度
+     */
+    private static byte[] createIcon() {
+        StringBuilder svg = new StringBuilder("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"64\" height=\"64\">");
+        for (int i = 0; i < 40; i++) {
+            svg.append("<path d=\"M").append(i).append(' ').append(64 - i)
+                    .append(" C 10 10, 40 ").append(i).append(", 60 60 Z\" fill=\"#")
+                    .append(String.format("%06x", i * 0x050301)).append("\" stroke=\"black\"/>");
+        }
+        svg.append("<circle cx=\"32\" cy=\"32\" r=\"12\" fill=\"none\" stroke=\"red\" stroke-width=\"2\"/></svg>");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,193 @@
+package com.open.capacity.itextpdfdemo.advanced;
+
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Image;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SVG缓存测试
+ */
+public class SvgCacheTest {
+
+    static final String ICON = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"120\" height=\"80\">"
+            + "<rect x=\"10\" y=\"10\" width=\"100\" height=\"60\" fill=\"#3366cc\"/>"
+            + "<circle cx=\"60\" cy=\"40\" r=\"20\" fill=\"orange\"/>"
+            + "<text x=\"15\" y=\"75\" font-size=\"10\">icon</text></svg>";
+
+    @TempDir
+    Path tempDir;
+
+    private String outputDir;
+
+    private SvgCache cache;
+
+    @BeforeEach
+    void setUp() {
+        outputDir = tempDir.toString() + File.separator;
+        cache = new SvgCache(16);
+    }
+
+    @Test
+    void testSameDocumentReusesXObject() throws IOException {
+        byte[] svg = ICON.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfDocument pdf = new PdfDocument(new PdfWriter(out));
+        try (Document document = new Document(pdf)) {
+            PdfFormXObject first = cache.getXObject(pdf, svg);
+            for (int i = 0; i < 20; i++) {
+                PdfFormXObject xObject = cache.getXObject(pdf, svg);
+                assertSame(first, xObject, "同一文档中的SVG应该只复制一次");
+                document.add(new Image(xObject));
+            }
+        }
+        assertEquals(1, cache.getMisses());
+
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        PdfDocument singlePdf = new PdfDocument(new PdfWriter(single));
+        try (Document document = new Document(singlePdf)) {
+            document.add(new Image(cache.getXObject(singlePdf, svg)));
+        }
+        assertEquals(countForms(single.toByteArray()), countForms(out.toByteArray()),
+                "使用20次的文档应该和只使用一次的文档有同样多的表单XObject");
+    }
+
+    private static int countForms(byte[] pdf) throws IOException {
+        try (PdfDocument result = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            int forms = 0;
+            for (int i = 1; i < result.getNumberOfPdfObjects(); i++) {
+                PdfObject object = result.getPdfObject(i);
+                if (object instanceof PdfStream && PdfName.Form.equals(((PdfStream) object).getAsName(PdfName.Subtype))) {
+                    forms++;
+                }
+            }
+            return forms;
+        }
+    }
+
+    @Test
+    void testConvertsOnceAcrossDocuments() throws IOException {
+        byte[] svg = ICON.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 5; i++) {
+            String dest = outputDir + "svg_" + i + ".pdf";
+            PdfDocument pdf = new PdfDocument(new PdfWriter(dest));
+            try (Document document = new Document(pdf)) {
+                document.add(new Image(cache.getXObject(pdf, svg)));
+            }
+            try (PdfDocument result = new PdfDocument(new PdfReader(dest))) {
+                // SVG中的文字和字体应该随XObject一起复制过来
+                assertTrue(PdfTextExtractor.getTextFromPage(result.getPage(1)).contains("icon"));
+                PdfDictionary xObjects = result.getPage(1).getResources().getResource(PdfName.XObject);
+                assertEquals(1, xObjects.size(), "SVG应该以一个表单XObject放入页面");
+                assertNotNull(xObjects.getAsStream(xObjects.keySet().iterator().next()));
+            }
+        }
+        assertEquals(1, cache.getMisses(), "SVG应该只解析和转换一次");
+        assertEquals(4, cache.getHits());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testRelativeImageResolvedAgainstSvgDirectory() throws IOException {
+        Path dir = Files.createDirectories(tempDir.resolve("icons"));
+        Files.copy(Paths.get("src/main/resources/images/sample.png"), dir.resolve("sample.png"));
+        String svgFile = dir.resolve("photo.svg").toString();
+        Files.write(Paths.get(svgFile), ("<svg xmlns=\"http://www.w3.org/2000/svg\" "
+                + "xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\"100\" height=\"100\">"
+                + "<image xlink:href=\"sample.png\" width=\"100\" height=\"100\"/></svg>")
+                .getBytes(StandardCharsets.UTF_8));
+
+        String dest = outputDir + "photo.pdf";
+        PdfDocument pdf = new PdfDocument(new PdfWriter(dest));
+        try (Document document = new Document(pdf)) {
+            document.add(new Image(cache.getXObject(pdf, svgFile)));
+        }
+        try (PdfDocument result = new PdfDocument(new PdfReader(dest))) {
+            boolean hasImage = false;
+            for (int i = 1; i < result.getNumberOfPdfObjects(); i++) {
+                PdfObject object = result.getPdfObject(i);
+                hasImage |= object instanceof PdfStream
+                        && PdfName.Image.equals(((PdfStream) object).getAsName(PdfName.Subtype));
+            }
+            assertTrue(hasImage, "SVG中的相对路径应该按SVG文件所在的目录解析");
+        }
+    }
+
+    @Test
+    void testParseIsCached() {
+        byte[] svg = ICON.getBytes(StandardCharsets.UTF_8);
+        assertSame(cache.parse(svg), cache.parse(svg));
+        assertNotSame(cache.parse(svg), cache.parse(ICON.replace("orange", "red").getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        SvgCache small = new SvgCache(2);
+        for (int i = 0; i < 5; i++) {
+            small.parse(ICON.replace("120", String.valueOf(100 + i)).getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(2, small.size());
+    }
+
+    @Test
+    void testEvictsByBytes() throws IOException {
+        byte[] svg = ICON.getBytes(StandardCharsets.UTF_8);
+        cache.parse(svg);
+        long parsed = cache.getCurrentBytes();
+        assertTrue(parsed > svg.length, "节点树的估算大小应该大于SVG源文本");
+        PdfDocument pdf = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        pdf.addNewPage();
+        cache.getXObject(pdf, svg);
+        pdf.close();
+        assertTrue(cache.getCurrentBytes() > parsed, "转换后应该计入模板PDF的大小");
+
+        SvgCache small = new SvgCache(100, parsed * 5 / 2);
+        for (int i = 0; i < 5; i++) {
+            small.parse(ICON.replace("120", String.valueOf(100 + i)).getBytes(StandardCharsets.UTF_8));
+            assertTrue(small.getCurrentBytes() <= parsed * 5 / 2);
+        }
+        assertEquals(2, small.size());
+        assertEquals(3, small.getEvictions());
+
+        small.setMaxBytes(0);
+        assertEquals(0, small.size());
+        assertEquals(0, small.getCurrentBytes());
+    }
+
+    @Test
+    void testSvgToPdfExample() throws IOException {
+        String svgFile = outputDir + "icon.svg";
+        String dest = outputDir + "svg_example.pdf";
+        Files.write(Paths.get(svgFile), ICON.getBytes(StandardCharsets.UTF_8));
+
+        SvgToPdfExample.create(dest, svgFile);
+
+        try (PdfDocument result = new PdfDocument(new PdfReader(dest))) {
+            PdfDictionary xObjects = result.getPage(1).getResources().getResource(PdfName.XObject);
+            assertNotNull(xObjects, "SVG应该以表单XObject放入页面");
+            assertEquals(1, xObjects.size());
+        }
+    }
+}
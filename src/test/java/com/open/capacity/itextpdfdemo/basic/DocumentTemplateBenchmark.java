@@ -0,0 +1,131 @@
+package com.open.capacity.itextpdfdemo.basic;
+
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.IBlockElement;
+import com.itextpdf.layout.element.Paragraph;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 文档模板基准测试
+ * 生成同样的信函：每次从头排版整个文档（与 {@link CreateHelloPdf} 相同的做法）与使用 {@link DocumentTemplate}
+ * 只排版字段，比较文档/秒。两种做法使用同样的字体
+ * 计时前两种做法各预热15秒
+ * 参数: [文档数，默认2000] [轮数，默认3] [字体文件，默认自动查找系统TrueType字体，none表示使用Helvetica]
+ */
+public class DocumentTemplateBenchmark {
+
+    private static final int BODY_PARAGRAPHS = 30;
+
+    private static final long WARM_UP_NANOS = 15_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        String fontPath = args.length > 2 ? args[2] : BenchmarkSupport.findFont();
+        if ("none".equals(fontPath)) {
+            fontPath = null;
+        }
+        System.out.println("字体: " + (fontPath != null ? fontPath : "Helvetica"));
+
+        DocumentTemplate template = new DocumentTemplate(PageSize.A4)
+                .addStatic(new Rectangle(36, 36, PageSize.A4.getWidth() - 72, 660), body())
+                .addField("name", new Rectangle(36, 760, 400, 20))
+                .addField("address", new Rectangle(36, 740, 400, 20))
+                .addField("date", new Rectangle(36, 720, 400, 20))
+                .addField("reference", new Rectangle(36, 700, 400, 20));
+        if (fontPath != null) {
+            template.setFont(fontPath);
+        }
+        template.compile();
+
+        // 两种做法各预热同样长的时间再开始计时。模板每个文档的工作量小，同样的文档数运行时间短得多，
+        // JIT编译（单核机器上和测试线程争用CPU）还没有完成，按文档数预热不够
+        long warmUpEnd = System.nanoTime() + WARM_UP_NANOS;
+        for (int i = 0; System.nanoTime() < warmUpEnd; i++) {
+            createFromScratch(values(i), fontPath);
+        }
+        warmUpEnd = System.nanoTime() + WARM_UP_NANOS;
+        for (int i = 0; System.nanoTime() < warmUpEnd; i++) {
+            template.render(values(i), new ByteArrayOutputStream());
+        }
+
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println("--- 第 " + round + " 轮 ---");
+
+            // 每种做法开始前回收上一种做法留下的垃圾，避免把对方的GC暂停计入自己的时间
+            System.gc();
+            long bytes = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < documents; i++) {
+                bytes += createFromScratch(values(i), fontPath);
+            }
+            long scratch = System.nanoTime() - start;
+            BenchmarkSupport.report("layout from scratch", documents, scratch, bytes, "docs");
+
+            System.gc();
+            bytes = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < documents; i++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                template.render(values(i), out);
+                bytes += out.size();
+            }
+            long templated = System.nanoTime() - start;
+            BenchmarkSupport.report("document template", documents, templated, bytes, "docs");
+            System.out.printf("加速 %.1fx%n", (double) scratch / templated);
+        }
+    }
+
+    /**
+     * 原来的做法：每个文档加载字体并排版全部内容
+     */
+    private static long createFromScratch(Map<String, String> values, String fontPath) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfDocument pdf = new PdfDocument(new PdfWriter(out));
+        PdfFont font = fontPath != null
+                ? PdfFontFactory.createFont(fontPath, PdfEncodings.IDENTITY_H,
+                PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED)
+                : PdfFontFactory.createFont(StandardFonts.HELVETICA);
+        try (Document document = new Document(pdf, PageSize.A4)) {
+            document.setFont(font);
+            for (String value : values.values()) {
+                document.add(new Paragraph(value).setMargin(0));
+            }
+            for (IBlockElement paragraph : body()) {
+                document.add(paragraph);
+            }
+        }
+        return out.size();
+    }
+
+    private static IBlockElement[] body() {
+        IBlockElement[] body = new IBlockElement[BODY_PARAGRAPHS];
+        for (int i = 0; i < BODY_PARAGRAPHS; i++) {
+            body[i] = new Paragraph("Paragraph " + (i + 1) + ". We are pleased to confirm the renewal of your policy. "
+                    + "Please review the enclosed terms carefully and keep this letter for your records.")
+                    .setFontSize(9);
+        }
+        return body;
+    }
+
+    private static Map<String, String> values(int i) {
+        Map<String, String> values = new HashMap<>();
+        values.put("name", "Recipient " + i);
+        values.put("address", i + " Example Road, Springfield");
+        values.put("date", "2024-01-" + (1 + i % 28));
+        values.put("reference", "REF-" + (100000 + i));
+        return values;
+    }
+}
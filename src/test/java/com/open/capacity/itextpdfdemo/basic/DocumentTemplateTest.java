@@ -0,0 +1,175 @@
+package com.open.capacity.itextpdfdemo.basic;
+
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.layout.element.Paragraph;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 预编译文档模板测试
+ */
+public class DocumentTemplateTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String outputDir;
+
+    @BeforeEach
+    void setUp() {
+        outputDir = tempDir.toString() + File.separator;
+    }
+
+    static DocumentTemplate createLetter() {
+        PageSize a4 = PageSize.A4;
+        return new DocumentTemplate(a4)
+                .addStatic(new Rectangle(36, 700, a4.getWidth() - 72, 100),
+                        new Paragraph("ACME Insurance").setFontSize(20),
+                        new Paragraph("1 Main Street, Springfield"))
+                .addStatic(new Rectangle(36, 100, a4.getWidth() - 72, 480),
+                        new Paragraph("Thank you for renewing your policy with us."),
+                        new Paragraph("Your new policy documents are enclosed with this letter."))
+                .addField("name", new Rectangle(36, 640, 300, 20))
+                .addField("policy", new Rectangle(36, 610, 300, 20), 10);
+    }
+
+    @Test
+    void testRenderLetter() throws IOException {
+        String dest = outputDir + "letter.pdf";
+        Map<String, String> values = new HashMap<>();
+        values.put("name", "Jane Doe");
+        values.put("policy", "Policy No. 12345");
+
+        createLetter().render(values, dest);
+
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(dest))) {
+            assertEquals(1, pdf.getNumberOfPages());
+            String text = PdfTextExtractor.getTextFromPage(pdf.getPage(1));
+            assertTrue(text.contains("ACME Insurance"));
+            assertTrue(text.contains("Your new policy documents"));
+            assertTrue(text.contains("Jane Doe"));
+            assertTrue(text.contains("Policy No. 12345"));
+            PdfDictionary xObjects = pdf.getPage(1).getResources().getResource(PdfName.XObject);
+            assertEquals(1, xObjects.size(), "固定内容应该是一个表单XObject");
+        }
+    }
+
+    @Test
+    void testConcurrentRenderingWithEmbeddedFont() throws Exception {
+        String fontPath = BenchmarkSupport.findFont();
+        assumeTrue(fontPath != null, "没有可用的TrueType字体");
+        DocumentTemplate template = createLetter().setFont(fontPath).compile();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                String name = "Recipient " + i;
+                futures.add(executor.submit(() -> {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    Map<String, String> values = new HashMap<>();
+                    values.put("name", name);
+                    values.put("policy", "P-" + name.hashCode());
+                    template.render(values, out);
+                    return out.toByteArray();
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(futures.get(i).get())))) {
+                    String text = PdfTextExtractor.getTextFromPage(pdf.getPage(1));
+                    assertTrue(text.contains("Recipient " + i + "\n"), "每个文档应该有自己的字段值");
+                    assertTrue(text.contains("ACME Insurance"));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testFieldsUsePrebuiltSubset() throws IOException {
+        String fontPath = BenchmarkSupport.findFont();
+        assumeTrue(fontPath != null, "没有可用的TrueType字体");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Map<String, String> values = new HashMap<>();
+        values.put("name", "Jane Doe");
+        values.put("policy", "Policy No. 12345");
+
+        createLetter().setFont(fontPath).render(values, out);
+
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())))) {
+            assertEquals(1, countFontFiles(pdf), "字段应该使用编译时生成的字体子集，不再嵌入新的子集");
+            String text = PdfTextExtractor.getTextFromPage(pdf.getPage(1));
+            assertTrue(text.contains("Jane Doe"), text);
+            assertTrue(text.contains("ACME Insurance"));
+        }
+    }
+
+    @Test
+    void testCharactersOutsidePrebuiltSubset() throws IOException {
+        String fontPath = BenchmarkSupport.findFont();
+        assumeTrue(fontPath != null, "没有可用的TrueType字体");
+        String dest = outputDir + "letter_fallback.pdf";
+        Map<String, String> values = new HashMap<>();
+        // Ł不在默认的ASCII和Latin-1字符中，需要为这个文档单独生成字体子集
+        values.put("name", "Łukasz Zoë");
+        values.put("policy", "Policy No. 12345");
+
+        createLetter().setFont(fontPath).render(values, dest);
+
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(dest))) {
+            String text = PdfTextExtractor.getTextFromPage(pdf.getPage(1));
+            assertTrue(text.contains("Łukasz Zoë"), text);
+            assertTrue(text.contains("Policy No. 12345"));
+        }
+    }
+
+    @Test
+    void testMissingFieldIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> createLetter()
+                .render(Collections.singletonMap("name", "Jane Doe"), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void testCompiledTemplateCannotBeChanged() throws IOException {
+        DocumentTemplate template = createLetter().compile();
+        assertThrows(IllegalStateException.class, () -> template.addField("extra", new Rectangle(0, 0, 10, 10)));
+    }
+
+    private static int countFontFiles(PdfDocument pdf) {
+        int fontFiles = 0;
+        for (int i = 1; i < pdf.getNumberOfPdfObjects(); i++) {
+            PdfObject object = pdf.getPdfObject(i);
+            if (object instanceof PdfDictionary && ((PdfDictionary) object).containsKey(PdfName.FontFile2)) {
+                fontFiles++;
+            }
+        }
+        return fontFiles;
+    }
+}
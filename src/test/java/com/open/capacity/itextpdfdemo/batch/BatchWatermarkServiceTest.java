@@ -0,0 +1,83 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import com.open.capacity.itextpdfdemo.content.AddWatermarkExample;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量水印服务测试
+ */
+public class BatchWatermarkServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWatermarkDirectoryWithQuarantine() throws Exception {
+        Path srcDir = Files.createDirectories(tempDir.resolve("src"));
+        Path destDir = tempDir.resolve("dest");
+        Path quarantineDir = tempDir.resolve("quarantine");
+        for (int i = 1; i <= 6; i++) {
+            BenchmarkSupport.createSamplePdf(srcDir.resolve("doc" + i + ".pdf").toString(), i);
+        }
+        Files.write(srcDir.resolve("broken.pdf"), "not a pdf".getBytes(StandardCharsets.UTF_8));
+
+        AtomicInteger attempts = new AtomicInteger();
+        BatchReport report = new BatchWatermarkService()
+                .setWorkers(3)
+                .setMaxAttempts(2)
+                .setQuarantineDir(quarantineDir)
+                .setOperation((src, dest) -> {
+                    attempts.incrementAndGet();
+                    return AddWatermarkExample.addShared(src, dest);
+                })
+                .watermarkDirectory(srcDir, destDir);
+
+        assertEquals(6, report.getSucceeded());
+        assertEquals(1, report.getFailed());
+        assertEquals(21, report.getPages(), "总页数应该是1到6页之和");
+        assertEquals(8, attempts.get(), "损坏的文件应该被重试一次");
+        assertTrue(Files.exists(quarantineDir.resolve("broken.pdf")), "损坏的文件应该被隔离");
+        assertFalse(Files.exists(destDir.resolve("broken.pdf")), "失败任务的输出应该被删除");
+        assertTrue(report.getP50Nanos() > 0 && report.getP50Nanos() <= report.getP99Nanos());
+    }
+
+    @Test
+    void testOpenDocumentLimitIsRespected() throws Exception {
+        Path srcDir = Files.createDirectories(tempDir.resolve("src"));
+        for (int i = 1; i <= 12; i++) {
+            BenchmarkSupport.createSamplePdf(srcDir.resolve("doc" + i + ".pdf").toString(), 1);
+        }
+
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        BatchReport report = new BatchWatermarkService()
+                .setWorkers(8)
+                .setMaxOpenDocuments(2)
+                .setOperation((src, dest) -> {
+                    int current = open.incrementAndGet();
+                    maxOpen.accumulateAndGet(current, Math::max);
+                    try {
+                        Thread.sleep(20);
+                        return AddWatermarkExample.addShared(src, dest);
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    } finally {
+                        open.decrementAndGet();
+                    }
+                })
+                .watermarkDirectory(srcDir, tempDir.resolve("dest"));
+
+        assertEquals(12, report.getSucceeded());
+        assertTrue(maxOpen.get() <= 2, "同时打开的文档数不应该超过上限: " + maxOpen.get());
+    }
+}
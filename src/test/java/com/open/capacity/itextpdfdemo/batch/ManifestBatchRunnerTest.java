@@ -0,0 +1,277 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 任务清单批量执行测试
+ */
+public class ManifestBatchRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path outDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        outDir = tempDir.resolve("out");
+    }
+
+    @Test
+    void testRunsAllOperationsFromJsonl() throws Exception {
+        Path src = tempDir.resolve("src.pdf");
+        BenchmarkSupport.createSamplePdf(src.toString(), 3);
+        Path svg = Files.write(tempDir.resolve("chart.svg"),
+                ("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"200\" height=\"100\">"
+                        + "<rect width=\"100\" height=\"50\" fill=\"#336699\"/></svg>").getBytes(StandardCharsets.UTF_8));
+        Path icc = Files.write(tempDir.resolve("sRGB.icc"), ICC_Profile.getInstance(ColorSpace.CS_sRGB).getData());
+        String font = BenchmarkSupport.findFont();
+
+        List<String> lines = new ArrayList<>();
+        lines.add("# 每种操作一个任务");
+        lines.add("{\"id\": \"create-1\", \"op\": \"create\", \"dest\": " + json(out("create-1.pdf")) + "}");
+        lines.add("{\"id\": \"table-1\", \"op\": \"table\", \"rows\": 300, \"dest\": " + json(out("table-1.pdf")) + "}");
+        lines.add("{\"id\": \"image-1\", \"op\": \"image\", \"image\": \"src/main/resources/images/sample.png\", "
+                + "\"dest\": " + json(out("image-1.pdf")) + "}");
+        lines.add("{\"id\": \"watermark-1\", \"op\": \"watermark\", \"src\": " + json(src.toString())
+                + ", \"dest\": " + json(out("watermark-1.pdf")) + "}");
+        lines.add("{\"id\": \"merge-1\", \"op\": \"merge\", \"sources\": [" + json(src.toString()) + ", "
+                + json(src.toString()) + "], \"dest\": " + json(out("merge-1.pdf")) + "}");
+        lines.add("{\"id\": \"svg-1\", \"op\": \"svg\", \"src\": " + json(svg.toString())
+                + ", \"dest\": " + json(out("svg-1.pdf")) + "}");
+        if (font != null) {
+            lines.add("{\"id\": \"pdfa-1\", \"op\": \"pdfa\", \"icc\": " + json(icc.toString()) + ", \"font\": "
+                    + json(font) + ", \"dest\": " + json(out("pdfa-1.pdf")) + "}");
+        }
+        lines.add("{\"id\": \"unknown-1\", \"op\": \"rotate\", \"dest\": " + json(out("unknown-1.pdf")) + "}");
+        lines.add("{\"id\": \"missing-1\", \"op\": \"merge\", \"sources\": [\"missing.pdf\"], "
+                + "\"dest\": " + json(out("missing-1.pdf")) + "}");
+        lines.add("{\"id\": \"broken\"");
+        Path manifest = Files.write(tempDir.resolve("jobs.jsonl"), lines, StandardCharsets.UTF_8);
+
+        ManifestReport report = new ManifestBatchRunner().setWorkers(2).setSlowestCount(3).run(manifest);
+
+        int expected = font != null ? 7 : 6;
+        assertEquals(expected, report.getSucceeded(), report.getFailures().toString());
+        assertEquals(3, report.getFailed());
+        assertTrue(report.getFailures().get("unknown-1").contains("unknown operation: rotate"));
+        assertTrue(report.getFailures().get("missing-1").contains("missing.pdf"));
+        assertTrue(report.getFailures().values().stream().anyMatch(error -> error.contains("manifest line 11")),
+                report.getFailures().toString());
+        assertFalse(Files.exists(outDir.resolve("missing-1.pdf")));
+
+        assertEquals(3, pageCount(out("watermark-1.pdf")));
+        assertEquals(6, pageCount(out("merge-1.pdf")));
+        assertTrue(pageCount(out("table-1.pdf")) > 1);
+        assertTrue(report.getPages() >= 1 + 3 + 6 + 1 + 1 + 2);
+        assertTrue(report.getBytesWritten() > 0);
+        assertTrue(report.getMegabytesPerSecond() > 0);
+        assertEquals(3, report.getSlowest().size());
+        assertTrue(report.getSlowest().get(0).getNanos() >= report.getSlowest().get(2).getNanos());
+    }
+
+    @Test
+    void testResumesFromCheckpoint() throws Exception {
+        Path checkpoint = tempDir.resolve("jobs.checkpoint");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lines.add("{\"id\": \"job-" + i + "\", \"op\": \"count\"}");
+        }
+        Path manifest = Files.write(tempDir.resolve("jobs.jsonl"), lines, StandardCharsets.UTF_8);
+
+        // 第一次运行时job-7失败
+        Set<String> executed = ConcurrentHashMap.newKeySet();
+        AtomicBoolean broken = new AtomicBoolean(true);
+        ManifestBatchRunner runner = new ManifestBatchRunner().setWorkers(3).setCheckpoint(checkpoint)
+                .register("count", job -> {
+                    if (broken.get() && job.getId().equals("job-7")) {
+                        throw new IOException("disk full");
+                    }
+                    executed.add(job.getId());
+                    return 1;
+                });
+        ManifestReport first = runner.run(manifest);
+        assertEquals(19, first.getSucceeded());
+        assertEquals(1, first.getFailed());
+
+        // 模拟被杀死时正在写的一行
+        Files.write(checkpoint, "OK\tjob-1".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        executed.clear();
+        broken.set(false);
+        ManifestReport second = runner.run(manifest);
+        assertEquals(1, second.getSucceeded());
+        assertEquals(19, second.getSkipped());
+        assertEquals(new ArrayList<>(Arrays.asList("job-7")), new ArrayList<>(executed));
+
+        List<String> log = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+        assertTrue(log.contains("OK\tjob-1"));
+        assertTrue(log.get(log.size() - 1).startsWith("OK\tjob-7\t1\t"), log.toString());
+
+        executed.clear();
+        ManifestReport third = runner.run(manifest);
+        assertEquals(0, third.getSucceeded());
+        assertEquals(20, third.getSkipped());
+        assertTrue(executed.isEmpty());
+    }
+
+    @Test
+    void testCorruptMergeSourceFailsJob() throws Exception {
+        Path good = tempDir.resolve("good.pdf");
+        BenchmarkSupport.createSamplePdf(good.toString(), 2);
+        Path garbage = Files.write(tempDir.resolve("garbage.pdf"), "not a pdf".getBytes(StandardCharsets.UTF_8));
+        Path checkpoint = tempDir.resolve("merge.checkpoint");
+        Path manifest = Files.write(tempDir.resolve("jobs.jsonl"), Arrays.asList(
+                "{\"id\": \"m1\", \"op\": \"merge\", \"sources\": [" + json(good.toString()) + ", "
+                        + json(garbage.toString()) + "], \"dest\": " + json(out("m1.pdf")) + "}"),
+                StandardCharsets.UTF_8);
+
+        ManifestBatchRunner runner = new ManifestBatchRunner().setWorkers(1).setCheckpoint(checkpoint);
+        ManifestReport report = runner.run(manifest);
+
+        assertEquals(0, report.getSucceeded());
+        assertEquals(1, report.getFailed());
+        assertTrue(report.getFailures().get("m1").contains("garbage.pdf"), report.getFailures().toString());
+        assertFalse(Files.exists(outDir.resolve("m1.pdf")), "缺页的结果不应该保留");
+        List<String> log = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+        assertTrue(log.stream().noneMatch(line -> line.startsWith("OK\t")), log.toString());
+
+        // 重新运行时再次执行失败的任务
+        assertEquals(1, runner.run(manifest).getFailed());
+    }
+
+    @Test
+    void testErrorInJobIsRecorded() throws Exception {
+        Path checkpoint = tempDir.resolve("errors.checkpoint");
+        Path manifest = Files.write(tempDir.resolve("jobs.jsonl"), Arrays.asList(
+                "{\"id\": \"deep\", \"op\": \"overflow\"}",
+                "{\"id\": \"fine\", \"op\": \"overflow\"}"), StandardCharsets.UTF_8);
+
+        ManifestReport report = new ManifestBatchRunner().setWorkers(1).setCheckpoint(checkpoint)
+                .register("overflow", job -> {
+                    if (job.getId().equals("deep")) {
+                        throw new StackOverflowError();
+                    }
+                    return 1;
+                })
+                .run(manifest);
+
+        assertEquals(1, report.getSucceeded());
+        assertEquals(1, report.getFailed());
+        assertTrue(report.getFailures().get("deep").contains("StackOverflowError"));
+        List<String> log = Files.readAllLines(checkpoint, StandardCharsets.UTF_8);
+        assertTrue(log.contains("FAILED\tdeep\tjava.lang.StackOverflowError"), log.toString());
+    }
+
+    @Test
+    void testCheckpointMatchesIdsExactly() throws IOException {
+        Path path = tempDir.resolve("ids.checkpoint");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 50000; i += 2) {
+            lines.add("OK\tjob-" + i + "\t1\t0");
+        }
+        lines.add("OK\t任务-中文\t1\t0");
+        lines.add("FAILED\tjob-1\terror");
+        Files.write(path, lines, StandardCharsets.UTF_8);
+
+        try (Checkpoint checkpoint = Checkpoint.open(path)) {
+            assertEquals(25001, checkpoint.getCompletedCount());
+            for (int i = 0; i < 50000; i++) {
+                assertEquals(i % 2 == 0, checkpoint.isCompleted("job-" + i), "job-" + i);
+            }
+            assertTrue(checkpoint.isCompleted("任务-中文"));
+            assertFalse(checkpoint.isCompleted("任务-中"));
+            assertFalse(checkpoint.isCompleted("job-"));
+            assertFalse(checkpoint.isCompleted("job-00"));
+        }
+        try (Checkpoint empty = Checkpoint.open(null)) {
+            assertFalse(empty.isCompleted("job-0"));
+        }
+    }
+
+    @Test
+    void testRunsCsvManifest() throws Exception {
+        Path a = tempDir.resolve("a.pdf");
+        Path b = tempDir.resolve("b, final.pdf");
+        BenchmarkSupport.createSamplePdf(a.toString(), 1);
+        BenchmarkSupport.createSamplePdf(b.toString(), 2);
+        List<String> lines = Arrays.asList(
+                "id,op,src,sources,dest",
+                "w1,watermark," + a + ",," + out("w1.pdf"),
+                "m1,merge,,\"" + a + ";" + b + "\"," + out("m1.pdf"));
+        Path manifest = Files.write(tempDir.resolve("jobs.csv"), lines, StandardCharsets.UTF_8);
+
+        ManifestReport report = new ManifestBatchRunner().setWorkers(2).run(manifest);
+
+        assertEquals(2, report.getSucceeded(), report.getFailures().toString());
+        assertEquals(1, pageCount(out("w1.pdf")));
+        assertEquals(3, pageCount(out("m1.pdf")));
+        assertEquals(4, report.getPages());
+    }
+
+    @Test
+    void testReadsJsonAndCsvValues() throws IOException {
+        Path manifest = Files.write(tempDir.resolve("jobs.jsonl"), Arrays.asList(
+                "{\"id\": 42, \"op\": \"merge\", \"sources\": [\"a.pdf\", \"b\\\"q\\\".pdf\"], \"rows\": 10, "
+                        + "\"note\": \"\\u4e2d\\t\", \"skip\": null}",
+                "",
+                "{\"op\": \"create\"}",
+                "{\"id\": \"x\", \"op\": \"create\", \"nested\": {\"a\": 1}}",
+                "{\"id\": \"last\", \"op\": \"create\"}"), StandardCharsets.UTF_8);
+
+        try (ManifestReader reader = new ManifestReader(manifest)) {
+            ManifestJob job = reader.next();
+            assertEquals("42", job.getId());
+            assertEquals("merge", job.getOperation());
+            assertEquals(Arrays.asList("a.pdf", "b\"q\".pdf"), job.getList("sources"));
+            assertEquals(10, job.getInt("rows", 0));
+            assertEquals("中\t", job.getString("note"));
+            assertNull(job.getString("skip"));
+            assertEquals(1, job.getLine());
+
+            IllegalArgumentException missing = assertThrows(IllegalArgumentException.class, reader::next);
+            assertTrue(missing.getMessage().startsWith("manifest line 3: missing id"), missing.getMessage());
+            IllegalArgumentException nested = assertThrows(IllegalArgumentException.class, reader::next);
+            assertTrue(nested.getMessage().contains("line 4"), nested.getMessage());
+            assertEquals("last", reader.next().getId());
+            assertFalse(reader.hasNext());
+        }
+
+        assertEquals(Arrays.asList("a", "b, \"c\"", "", "d"), ManifestReader.parseCsv("a,\"b, \"\"c\"\"\",,d"));
+    }
+
+    private String out(String name) {
+        return outDir.resolve(name).toString();
+    }
+
+    private static String json(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static int pageCount(String path) throws IOException {
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(path))) {
+            return pdf.getNumberOfPages();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.open.capacity.itextpdfdemo.advanced.PdfAContext;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * 批量PDF/A归档基准测试
+ * 分别以PDF/A-1B和PDF/A-2B转换一批嵌入字体的文档，输出复制、合规检查和写出各占的时间
+ * 参数: [文件数，默认200] [每个文件页数，默认5] [线程数，默认CPU核数]
+ */
+public class PdfAArchiveBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int pages = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        String font = BenchmarkSupport.findFont();
+        if (font == null) {
+            System.out.println("系统中没有可用的TrueType字体，无法生成可以归档的源文件");
+            return;
+        }
+
+        Path workDir = BenchmarkSupport.createWorkDir("pdfa-archive-bench");
+        try {
+            Path srcDir = Files.createDirectories(workDir.resolve("src"));
+            for (int i = 0; i < files; i++) {
+                BenchmarkSupport.createSamplePdf(srcDir.resolve("doc" + i + ".pdf").toString(), pages, "Doc" + i, font);
+            }
+            Path icc = workDir.resolve("sRGB.icc");
+            Files.write(icc, ICC_Profile.getInstance(ColorSpace.CS_sRGB).getData());
+            PdfAContext context = PdfAContext.forProfile(icc.toString());
+            System.out.println("源文件: " + files + " 个, 每个 " + pages + " 页, 线程 " + workers);
+
+            for (int round = 1; round <= 2; round++) {
+                System.out.println("--- 第 " + round + " 轮 ---");
+                for (PdfAConformanceLevel level : new PdfAConformanceLevel[]{
+                        PdfAConformanceLevel.PDF_A_1B, PdfAConformanceLevel.PDF_A_2B}) {
+                    Path destDir = workDir.resolve("archive");
+                    ArchiveReport report = new PdfAArchiveConverter(context)
+                            .setWorkers(workers)
+                            .setConformanceLevel(level)
+                            .convertDirectory(srcDir, destDir);
+                    long bytes;
+                    try (Stream<Path> outputs = Files.list(destDir)) {
+                        bytes = outputs.mapToLong(f -> f.toFile().length()).sum();
+                    }
+                    BenchmarkSupport.report("PDF/A-" + level.getPart() + level.getConformance(), files,
+                            report.getElapsedNanos(), bytes, "files");
+                    long total = report.getCopyNanos() + report.getCheckNanos() + report.getWriteNanos();
+                    System.out.printf("%-28s copy %.0f%%, check %.0f%%, write %.0f%%%n", "",
+                            100.0 * report.getCopyNanos() / total, 100.0 * report.getCheckNanos() / total,
+                            100.0 * report.getWriteNanos() / total);
+                    BenchmarkSupport.deleteRecursively(destDir);
+                }
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import com.itextpdf.kernel.pdf.PdfAConformanceLevel;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.open.capacity.itextpdfdemo.advanced.PdfAContext;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 批量PDF/A归档转换测试
+ */
+public class PdfAArchiveConverterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path srcDir;
+
+    private Path destDir;
+
+    private Path resultsLog;
+
+    private PdfAContext context;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        String font = BenchmarkSupport.findFont();
+        assumeTrue(font != null, "系统中没有可用的TrueType字体");
+
+        srcDir = Files.createDirectories(tempDir.resolve("src"));
+        destDir = tempDir.resolve("archive");
+        resultsLog = tempDir.resolve("results.log");
+        Path icc = tempDir.resolve("sRGB.icc");
+        Files.write(icc, ICC_Profile.getInstance(ColorSpace.CS_sRGB).getData());
+        context = PdfAContext.forProfile(icc.toString());
+
+        for (int i = 0; i < 4; i++) {
+            BenchmarkSupport.createSamplePdf(srcDir.resolve("doc" + i + ".pdf").toString(), 3, "Doc" + i, font);
+        }
+        // 字体没有嵌入，不能转换为PDF/A
+        BenchmarkSupport.createSamplePdf(srcDir.resolve("helvetica.pdf").toString(), 1);
+    }
+
+    @Test
+    void testConvertsDirectoryAndReportsPhases() throws Exception {
+        ArchiveReport report = new PdfAArchiveConverter(context)
+                .setWorkers(2)
+                .setConformanceLevel(PdfAConformanceLevel.PDF_A_1B)
+                .setResultsLog(resultsLog)
+                .convertDirectory(srcDir, destDir);
+
+        assertEquals(4, report.getConverted());
+        assertEquals(1, report.getFailed());
+        assertEquals(12, report.getPages());
+        assertTrue(report.getFailures().keySet().iterator().next().endsWith("helvetica.pdf"));
+        assertFalse(Files.exists(destDir.resolve("helvetica.pdf")), "失败的文件不应该留下输出");
+        assertTrue(report.getCheckNanos() > 0, "应该统计合规检查时间");
+        assertTrue(report.getCopyNanos() > 0 && report.getWriteNanos() > 0);
+
+        PdfDocument archived = new PdfDocument(new PdfReader(destDir.resolve("doc0.pdf").toString()));
+        assertEquals(3, archived.getNumberOfPages());
+        assertTrue(new String(archived.getXmpMetadata(), StandardCharsets.UTF_8).contains("pdfaid:part"),
+                "输出应该声明PDF/A");
+        archived.close();
+
+        List<String> lines = Files.readAllLines(resultsLog);
+        assertEquals(5, lines.size(), "每个文件应该记录一行结果");
+    }
+
+    @Test
+    void testResumeSkipsCompletedFiles() throws Exception {
+        PdfAArchiveConverter converter = new PdfAArchiveConverter(context).setWorkers(2).setResultsLog(resultsLog);
+        converter.convertDirectory(srcDir, destDir);
+        // 模拟中断：最后一行只写了一半
+        Files.write(resultsLog, "OK\t".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        ArchiveReport resumed = converter.convertDirectory(srcDir, destDir);
+
+        assertEquals(4, resumed.getSkipped(), "已经成功的文件不应该重新转换");
+        assertEquals(0, resumed.getConverted());
+        assertEquals(1, resumed.getFailed(), "失败的文件应该在续跑时重试");
+        List<String> lines = Files.readAllLines(resultsLog);
+        assertEquals("OK\t", lines.get(lines.size() - 2), "写了一半的行应该单独成行");
+        assertTrue(lines.get(lines.size() - 1).startsWith("FAILED\t"), "续跑的记录应该从新的一行开始");
+    }
+}
@@ -0,0 +1,52 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * 批量SVG转换基准测试
+ * 生成元素数不等的图表SVG（其中少数是病态的大文件），按不同线程数转换并列出最慢的文件
+ * 参数: [文件数，默认500] [最大线程数，默认CPU核数]
+ */
+public class SvgBatchBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int maxWorkers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        Path workDir = BenchmarkSupport.createWorkDir("svg-batch-bench");
+        try {
+            Path srcDir = Files.createDirectories(workDir.resolve("svg"));
+            Random random = new Random(42);
+            for (int i = 0; i < files; i++) {
+                // 每50个文件中有一个病态输入
+                int shapes = i % 50 == 49 ? 200000 : 20 + random.nextInt(400);
+                StringBuilder svg = new StringBuilder(
+                        "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"800\" height=\"600\">");
+                for (int j = 0; j < shapes; j++) {
+                    svg.append("<rect x=\"").append(random.nextInt(780)).append("\" y=\"").append(random.nextInt(580))
+                            .append("\" width=\"12\" height=\"").append(1 + random.nextInt(200))
+                            .append("\" fill=\"#").append(String.format("%06x", random.nextInt(0xFFFFFF))).append("\"/>");
+                }
+                svg.append("</svg>");
+                Files.write(srcDir.resolve(String.format("chart%05d.svg", i)),
+                        svg.toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            for (int workers = 1; workers <= maxWorkers; workers *= 2) {
+                SvgBatchReport report = new SvgBatchConverter().setWorkers(workers).setTimeoutMillis(2000)
+                        .setMaxElements(100000).convertDirectory(srcDir, workDir.resolve("pdf-" + workers));
+                System.out.println(workers + " 线程: " + report);
+                for (SvgConversionResult result : report.getSlowest(3)) {
+                    System.out.println("  " + result);
+                }
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.open.capacity.itextpdfdemo.batch;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量SVG转换测试
+ */
+public class SvgBatchConverterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path srcDir;
+
+    private Path destDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        srcDir = Files.createDirectories(tempDir.resolve("svg"));
+        destDir = tempDir.resolve("pdf");
+    }
+
+    @Test
+    void testConvertsDirectory() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            writeSvg("chart" + i + ".svg", 10 + i);
+        }
+
+        SvgBatchReport report = new SvgBatchConverter().setWorkers(3).convertDirectory(srcDir, destDir);
+
+        assertEquals(6, report.getConverted());
+        assertEquals(6, report.getResults().size());
+        for (SvgConversionResult result : report.getResults()) {
+            assertEquals(SvgConversionResult.Status.OK, result.getStatus());
+            assertTrue(result.getLatencyNanos() > 0);
+        }
+        Map<String, Integer> elements = elementCounts(report);
+        // svg根元素加上每个图形
+        assertEquals(11, elements.get("chart0.svg"));
+        assertEquals(16, elements.get("chart5.svg"));
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(destDir.resolve("chart3.pdf").toString()))) {
+            assertEquals(1, pdf.getNumberOfPages());
+            assertEquals(300, pdf.getPage(1).getPageSize().getWidth(), 0.5, "页面应该和SVG一样大（400px = 300pt）");
+        }
+    }
+
+    @Test
+    void testRelativeImageResolvedAgainstSvgDirectory() throws Exception {
+        Files.copy(Paths.get("src/main/resources/images/sample.png"), srcDir.resolve("sample.png"));
+        Files.write(srcDir.resolve("photo.svg"), ("<svg xmlns=\"http://www.w3.org/2000/svg\" "
+                + "xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\"100\" height=\"100\">"
+                + "<image xlink:href=\"sample.png\" width=\"100\" height=\"100\"/></svg>")
+                .getBytes(StandardCharsets.UTF_8));
+
+        SvgBatchReport report = new SvgBatchConverter().setWorkers(1).convertDirectory(srcDir, destDir);
+
+        assertEquals(1, report.getConverted());
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(destDir.resolve("photo.pdf").toString()))) {
+            boolean hasImage = false;
+            for (int i = 1; i < pdf.getNumberOfPdfObjects(); i++) {
+                PdfObject object = pdf.getPdfObject(i);
+                hasImage |= object instanceof PdfStream
+                        && PdfName.Image.equals(((PdfStream) object).getAsName(PdfName.Subtype));
+            }
+            assertTrue(hasImage, "SVG中的相对路径应该按SVG文件所在的目录解析");
+        }
+    }
+
+    @Test
+    void testRejectsOversizedInputs() throws Exception {
+        writeSvg("small.svg", 5);
+        writeSvg("many.svg", 500);
+        Path big = writeSvg("big.svg", 5);
+        Files.write(big, new byte[200 * 1024], java.nio.file.StandardOpenOption.APPEND);
+
+        SvgBatchReport report = new SvgBatchConverter().setWorkers(2).setMaxElements(100)
+                .setMaxBytes(100 * 1024).convertDirectory(srcDir, destDir);
+
+        assertEquals(1, report.getConverted());
+        assertEquals(2, report.count(SvgConversionResult.Status.REJECTED));
+        Map<String, Integer> elements = elementCounts(report);
+        assertEquals(-1, elements.get("big.svg"), "超过大小限制的文件不应该被解析");
+        assertEquals(501, elements.get("many.svg"));
+        assertFalse(Files.exists(destDir.resolve("many.pdf")));
+        assertFalse(Files.exists(destDir.resolve("big.pdf")));
+    }
+
+    @Test
+    void testTimeoutDoesNotAffectNextFile() throws Exception {
+        Path slow = writeSvg("slow.svg", 100000);
+        Path fast = writeSvg("fast.svg", 3);
+        // 预热，避免类加载时间计入后面的时间限制
+        new SvgBatchConverter().setWorkers(1).convert(Arrays.asList(fast), destDir);
+
+        SvgBatchReport report = new SvgBatchConverter().setWorkers(1).setTimeoutMillis(300)
+                .convert(Arrays.asList(slow, fast, fast), destDir);
+
+        assertEquals(SvgConversionResult.Status.TIMEOUT, report.getResults().get(0).getStatus());
+        assertEquals(SvgConversionResult.Status.OK, report.getResults().get(1).getStatus(),
+                "超时的中断不应该影响同一线程上的下一个文件");
+        assertEquals(SvgConversionResult.Status.OK, report.getResults().get(2).getStatus());
+        assertFalse(Files.exists(destDir.resolve("slow.pdf")), "超时的文件不应该留下部分输出");
+        assertEquals("slow.svg", java.nio.file.Paths.get(report.getSlowest(1).get(0).getSrc()).getFileName().toString());
+    }
+
+    @Test
+    void testMalformedInputFails() throws Exception {
+        Files.write(srcDir.resolve("broken.svg"), "<html><body>not svg</body></html>".getBytes(StandardCharsets.UTF_8));
+        writeSvg("ok.svg", 2);
+
+        SvgBatchReport report = new SvgBatchConverter().setWorkers(1).convertDirectory(srcDir, destDir);
+
+        assertEquals(1, report.getConverted());
+        assertEquals(1, report.count(SvgConversionResult.Status.FAILED));
+        assertFalse(Files.exists(destDir.resolve("broken.pdf")));
+    }
+
+    private Path writeSvg(String name, int shapes) throws IOException {
+        StringBuilder svg = new StringBuilder("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"400\" height=\"300\">");
+        for (int i = 0; i < shapes; i++) {
+            svg.append("<circle cx=\"").append(i % 400).append("\" cy=\"").append(i % 300)
+                    .append("\" r=\"3\" fill=\"#336699\"/>");
+        }
+        svg.append("</svg>");
+        return Files.write(srcDir.resolve(name), svg.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, Integer> elementCounts(SvgBatchReport report) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (SvgConversionResult result : report.getResults()) {
+            counts.put(java.nio.file.Paths.get(result.getSrc()).getFileName().toString(), result.getElementCount());
+        }
+        return counts;
+    }
+}
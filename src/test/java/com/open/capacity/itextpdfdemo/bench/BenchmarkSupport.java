@@ -0,0 +1,159 @@
+package com.open.capacity.itextpdfdemo.bench;
+
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.AreaBreak;
+import com.itextpdf.layout.element.Paragraph;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * 性能基准测试公共工具
+ * 基准测试类都以 main 方法运行，例如：
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=...
+ */
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 生成指定页数的测试PDF，每页若干行文本
+     */
+    public static void createSamplePdf(String dest, int pages) throws IOException {
+        createSamplePdf(dest, pages, "Page");
+    }
+
+    /**
+     * 生成指定页数的测试PDF，每页标题为 "标题前缀 页码"
+     */
+    public static void createSamplePdf(String dest, int pages, String title) throws IOException {
+        createSamplePdf(dest, pages, title, null);
+    }
+
+    /**
+     * 生成指定页数的测试PDF并嵌入指定的字体文件，{@code fontPath} 为空时使用默认的Helvetica（不嵌入）
+     */
+    public static void createSamplePdf(String dest, int pages, String title, String fontPath) throws IOException {
+        PdfWriter writer = new PdfWriter(dest);
+        PdfDocument pdf = new PdfDocument(writer);
+        try (Document document = new Document(pdf)) {
+            if (fontPath != null) {
+                document.setFont(PdfFontFactory.createFont(fontPath, PdfEncodings.IDENTITY_H,
+                        PdfFontFactory.EmbeddingStrategy.FORCE_EMBEDDED));
+            }
+            for (int i = 1; i <= pages; i++) {
+                if (i > 1) {
+                    document.add(new AreaBreak());
+                }
+                document.add(new Paragraph(title + " " + i));
+                for (int j = 1; j <= 20; j++) {
+                    document.add(new Paragraph("Line " + j + " of page " + i + ": the quick brown fox jumps over the lazy dog"));
+                }
+            }
+        }
+    }
+
+    /**
+     * 在常见的系统字体目录中查找一个TrueType字体，找不到时返回空
+     */
+    public static String findFont() throws IOException {
+        for (String dir : new String[]{"/usr/share/fonts", "/Library/Fonts", "C:/Windows/Fonts"}) {
+            Path fonts = Paths.get(dir);
+            if (!Files.isDirectory(fonts)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(fonts)) {
+                Path font = files.filter(f -> f.toString().toLowerCase().endsWith(".ttf")).findFirst().orElse(null);
+                if (font != null) {
+                    return font.toString();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 生成照片大小的测试图片：渐变背景加随机色块，格式由扩展名决定（jpg或png）
+     */
+    public static void createSampleImage(String dest, int width, int height, long seed) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+        g.fillRect(0, 0, width, height);
+        Random random = new Random(seed);
+        for (int i = 0; i < 200; i++) {
+            g.setColor(new Color(random.nextInt(0xFFFFFF)));
+            g.fillOval(random.nextInt(width), random.nextInt(height), width / 10, height / 10);
+        }
+        g.dispose();
+        String format = dest.endsWith(".png") ? "png" : "jpg";
+        ImageIO.write(image, format, new File(dest));
+    }
+
+    /**
+     * 创建基准测试使用的临时目录
+     */
+    public static Path createWorkDir(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix);
+    }
+
+    /**
+     * 删除临时目录及其中的文件
+     */
+    public static void deleteRecursively(Path dir) {
+        File[] files = dir.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    deleteRecursively(file.toPath());
+                } else {
+                    file.delete();
+                }
+            }
+        }
+        dir.toFile().delete();
+    }
+
+    /**
+     * 尝试清空操作系统文件缓存以模拟冷缓存（仅Linux且需要root权限）
+     *
+     * @return 是否成功清空
+     */
+    public static boolean dropFileCache() {
+        try {
+            new ProcessBuilder("sync").inheritIO().start().waitFor();
+            Files.write(Paths.get("/proc/sys/vm/drop_caches"), "3".getBytes(StandardCharsets.US_ASCII));
+            return true;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 打印一行基准测试结果
+     */
+    public static void report(String name, int iterations, long nanos, long bytes, String unit) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-28s %10.1f %s/s %12d bytes %10.1f ms%n",
+                name, iterations / seconds, unit, bytes, nanos / 1e6);
+    }
+}
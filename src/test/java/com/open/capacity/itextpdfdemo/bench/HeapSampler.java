@@ -0,0 +1,71 @@
+package com.open.capacity.itextpdfdemo.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+/**
+ * 在后台线程中周期性触发GC并采样堆使用量，记录操作期间的存活对象峰值
+ * 使用各堆内存池在GC刚结束时的用量，不受采样时其他线程新分配对象的干扰
+ */
+public class HeapSampler implements AutoCloseable {
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    private volatile long peak;
+
+    public HeapSampler(long intervalMillis) {
+        thread = new Thread(() -> {
+            while (running) {
+                sample();
+                try {
+                    Thread.sleep(intervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "heap-sampler");
+        thread.setDaemon(true);
+        sample();
+        thread.start();
+    }
+
+    private void sample() {
+        System.gc();
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && afterGc != null) {
+                used += afterGc.getUsed();
+            }
+        }
+        if (used > peak) {
+            peak = used;
+        }
+    }
+
+    /**
+     * @return 采样期间的堆使用峰值（字节）
+     */
+    public long getPeak() {
+        return peak;
+    }
+
+    /**
+     * 停止采样线程并再采样一次；等待时被中断则保留中断状态，不再等待采样线程结束
+     */
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sample();
+    }
+}
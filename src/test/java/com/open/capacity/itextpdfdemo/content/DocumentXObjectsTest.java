@@ -0,0 +1,93 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 每个文档的XObject记录测试
+ */
+public class DocumentXObjectsTest {
+
+    private static final String SAMPLE_IMAGE = "src/main/resources/images/sample.png";
+
+    private final DocumentXObjects<PdfImageXObject> xObjects = new DocumentXObjects<>(PdfImageXObject::new);
+
+    @Test
+    void testSameDocumentReturnsSameXObject() throws IOException {
+        PdfDocument pdf = newDocument();
+        PdfDocument other = newDocument();
+        PdfImageXObject image = newImage();
+
+        assertSame(image, xObjects.putIfAbsent(pdf, "logo", image));
+        assertNotNull(image.getPdfObject().getIndirectReference(), "记录的XObject应该成为文档的间接对象");
+        assertSame(image, xObjects.get(pdf, "logo"));
+        assertSame(image, xObjects.putIfAbsent(pdf, "logo", newImage()), "同一个键应该返回已有的XObject");
+        assertNull(xObjects.get(other, "logo"), "不同的文档不共享XObject");
+
+        assertEquals(1, xObjects.size());
+        pdf.close();
+        assertEquals(0, xObjects.size(), "关闭的文档应该被移除");
+        other.close();
+    }
+
+    @Test
+    void testAbandonedDocumentIsReleased() throws Exception {
+        WeakReference<PdfDocument> abandoned = embedInAbandonedDocument();
+
+        for (int i = 0; i < 50 && (abandoned.get() != null || xObjects.size() > 0); i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(abandoned.get(), "没有关闭就被丢弃的文档应该可以被回收");
+        assertEquals(0, xObjects.size());
+    }
+
+    @Test
+    void testCollectedWrapperIsRecreatedFromStream() throws Exception {
+        PdfDocument pdf = newDocument();
+        PdfStream stream = embedAndDropWrapper(pdf);
+
+        PdfImageXObject image = null;
+        for (int i = 0; i < 50; i++) {
+            System.gc();
+            image = xObjects.get(pdf, "logo");
+            if (image != null) {
+                break;
+            }
+        }
+        assertNotNull(image, "文档还在使用时应该能找回XObject");
+        assertSame(stream, image.getPdfObject(), "找回的应该是同一个图片流");
+        pdf.close();
+    }
+
+    private WeakReference<PdfDocument> embedInAbandonedDocument() throws IOException {
+        PdfDocument pdf = newDocument();
+        xObjects.putIfAbsent(pdf, "logo", newImage());
+        assertEquals(1, xObjects.size());
+        return new WeakReference<>(pdf);
+    }
+
+    private PdfStream embedAndDropWrapper(PdfDocument pdf) throws IOException {
+        return xObjects.putIfAbsent(pdf, "logo", newImage()).getPdfObject();
+    }
+
+    private static PdfDocument newDocument() {
+        PdfDocument pdf = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        pdf.addNewPage();
+        return pdf;
+    }
+
+    private static PdfImageXObject newImage() throws IOException {
+        return new PdfImageXObject(ImageDataFactory.create(SAMPLE_IMAGE));
+    }
+}
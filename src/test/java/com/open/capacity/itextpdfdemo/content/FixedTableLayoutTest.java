@@ -0,0 +1,180 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.EventType;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfCanvasProcessor;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.kernel.pdf.canvas.parser.data.IEventData;
+import com.itextpdf.kernel.pdf.canvas.parser.data.TextRenderInfo;
+import com.itextpdf.kernel.pdf.canvas.parser.listener.IEventListener;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.UnitValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 固定布局表格测试
+ */
+public class FixedTableLayoutTest {
+
+    private static final String[] HEADERS = {"ID", "Name", "Amount"};
+
+    @TempDir
+    Path tempDir;
+
+    private String outputDir;
+
+    @BeforeEach
+    void setUp() {
+        outputDir = tempDir.toString() + File.separator;
+    }
+
+    @Test
+    void testDeclaredPointWidthsAreUsed() throws IOException {
+        String dest = outputDir + "points.pdf";
+
+        AddTableExample.create(dest, HEADERS, rows(20), FixedTableLayout.ofPoints(50, 100, 150));
+
+        // 表格从左边距36开始，每列文字位于列左边界加上内边距的位置
+        Map<String, Float> headerX = headerPositions(dest);
+        assertEquals(36 + 2.5, headerX.get("ID"), 1, "第一列位置不正确");
+        assertEquals(36 + 50 + 2.5, headerX.get("Name"), 1, "第二列位置不正确");
+        assertEquals(36 + 150 + 2.5, headerX.get("Amount"), 1, "第三列位置不正确");
+    }
+
+    @Test
+    void testFixedLayoutKeepsAllRows() throws IOException {
+        String fixed = outputDir + "fixed.pdf";
+        String streaming = outputDir + "streaming.pdf";
+        FixedTableLayout layout = FixedTableLayout.ofPercents(20, 50, 30);
+
+        assertEquals(300, AddTableExample.create(fixed, HEADERS, rows(300), layout));
+        assertEquals(300, AddTableExample.createStreaming(streaming, HEADERS, rows(300), 50, layout));
+
+        assertEquals(pageTexts(fixed), pageTexts(streaming), "一次性生成和流式生成的内容应该一致");
+        assertTrue(pageTexts(fixed).get(pageTexts(fixed).size() - 1).contains("300 "), "应该包含最后一行");
+    }
+
+    @Test
+    void testWidthsFromSample() throws IOException {
+        List<String[]> sample = Arrays.asList(HEADERS,
+                new String[]{"1", "a much longer product name", "10"},
+                new String[]{"2", "short", "20"});
+
+        FixedTableLayout layout = FixedTableLayout.fromSample(sample,
+                PdfFontFactory.createFont(StandardFonts.HELVETICA), 12, 10);
+
+        Table table = layout.createTable(false);
+        assertEquals(3, layout.getNumberOfColumns());
+        float sum = 0;
+        for (int i = 0; i < 3; i++) {
+            UnitValue width = table.getColumnWidth(i);
+            assertTrue(width.isPercentValue(), "样本列宽应该换算成百分比");
+            assertTrue(width.getValue() >= 10 - 0.01, "每列不应小于最小百分比: " + width);
+            sum += width.getValue();
+        }
+        assertEquals(100, sum, 0.01, "百分比之和应该为100");
+        assertTrue(table.getColumnWidth(1).getValue() > table.getColumnWidth(2).getValue(),
+                "内容更宽的列应该更宽");
+    }
+
+    @Test
+    void testEmptySampleColumnsGetWidth() throws IOException {
+        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+
+        // 全部为空的样本平均分配
+        FixedTableLayout empty = FixedTableLayout.fromSample(
+                Collections.singletonList(new String[]{"", "", ""}), font, 12, 0);
+        Table table = empty.createTable(false);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(100 / 3f, table.getColumnWidth(i).getValue(), 0.01, "空样本的各列应该等宽");
+        }
+
+        // 样本中始终为空的列按最小宽度计算，仍然是有效的列宽
+        FixedTableLayout shortRows = FixedTableLayout.fromSample(Arrays.asList(
+                new String[]{"ID", "Name", ""}, new String[]{"1", "a long product name"}), font, 12, 0);
+        float lastColumn = shortRows.createTable(false).getColumnWidth(2).getValue();
+        assertTrue(lastColumn > 0 && lastColumn < 20, "空列应该有一个较窄的正宽度: " + lastColumn);
+    }
+
+    @Test
+    void testLayoutMustMatchHeaders() {
+        String dest = outputDir + "mismatch.pdf";
+        FixedTableLayout twoColumns = FixedTableLayout.ofPercents(50, 50);
+
+        assertThrows(IllegalArgumentException.class, () -> AddTableExample.create(dest, HEADERS, rows(5), twoColumns));
+        assertThrows(IllegalArgumentException.class,
+                () -> AddTableExample.createStreaming(dest, HEADERS, rows(5), 10, twoColumns));
+        assertFalse(new File(dest).exists(), "列数不匹配时不应创建输出文件");
+    }
+
+    @Test
+    void testInvalidWidthsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> FixedTableLayout.ofPoints());
+        assertThrows(IllegalArgumentException.class, () -> FixedTableLayout.ofPercents(50, 0, 50));
+        assertThrows(IllegalArgumentException.class, () -> FixedTableLayout.fromSample(
+                Collections.<String[]>emptyList(), PdfFontFactory.createFont(StandardFonts.HELVETICA), 12, 10));
+    }
+
+    /**
+     * 读取第一页表头文字的横坐标
+     */
+    private static Map<String, Float> headerPositions(String dest) throws IOException {
+        Set<String> headers = new HashSet<>(Arrays.asList(HEADERS));
+        Map<String, Float> positions = new HashMap<>();
+        PdfDocument pdf = new PdfDocument(new PdfReader(dest));
+        new PdfCanvasProcessor(new IEventListener() {
+            @Override
+            public void eventOccurred(IEventData data, EventType type) {
+                TextRenderInfo info = (TextRenderInfo) data;
+                if (headers.contains(info.getText()) && !positions.containsKey(info.getText())) {
+                    positions.put(info.getText(), info.getBaseline().getStartPoint().get(0));
+                }
+            }
+
+            @Override
+            public Set<EventType> getSupportedEvents() {
+                return Collections.singleton(EventType.RENDER_TEXT);
+            }
+        }).processPageContent(pdf.getPage(1));
+        pdf.close();
+        return positions;
+    }
+
+    private static List<String> pageTexts(String dest) throws IOException {
+        PdfDocument pdf = new PdfDocument(new PdfReader(dest));
+        List<String> texts = new ArrayList<>();
+        for (int i = 1; i <= pdf.getNumberOfPages(); i++) {
+            texts.add(PdfTextExtractor.getTextFromPage(pdf.getPage(i)));
+        }
+        pdf.close();
+        return texts;
+    }
+
+    private static Iterator<String[]> rows(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(id -> new String[]{String.valueOf(id), "Product " + id, String.valueOf(id * 10)})
+                .iterator();
+    }
+}
@@ -0,0 +1,179 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.AreaBreak;
+import com.itextpdf.layout.element.Image;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图片缓存测试
+ */
+public class ImageCacheTest {
+
+    private static final String SAMPLE_IMAGE = "src/main/resources/images/sample.png";
+
+    @TempDir
+    Path tempDir;
+
+    private String outputDir;
+
+    @BeforeEach
+    void setUp() {
+        outputDir = tempDir.toString() + File.separator;
+    }
+
+    @Test
+    void testRepeatedReadsHitCache() throws IOException {
+        ImageCache cache = new ImageCache(64L * 1024 * 1024);
+
+        ImageData first = cache.get(SAMPLE_IMAGE);
+        ImageData second = cache.get(SAMPLE_IMAGE);
+
+        assertSame(first, second, "第二次读取应该返回缓存的解码结果");
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertTrue(cache.getCurrentBytes() > 0);
+    }
+
+    @Test
+    void testModifiedFileIsReloaded() throws IOException {
+        Path image = copySample("logo.png");
+        ImageCache cache = new ImageCache(64L * 1024 * 1024);
+
+        ImageData first = cache.get(image.toString());
+        Files.setLastModifiedTime(image, FileTime.fromMillis(
+                Files.getLastModifiedTime(image).toMillis() + 10000));
+        ImageData second = cache.get(image.toString());
+
+        assertNotSame(first, second, "文件修改后应该重新解码");
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void testLeastRecentlyUsedImageIsEvicted() throws IOException {
+        String a = copySample("a.png").toString();
+        String b = copySample("b.png").toString();
+        String c = copySample("c.png").toString();
+        ImageCache probe = new ImageCache(Long.MAX_VALUE);
+        probe.get(a);
+        long imageBytes = probe.getCurrentBytes();
+
+        // 只能放下两张图片
+        ImageCache cache = new ImageCache(imageBytes * 2);
+        cache.get(a);
+        cache.get(b);
+        cache.get(a);
+        cache.get(c);
+
+        assertEquals(1, cache.getEvictions(), "放入第三张图片时应该淘汰一张");
+        assertEquals(2, cache.size());
+        assertTrue(cache.getCurrentBytes() <= imageBytes * 2);
+        long misses = cache.getMisses();
+        cache.get(a);
+        assertEquals(misses, cache.getMisses(), "最近使用过的图片不应该被淘汰");
+        cache.get(b);
+        assertEquals(misses + 1, cache.getMisses(), "最久未使用的图片应该被淘汰");
+    }
+
+    @Test
+    void testImageEmbeddedOncePerDocument() throws IOException {
+        String dest = outputDir + "logo_pages.pdf";
+        ImageCache cache = new ImageCache(64L * 1024 * 1024);
+
+        PdfDocument pdf = new PdfDocument(new PdfWriter(dest));
+        try (Document document = new Document(pdf)) {
+            for (int i = 0; i < 5; i++) {
+                if (i > 0) {
+                    document.add(new AreaBreak());
+                }
+                document.add(new Image(cache.getXObject(pdf, SAMPLE_IMAGE)).scaleToFit(100, 100));
+            }
+        }
+
+        PdfDocument result = new PdfDocument(new PdfReader(dest));
+        PdfObject first = null;
+        for (int i = 1; i <= result.getNumberOfPages(); i++) {
+            PdfDictionary xObjects = result.getPage(i).getResources().getResource(PdfName.XObject);
+            PdfObject image = xObjects.get(xObjects.keySet().iterator().next(), false);
+            if (first == null) {
+                first = image;
+            } else {
+                assertEquals(first, image, "所有页面应该引用同一个图片XObject");
+            }
+        }
+        result.close();
+
+        // 与只放一张图片的文档相比，图片流（包括透明度蒙版）的数量应该相同
+        String single = outputDir + "single.pdf";
+        AddImageExample.create(single, SAMPLE_IMAGE);
+        assertEquals(countImageStreams(single), countImageStreams(dest), "图片只应该嵌入一次");
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testConcurrentDocumentsShareDecodedImage() throws Exception {
+        ImageCache.getDefault().clear();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String dest = outputDir + "image_" + i + ".pdf";
+            futures.add(executor.submit(() -> {
+                AddImageExample.create(dest, SAMPLE_IMAGE);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        long expected = Files.size(Paths.get(outputDir + "image_0.pdf"));
+        for (int i = 0; i < 16; i++) {
+            assertEquals(expected, Files.size(Paths.get(outputDir + "image_" + i + ".pdf")),
+                    "并发生成的文档应该完全相同");
+        }
+        assertEquals(16, ImageCache.getDefault().getHits() + ImageCache.getDefault().getMisses());
+        assertTrue(ImageCache.getDefault().getMisses() <= 4, "解码次数不应超过并发线程数");
+    }
+
+    private static int countImageStreams(String path) throws IOException {
+        PdfDocument pdf = new PdfDocument(new PdfReader(path));
+        int images = 0;
+        for (int i = 1; i < pdf.getNumberOfPdfObjects(); i++) {
+            PdfObject object = pdf.getPdfObject(i);
+            if (object instanceof PdfStream && PdfName.Image.equals(((PdfStream) object).getAsName(PdfName.Subtype))) {
+                images++;
+            }
+        }
+        pdf.close();
+        return images;
+    }
+
+    private Path copySample(String name) throws IOException {
+        return Files.copy(Paths.get(SAMPLE_IMAGE), tempDir.resolve(name));
+    }
+}
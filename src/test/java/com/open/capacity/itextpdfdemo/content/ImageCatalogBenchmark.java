@@ -0,0 +1,53 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 图片目录基准测试
+ * 比较排版线程中依次解码和线程池异步解码生成同一份多图片文档的耗时
+ * 参数: [图片数，默认500] [解码线程数，默认CPU核数] [宽，默认1600] [高，默认1200]
+ */
+public class ImageCatalogBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 1600;
+        int height = args.length > 3 ? Integer.parseInt(args[3]) : 1200;
+
+        Path workDir = BenchmarkSupport.createWorkDir("image-catalog-bench");
+        try {
+            List<String> images = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String image = workDir.resolve("photo" + i + ".jpg").toString();
+                BenchmarkSupport.createSampleImage(image, width, height, i);
+                images.add(image);
+            }
+            System.out.println("源图片: " + count + " 张 " + width + "x" + height + ", CPU核数 "
+                    + Runtime.getRuntime().availableProcessors() + ", 解码线程 " + workers);
+
+            ImagePreparer preparer = new ImagePreparer();
+            String dest = workDir.resolve("catalog.pdf").toString();
+            for (int round = 1; round <= 2; round++) {
+                System.out.println("--- 第 " + round + " 轮 ---");
+
+                long start = System.nanoTime();
+                AddImageExample.createCatalog(dest, images, preparer, 0, 1);
+                BenchmarkSupport.report("serial decode", count, System.nanoTime() - start,
+                        new File(dest).length(), "images");
+
+                start = System.nanoTime();
+                AddImageExample.createCatalog(dest, images, preparer, workers, workers * 2);
+                BenchmarkSupport.report("async decode x" + workers, count, System.nanoTime() - start,
+                        new File(dest).length(), "images");
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图片目录（异步解码）测试
+ */
+public class ImageCatalogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String outputDir;
+
+    @BeforeEach
+    void setUp() {
+        outputDir = tempDir.toString() + File.separator;
+    }
+
+    @Test
+    void testPipelinedCatalogKeepsInputOrder() throws IOException {
+        List<String> images = createImages(12);
+        String serial = outputDir + "serial.pdf";
+        String pipelined = outputDir + "pipelined.pdf";
+
+        assertEquals(12, AddImageExample.createCatalog(serial, images, new ImagePreparer(), 0, 1));
+        assertEquals(12, AddImageExample.createCatalog(pipelined, images, new ImagePreparer(), 4, 3));
+
+        String text = documentText(pipelined);
+        assertEquals(documentText(serial), text, "异步解码不应改变图片顺序");
+        int previous = -1;
+        for (int i = 0; i < images.size(); i++) {
+            int position = text.indexOf((i + 1) + ". image" + i + ".jpg");
+            assertTrue(position > previous, "第 " + (i + 1) + " 张图片顺序不正确");
+            previous = position;
+        }
+        assertEquals(new File(serial).length(), new File(pipelined).length(), "两种方式的输出应该相同");
+    }
+
+    @Test
+    void testBrokenImageIsSkipped() throws IOException {
+        List<String> images = createImages(3);
+        images.add(1, outputDir + "missing.jpg");
+        String dest = outputDir + "catalog.pdf";
+
+        int added = AddImageExample.createCatalog(dest, images, null, 2, 2);
+
+        assertEquals(3, added, "无法读取的图片应该被跳过");
+        String text = documentText(dest);
+        assertTrue(text.contains("1. image0.jpg"));
+        assertTrue(text.contains("3. image1.jpg"), "后面的图片应该继续添加");
+        assertFalse(text.contains("missing.jpg"));
+    }
+
+    @Test
+    void testRepeatedImageIsEmbeddedOnce() throws IOException {
+        List<String> images = createImages(1);
+        for (int i = 0; i < 3; i++) {
+            images.add(images.get(0));
+        }
+        String dest = outputDir + "repeated.pdf";
+
+        assertEquals(4, AddImageExample.createCatalog(dest, images, null, 2, 4));
+        assertEquals(1, countImages(dest), "同一张图片在文档中应该只嵌入一次");
+    }
+
+    @Test
+    void testInvalidLookaheadRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> AddImageExample.createCatalog(outputDir + "x.pdf", new ArrayList<>(), null, 1, 0));
+    }
+
+    private List<String> createImages(int count) throws IOException {
+        List<String> images = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String image = outputDir + "image" + i + ".jpg";
+            BenchmarkSupport.createSampleImage(image, 800 + i * 10, 600, i);
+            images.add(image);
+        }
+        return images;
+    }
+
+    private static int countImages(String path) throws IOException {
+        int images = 0;
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(path))) {
+            for (int i = 1; i < pdf.getNumberOfPdfObjects(); i++) {
+                PdfObject object = pdf.getPdfObject(i);
+                if (object instanceof PdfStream && PdfName.Image.equals(((PdfStream) object).getAsName(PdfName.Subtype))) {
+                    images++;
+                }
+            }
+        }
+        return images;
+    }
+
+    private static String documentText(String path) throws IOException {
+        PdfDocument pdf = new PdfDocument(new PdfReader(path));
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= pdf.getNumberOfPages(); i++) {
+            text.append(PdfTextExtractor.getTextFromPage(pdf.getPage(i))).append('\n');
+        }
+        pdf.close();
+        return text.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import com.open.capacity.itextpdfdemo.bench.HeapSampler;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+/**
+ * 图片预处理基准测试
+ * 对一组大尺寸照片分别直接嵌入和预处理后嵌入，比较输出大小、耗时、分配字节数和存活堆峰值
+ * 参数: [图片数，默认20] [宽，默认4000] [高，默认3000]
+ */
+public class ImagePreparationBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 4000;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : 3000;
+
+        Path workDir = BenchmarkSupport.createWorkDir("image-prep-bench");
+        try {
+            String[] images = new String[count];
+            long sourceBytes = 0;
+            for (int i = 0; i < count; i++) {
+                images[i] = workDir.resolve("photo" + i + ".jpg").toString();
+                BenchmarkSupport.createSampleImage(images[i], width, height, i);
+                sourceBytes += new File(images[i]).length();
+            }
+            System.out.println("源图片: " + count + " 张 " + width + "x" + height + ", " + sourceBytes + " bytes");
+
+            ImagePreparer preparer = new ImagePreparer();
+            for (int round = 1; round <= 2; round++) {
+                System.out.println("--- 第 " + round + " 轮 ---");
+                run("original", images, workDir, null);
+                run("prepared 150dpi", images, workDir, preparer);
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+
+    private static void run(String name, String[] images, Path workDir, ImagePreparer preparer) throws Exception {
+        long bytes = 0;
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        HeapSampler sampler = new HeapSampler(20);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < images.length; i++) {
+                String dest = workDir.resolve("out" + i + ".pdf").toString();
+                if (preparer == null) {
+                    AddImageExample.create(dest, images[i]);
+                } else {
+                    AddImageExample.create(dest, images[i], preparer);
+                }
+                bytes += new File(dest).length();
+            }
+        } finally {
+            sampler.close();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+        BenchmarkSupport.report(name, images.length, elapsed, bytes, "docs");
+        System.out.printf("%-28s %12d bytes allocated, peak live heap %d bytes%n", name, allocated, sampler.getPeak());
+    }
+}
@@ -0,0 +1,120 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageType;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图片预处理测试
+ */
+public class ImagePreparerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String outputDir;
+
+    @BeforeEach
+    void setUp() {
+        outputDir = tempDir.toString() + File.separator;
+    }
+
+    @Test
+    void testLargeImageResampledToTargetDpi() throws IOException {
+        String photo = outputDir + "photo.jpg";
+        BenchmarkSupport.createSampleImage(photo, 4000, 3000, 1);
+
+        ImageData prepared = new ImagePreparer().setTargetDpi(150).prepare(photo, 300, 300);
+
+        // 4000x3000放入300x300点的区域后为300x225点，150 DPI下为625x469像素
+        assertEquals(625, prepared.getWidth(), 1);
+        assertEquals(469, prepared.getHeight(), 1);
+        assertEquals(ImageType.JPEG, prepared.getOriginalType());
+        assertFalse(ImageCache.getDefault().isShared(prepared), "重新采样的图片不和其他调用方共享");
+    }
+
+    @Test
+    void testSmallImageIsUsedAsIs() throws IOException {
+        String thumbnail = outputDir + "thumbnail.jpg";
+        BenchmarkSupport.createSampleImage(thumbnail, 400, 300, 2);
+
+        ImageData prepared = new ImagePreparer().prepare(thumbnail, 300, 300);
+
+        assertSame(ImageCache.getDefault().get(thumbnail), prepared, "足够小的图片应该直接使用原图");
+        assertTrue(ImageCache.getDefault().isShared(prepared), "原图应该通过缓存嵌入");
+    }
+
+    @Test
+    void testUndecodableImageFallsBackToOriginal() throws IOException {
+        // 图片头完整但压缩数据损坏：ImageIO解码失败，iText仍然可以把数据按原样嵌入
+        String broken = outputDir + "broken.png";
+        BenchmarkSupport.createSampleImage(broken, 2000, 1500, 5);
+        byte[] png = Files.readAllBytes(Paths.get(broken));
+        corruptImageData(png);
+        Files.write(Paths.get(broken), png);
+
+        ImageData prepared = new ImagePreparer().prepare(broken, 100, 100);
+
+        assertSame(ImageCache.getDefault().get(broken), prepared, "无法解码的图片应该直接使用原图");
+        assertEquals(2000, prepared.getWidth(), 0);
+    }
+
+    /**
+     * 把第一个IDAT块中zlib头之后的数据全部改为0xFF，并更新块的CRC
+     */
+    private static void corruptImageData(byte[] png) {
+        int pos = 8;
+        while (pos < png.length) {
+            int length = ByteBuffer.wrap(png, pos, 4).getInt();
+            if (new String(png, pos + 4, 4, StandardCharsets.ISO_8859_1).equals("IDAT")) {
+                Arrays.fill(png, pos + 10, pos + 8 + length, (byte) 0xFF);
+                CRC32 crc = new CRC32();
+                crc.update(png, pos + 4, length + 4);
+                ByteBuffer.wrap(png, pos + 8 + length, 4).putInt((int) crc.getValue());
+                return;
+            }
+            pos += 12 + length;
+        }
+        fail("PNG中没有IDAT块");
+    }
+
+    @Test
+    void testFlateEncodingKeepsLosslessFormat() throws IOException {
+        String chart = outputDir + "chart.png";
+        BenchmarkSupport.createSampleImage(chart, 2000, 2000, 3);
+
+        ImageData prepared = new ImagePreparer().setEncoding(ImagePreparer.Encoding.FLATE).prepare(chart, 100, 100);
+
+        assertEquals(ImageType.PNG, prepared.getOriginalType());
+        assertEquals(208, prepared.getWidth(), 1);
+    }
+
+    @Test
+    void testPreparedDocumentIsSmaller() throws IOException {
+        String photo = outputDir + "photo.jpg";
+        String original = outputDir + "original.pdf";
+        String prepared = outputDir + "prepared.pdf";
+        BenchmarkSupport.createSampleImage(photo, 4000, 3000, 4);
+
+        AddImageExample.create(original, photo);
+        AddImageExample.create(prepared, photo, new ImagePreparer());
+
+        assertTrue(new File(prepared).length() * 4 < new File(original).length(),
+                "预处理后的文档应该明显更小: " + new File(prepared).length() + " / " + new File(original).length());
+    }
+}
@@ -0,0 +1,117 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.open.capacity.itextpdfdemo.bench.HeapSampler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 大表格流式生成测试
+ */
+public class LargeTableTest {
+
+    private static final String[] HEADERS = {"ID", "名称", "数量"};
+
+    @TempDir
+    Path tempDir;
+
+    private String outputDir;
+
+    @BeforeEach
+    void setUp() {
+        outputDir = tempDir.toString() + File.separator;
+    }
+
+    @Test
+    void testHeadersRepeatOnEveryPage() throws IOException {
+        String dest = outputDir + "ledger.pdf";
+
+        long written = AddTableExample.createStreaming(dest, new String[]{"ID", "Name", "Amount"},
+                rows(500).spliterator(), 100);
+
+        assertEquals(500, written);
+        PdfDocument pdf = new PdfDocument(new PdfReader(dest));
+        assertTrue(pdf.getNumberOfPages() > 1, "500行应该跨多页");
+        for (int i = 1; i <= pdf.getNumberOfPages(); i++) {
+            assertTrue(PdfTextExtractor.getTextFromPage(pdf.getPage(i)).startsWith("ID Name Amount"),
+                    "第 " + i + " 页应该重复表头");
+        }
+        assertTrue(PdfTextExtractor.getTextFromPage(pdf.getPage(pdf.getNumberOfPages())).contains("500 "),
+                "最后一页应该包含最后一行");
+        pdf.close();
+    }
+
+    @Test
+    void testPeakHeapStaysBoundedAsRowsGrow() throws Exception {
+        // 预热
+        AddTableExample.createStreaming(outputDir + "warmup.pdf", HEADERS, rows(2000).iterator(), 500);
+
+        long fewPeak = measurePeak(5000, outputDir + "few.pdf");
+        long manyPeak = measurePeak(20000, outputDir + "many.pdf");
+
+        // 行数是4倍，峰值堆内存应该基本不变（允许4MB的采样误差）
+        assertTrue(manyPeak < fewPeak + 4L * 1024 * 1024,
+                "峰值堆内存不应随行数增长: " + fewPeak + " -> " + manyPeak);
+    }
+
+    @Test
+    void testRowWithWrongLengthRejected() {
+        List<String[]> rows = Arrays.asList(
+                new String[]{"1", "产品1", "10"},
+                new String[]{"2", "产品2", "20"},
+                new String[]{"3", "产品3"});
+
+        IllegalArgumentException streaming = assertThrows(IllegalArgumentException.class,
+                () -> AddTableExample.createStreaming(new ByteArrayOutputStream(), HEADERS, rows.iterator(), 1, null));
+        assertTrue(streaming.getMessage().contains("row 3"), streaming.getMessage());
+
+        IllegalArgumentException buffered = assertThrows(IllegalArgumentException.class,
+                () -> AddTableExample.create(new ByteArrayOutputStream(), HEADERS, rows.iterator(), null));
+        assertTrue(buffered.getMessage().contains("row 3"), buffered.getMessage());
+    }
+
+    private long measurePeak(int rowCount, String dest) throws Exception {
+        HeapSampler sampler = new HeapSampler(100);
+        try {
+            AddTableExample.createStreaming(dest, HEADERS, rows(rowCount).iterator(), 500);
+        } finally {
+            sampler.close();
+        }
+        return sampler.getPeak();
+    }
+
+    /**
+     * 模拟数据库游标，按需生成行数据
+     */
+    private static Iterable<String[]> rows(int count) {
+        return () -> {
+            Iterator<Integer> ids = IntStream.rangeClosed(1, count).iterator();
+            return new Iterator<String[]>() {
+                @Override
+                public boolean hasNext() {
+                    return ids.hasNext();
+                }
+
+                @Override
+                public String[] next() {
+                    int id = ids.next();
+                    return new String[]{String.valueOf(id), "产品" + id, String.valueOf(id * 10)};
+                }
+            };
+        };
+    }
+}
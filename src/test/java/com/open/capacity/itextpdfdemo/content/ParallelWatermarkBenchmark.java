@@ -0,0 +1,50 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * 并行水印引擎扩展性基准测试
+ * 并行度从1逐个递增到CPU核数，带页码的逐页水印
+ * 参数: [页数，默认5000] [最大并行度，默认CPU核数]
+ */
+public class ParallelWatermarkBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int maxParallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        Path workDir = BenchmarkSupport.createWorkDir("parallel-watermark-bench");
+        try {
+            String src = workDir.resolve("source.pdf").toString();
+            BenchmarkSupport.createSamplePdf(src, pages);
+            String dest = workDir.resolve("watermarked.pdf").toString();
+
+            // 预热
+            new ParallelWatermarkEngine(maxParallelism, 0, i -> "机密 " + i).add(src, dest);
+
+            long start = System.nanoTime();
+            AddWatermarkExample.add(src, dest);
+            BenchmarkSupport.report("serial add", pages, System.nanoTime() - start,
+                    new File(dest).length(), "pages");
+
+            long baseline = 0;
+            for (int parallelism = 1; parallelism <= maxParallelism; parallelism++) {
+                ParallelWatermarkEngine engine = new ParallelWatermarkEngine(parallelism, 0, i -> "机密 " + i);
+                start = System.nanoTime();
+                engine.add(src, dest);
+                long elapsed = System.nanoTime() - start;
+                if (parallelism == 1) {
+                    baseline = elapsed;
+                }
+                BenchmarkSupport.report("parallel x" + parallelism, pages, elapsed,
+                        new File(dest).length(), "pages");
+                System.out.printf("%-28s %10.2fx%n", "  speedup vs x1", (double) baseline / elapsed);
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+}
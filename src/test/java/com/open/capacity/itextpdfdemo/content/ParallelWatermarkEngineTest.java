@@ -0,0 +1,118 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfOutline;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.kernel.pdf.navigation.PdfExplicitDestination;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import com.open.capacity.itextpdfdemo.io.PdfInputs;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 并行水印引擎测试
+ */
+public class ParallelWatermarkEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String outputDir;
+
+    @BeforeEach
+    void setUp() {
+        outputDir = tempDir.toString() + File.separator;
+    }
+
+    @Test
+    void testPageOrderAndOutlinesArePreserved() throws IOException {
+        String plain = outputDir + "plain.pdf";
+        String src = outputDir + "source.pdf";
+        String dest = outputDir + "parallel.pdf";
+        BenchmarkSupport.createSamplePdf(plain, 23);
+
+        // 给源文件添加指向第17页的书签
+        PdfDocument withOutline = new PdfDocument(new PdfReader(plain), new PdfWriter(src));
+        withOutline.getOutlines(false)
+                .addOutline("第17页")
+                .addDestination(PdfExplicitDestination.createFit(withOutline.getPage(17)));
+        withOutline.close();
+
+        new ParallelWatermarkEngine(3, 4, pageNumber -> "WM-" + pageNumber).add(src, dest);
+
+        PdfDocument pdf = new PdfDocument(new PdfReader(dest));
+        assertEquals(23, pdf.getNumberOfPages(), "页数应该保持不变");
+        for (int i = 1; i <= pdf.getNumberOfPages(); i++) {
+            String text = PdfTextExtractor.getTextFromPage(pdf.getPage(i));
+            assertTrue(text.contains("Page " + i), "第 " + i + " 页的原内容应该保持页序");
+            assertTrue(text.contains("WM-" + i), "第 " + i + " 页应该包含对应页码的水印");
+        }
+
+        PdfOutline outline = pdf.getOutlines(false).getAllChildren().get(0);
+        assertEquals("第17页", outline.getTitle());
+        PdfArray destination = (PdfArray) outline.getDestination().getPdfObject();
+        assertEquals(17, pdf.getPageNumber(destination.getAsDictionary(0)), "书签应该仍然指向第17页");
+        pdf.close();
+    }
+
+    @Test
+    void testFailureReleasesSourceAndDeletesOutput() throws IOException {
+        String src = outputDir + "source.pdf";
+        String dest = outputDir + "failed.pdf";
+        BenchmarkSupport.createSamplePdf(src, 12);
+
+        ParallelWatermarkEngine engine = new ParallelWatermarkEngine(2, 3, pageNumber -> {
+            if (pageNumber == 8) {
+                throw new IllegalStateException("第8页的水印出错");
+            }
+            return "WM-" + pageNumber;
+        });
+        // 按需读取时源文件一直通过文件描述符打开，关闭后描述符才会释放
+        PdfInputs.Strategy strategy = PdfInputs.getDefaultStrategy();
+        PdfInputs.setDefaultStrategy(PdfInputs.Strategy.BUFFERED);
+        try {
+            assertThrows(RuntimeException.class, () -> engine.add(src, dest));
+        } finally {
+            PdfInputs.setDefaultStrategy(strategy);
+        }
+
+        assertFalse(new File(dest).exists(), "失败时应该删除不完整的输出");
+        assertEquals(0, openHandles(Paths.get(src)), "失败时应该释放源文件");
+    }
+
+    /**
+     * 当前进程中打开指定文件的文件描述符数，只在有 /proc 的系统（Linux）上可用
+     */
+    private static long openHandles(Path file) throws IOException {
+        Path fds = Paths.get("/proc/self/fd");
+        assumeTrue(Files.isDirectory(fds), "需要 /proc/self/fd");
+        Path target = file.toRealPath();
+        long count = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(fds)) {
+            for (Path fd : entries) {
+                try {
+                    if (target.equals(Files.readSymbolicLink(fd))) {
+                        count++;
+                    }
+                } catch (IOException e) {
+                    // 遍历期间关闭的描述符
+                }
+            }
+        }
+        return count;
+    }
+}
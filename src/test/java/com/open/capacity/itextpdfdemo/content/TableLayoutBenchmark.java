@@ -0,0 +1,79 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 表格布局性能基准测试
+ * 对比自动布局和固定布局（一次性生成）以及固定列宽的大表格模式的行/秒
+ * 参数: [行数列表，默认10000,100000] [轮数，默认2]
+ */
+public class TableLayoutBenchmark {
+
+    private static final String[] HEADERS = {"编号", "客户名称", "商品描述", "数量", "金额"};
+
+    private static final FixedTableLayout LAYOUT = FixedTableLayout.ofPercents(10, 20, 40, 12, 18);
+
+    public static void main(String[] args) throws Exception {
+        String[] sizes = (args.length > 0 ? args[0] : "10000,100000").split(",");
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+        Path workDir = BenchmarkSupport.createWorkDir("table-bench");
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                System.out.println("--- 第 " + round + " 轮 ---");
+                for (String size : sizes) {
+                    int rowCount = Integer.parseInt(size.trim());
+
+                    String auto = workDir.resolve("auto.pdf").toString();
+                    long start = System.nanoTime();
+                    AddTableExample.create(auto, HEADERS, rows(rowCount), null);
+                    BenchmarkSupport.report("auto " + rowCount, rowCount, System.nanoTime() - start,
+                            new File(auto).length(), "rows");
+
+                    String fixed = workDir.resolve("fixed.pdf").toString();
+                    start = System.nanoTime();
+                    AddTableExample.create(fixed, HEADERS, rows(rowCount), LAYOUT);
+                    BenchmarkSupport.report("fixed " + rowCount, rowCount, System.nanoTime() - start,
+                            new File(fixed).length(), "rows");
+
+                    String streaming = workDir.resolve("streaming.pdf").toString();
+                    start = System.nanoTime();
+                    AddTableExample.createStreaming(streaming, HEADERS, rows(rowCount), 1000, LAYOUT);
+                    BenchmarkSupport.report("fixed streaming " + rowCount, rowCount, System.nanoTime() - start,
+                            new File(streaming).length(), "rows");
+                }
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * 生成含中文的宽行数据
+     */
+    private static Iterator<String[]> rows(int count) {
+        return new Iterator<String[]>() {
+            private int id;
+
+            @Override
+            public boolean hasNext() {
+                return id < count;
+            }
+
+            @Override
+            public String[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                id++;
+                return new String[]{String.valueOf(id), "客户" + (id % 997), "商品描述 item " + id + " 规格型号 A-" + (id % 31),
+                        String.valueOf(id % 50 + 1), String.format("%.2f", id * 1.37)};
+            }
+        };
+    }
+}
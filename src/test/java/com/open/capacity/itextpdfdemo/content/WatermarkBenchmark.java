@@ -0,0 +1,54 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * 水印性能基准测试
+ * 对比逐页排版、共享XObject（完整改写）和增量更新三种方式的页/秒和写出字节数
+ * 参数: [页数，默认2000] [轮数，默认3]
+ */
+public class WatermarkBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int pages = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        Path workDir = BenchmarkSupport.createWorkDir("watermark-bench");
+        try {
+            String src = workDir.resolve("source.pdf").toString();
+            BenchmarkSupport.createSamplePdf(src, pages);
+            System.out.println("源文件: " + pages + " 页, " + new File(src).length() + " bytes");
+
+            for (int round = 1; round <= rounds; round++) {
+                System.out.println("--- 第 " + round + " 轮 ---");
+
+                String perPage = workDir.resolve("per_page.pdf").toString();
+                long start = System.nanoTime();
+                AddWatermarkExample.add(src, perPage);
+                BenchmarkSupport.report("per-page layout", pages, System.nanoTime() - start,
+                        new File(perPage).length(), "pages");
+
+                String shared = workDir.resolve("shared.pdf").toString();
+                start = System.nanoTime();
+                AddWatermarkExample.addShared(src, shared);
+                BenchmarkSupport.report("shared xobject", pages, System.nanoTime() - start,
+                        new File(shared).length(), "pages");
+
+                // 增量更新只写出追加的部分，再加上原样复制的源文件字节
+                String incremental = workDir.resolve("incremental.pdf").toString();
+                start = System.nanoTime();
+                AddWatermarkExample.addIncremental(src, incremental);
+                long elapsed = System.nanoTime() - start;
+                long appended = new File(incremental).length() - new File(src).length();
+                BenchmarkSupport.report("incremental (total)", pages, elapsed,
+                        new File(incremental).length(), "pages");
+                System.out.printf("%-28s %12d bytes%n", "incremental (appended)", appended);
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+}
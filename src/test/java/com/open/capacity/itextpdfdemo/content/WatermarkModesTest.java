@@ -0,0 +1,100 @@
+package com.open.capacity.itextpdfdemo.content;
+
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 水印各种添加方式的测试
+ */
+public class WatermarkModesTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String outputDir;
+
+    @BeforeEach
+    void setUp() {
+        outputDir = tempDir.toString() + File.separator;
+    }
+
+    @Test
+    void testSharedXObjectWatermark() throws IOException {
+        String src = outputDir + "source.pdf";
+        String dest = outputDir + "shared.pdf";
+        BenchmarkSupport.createSamplePdf(src, 5);
+
+        AddWatermarkExample.addShared(src, dest);
+
+        PdfDocument pdf = new PdfDocument(new PdfReader(dest));
+        assertEquals(5, pdf.getNumberOfPages(), "页数应该保持不变");
+
+        // 所有同尺寸页面应该引用同一个水印XObject
+        PdfObject first = null;
+        for (int i = 1; i <= pdf.getNumberOfPages(); i++) {
+            PdfDictionary xObjects = pdf.getPage(i).getResources().getResource(PdfName.XObject);
+            assertNotNull(xObjects, "第 " + i + " 页应该包含XObject资源");
+            assertEquals(1, xObjects.size());
+            PdfObject watermark = xObjects.get(xObjects.keySet().iterator().next(), false);
+            if (first == null) {
+                first = watermark;
+            } else {
+                assertEquals(first, watermark, "所有页面应该复用同一个水印XObject");
+            }
+        }
+        pdf.close();
+    }
+
+    @Test
+    void testSharedWatermarkIsSmallerThanPerPageLayout() throws IOException {
+        String src = outputDir + "source.pdf";
+        String perPage = outputDir + "per_page.pdf";
+        String shared = outputDir + "shared.pdf";
+        BenchmarkSupport.createSamplePdf(src, 50);
+
+        AddWatermarkExample.add(src, perPage);
+        AddWatermarkExample.addShared(src, shared);
+
+        assertTrue(new File(shared).length() < new File(perPage).length(),
+                "共享XObject方式的输出应该小于逐页排版方式");
+    }
+
+    @Test
+    void testIncrementalWatermarkKeepsOriginalBytes() throws IOException {
+        String src = outputDir + "source.pdf";
+        String dest = outputDir + "incremental.pdf";
+        BenchmarkSupport.createSamplePdf(src, 5);
+
+        AddWatermarkExample.addIncremental(src, dest);
+
+        // 追加模式下原文件内容应该原样保留在输出文件开头
+        byte[] original = Files.readAllBytes(Paths.get(src));
+        byte[] result = Files.readAllBytes(Paths.get(dest));
+        assertTrue(result.length > original.length, "追加模式应该在原文件之后写入增量更新");
+        assertArrayEquals(original, Arrays.copyOf(result, original.length), "原文件字节不应该被改写");
+
+        PdfDocument pdf = new PdfDocument(new PdfReader(dest));
+        assertEquals(5, pdf.getNumberOfPages(), "页数应该保持不变");
+        for (int i = 1; i <= pdf.getNumberOfPages(); i++) {
+            assertNotNull(pdf.getPage(i).getResources().getResource(PdfName.XObject),
+                    "第 " + i + " 页应该包含水印XObject");
+        }
+        pdf.close();
+    }
+}
@@ -0,0 +1,112 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.open.capacity.itextpdfdemo.advanced.SvgToPdfExample;
+import com.open.capacity.itextpdfdemo.basic.CreateHelloPdf;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import com.open.capacity.itextpdfdemo.content.AddImageExample;
+import com.open.capacity.itextpdfdemo.content.AddTableExample;
+import com.open.capacity.itextpdfdemo.content.AddWatermarkExample;
+import com.open.capacity.itextpdfdemo.page.MergePdfsExample;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 压缩配置基准测试
+ * 对每种文档类型和每个压缩配置生成若干次文档，报告输出字节数、每个文档的平均耗时和CPU时间。
+ * 复制已有页面的操作（合并、水印）按原样写出已压缩的流，只有对象流和交叉引用流影响大小
+ * 参数: [每种组合的次数，默认20] [轮数，默认2]
+ */
+public class CompressionBenchmark {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final String[] HEADERS = {"ID", "Name", "Price"};
+
+    private static final PrintStream DISCARD = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+    });
+
+    private interface Operation {
+        void write(String dest) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+        PrintStream stdout = System.out;
+        Path workDir = BenchmarkSupport.createWorkDir("compression-bench");
+        try {
+            String image = workDir.resolve("photo.png").toString();
+            BenchmarkSupport.createSampleImage(image, 1600, 1200, 7);
+            String svg = workDir.resolve("icon.svg").toString();
+            Files.write(workDir.resolve("icon.svg"), createSvg().getBytes(StandardCharsets.UTF_8));
+            String[] sources = new String[3];
+            for (int i = 0; i < sources.length; i++) {
+                sources[i] = workDir.resolve("source" + i + ".pdf").toString();
+                BenchmarkSupport.createSamplePdf(sources[i], 20, "Source " + i);
+            }
+
+            Map<String, Operation> documents = new LinkedHashMap<>();
+            documents.put("hello", CreateHelloPdf::create);
+            documents.put("table 5000 rows", dest -> AddTableExample.createStreaming(dest, HEADERS,
+                    IntStream.rangeClosed(1, 5000).mapToObj(i -> new String[]{String.valueOf(i), "Item " + i,
+                            String.valueOf(i * 10)}).iterator(), 500));
+            documents.put("image", dest -> AddImageExample.create(dest, image));
+            documents.put("svg", dest -> SvgToPdfExample.create(dest, svg));
+            documents.put("merge 3x20 pages", dest -> MergePdfsExample.merge(sources, dest));
+            documents.put("watermark 20 pages", dest -> AddWatermarkExample.add(sources[0], dest));
+
+            String dest = workDir.resolve("out.pdf").toString();
+            for (int round = 1; round <= rounds; round++) {
+                stdout.println("--- 第 " + round + " 轮 ---");
+                for (Map.Entry<String, Operation> document : documents.entrySet()) {
+                    for (CompressionProfile profile : CompressionProfile.values()) {
+                        PdfOutputs.setDefaultProfile(profile);
+                        // 示例方法会打印每个文件的路径，测试期间关闭标准输出
+                        System.setOut(DISCARD);
+                        // 先不计时地生成一次，再回收之前的垃圾，避免JIT预热和GC落到排在前面的配置上
+                        document.getValue().write(dest);
+                        System.gc();
+                        long cpuBefore = THREADS.getCurrentThreadCpuTime();
+                        long start = System.nanoTime();
+                        for (int i = 0; i < iterations; i++) {
+                            document.getValue().write(dest);
+                        }
+                        long elapsed = System.nanoTime() - start;
+                        long cpu = THREADS.getCurrentThreadCpuTime() - cpuBefore;
+                        System.setOut(stdout);
+                        stdout.printf("%-20s %-9s %10d bytes %9.2f ms/doc %9.2f ms cpu/doc%n", document.getKey(),
+                                profile, Files.size(workDir.resolve("out.pdf")), elapsed / 1e6 / iterations,
+                                cpu / 1e6 / iterations);
+                    }
+                }
+            }
+        } finally {
+            System.setOut(stdout);
+            PdfOutputs.setDefaultProfile(CompressionProfile.DEFAULT);
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+
+    private static String createSvg() {
+        StringBuilder svg = new StringBuilder("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"400\" height=\"400\">");
+        for (int i = 0; i < 300; i++) {
+            svg.append("<path d=\"M").append(i).append(' ').append(400 - i)
+                    .append(" C 10 10, 200 ").append(i).append(", 380 380 Z\" fill=\"#")
+                    .append(String.format("%06x", i * 0x050301 & 0xFFFFFF)).append("\" stroke=\"black\"/>");
+        }
+        return svg.append("</svg>").toString();
+    }
+}
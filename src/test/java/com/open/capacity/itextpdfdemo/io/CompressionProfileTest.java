@@ -0,0 +1,112 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.open.capacity.itextpdfdemo.basic.CreateHelloPdf;
+import com.open.capacity.itextpdfdemo.content.AddTableExample;
+import com.open.capacity.itextpdfdemo.content.AddWatermarkExample;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 压缩配置测试
+ */
+public class CompressionProfileTest {
+
+    private static final String[] HEADERS = {"ID", "Name", "Price"};
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void resetProfile() {
+        PdfOutputs.setDefaultProfile(CompressionProfile.DEFAULT);
+    }
+
+    @Test
+    void testSmallestUsesObjectStreams() throws IOException {
+        byte[] fast = table(CompressionProfile.FAST);
+        byte[] smallest = table(CompressionProfile.SMALLEST);
+
+        assertTrue(smallest.length < fast.length, "SMALLEST " + smallest.length + " >= FAST " + fast.length);
+        assertTrue(contains(smallest, "/ObjStm"));
+        assertFalse(contains(fast, "/ObjStm"));
+        try (PdfReader reader = new PdfReader(new ByteArrayInputStream(smallest));
+             PdfDocument pdf = new PdfDocument(reader)) {
+            assertTrue(reader.hasXrefStm());
+            assertTrue(PdfTextExtractor.getTextFromPage(pdf.getPage(1)).contains("Item 1"));
+        }
+        try (PdfReader reader = new PdfReader(new ByteArrayInputStream(fast));
+             PdfDocument pdf = new PdfDocument(reader)) {
+            assertFalse(reader.hasXrefStm());
+            assertTrue(PdfTextExtractor.getTextFromPage(pdf.getPage(1)).contains("Item 1"));
+        }
+    }
+
+    @Test
+    void testDefaultProfileAppliesToExamples() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CreateHelloPdf.create(out);
+        assertFalse(contains(out.toByteArray(), "/ObjStm"));
+
+        PdfOutputs.setDefaultProfile(CompressionProfile.SMALLEST);
+        out.reset();
+        CreateHelloPdf.create(out);
+        assertTrue(contains(out.toByteArray(), "/ObjStm"));
+    }
+
+    @Test
+    void testIncrementalUpdateWithSmallestProfile() throws IOException {
+        String src = tempDir.resolve("hello.pdf").toString();
+        String dest = tempDir.resolve("stamped.pdf").toString();
+        CreateHelloPdf.create(src);
+
+        // 原文件使用交叉引用表，追加的部分使用交叉引用流
+        PdfOutputs.setDefaultProfile(CompressionProfile.SMALLEST);
+        AddWatermarkExample.addIncremental(src, dest);
+
+        byte[] original = Files.readAllBytes(tempDir.resolve("hello.pdf"));
+        byte[] stamped = Files.readAllBytes(tempDir.resolve("stamped.pdf"));
+        assertTrue(stamped.length > original.length);
+        for (int i = 0; i < original.length; i++) {
+            assertEquals(original[i], stamped[i], "原文件内容在第 " + i + " 字节被修改");
+        }
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(dest))) {
+            assertEquals(1, pdf.getNumberOfPages());
+        }
+    }
+
+    @Test
+    void testWriterPropertiesAreNotShared() {
+        assertNotSame(CompressionProfile.SMALLEST.toWriterProperties(),
+                CompressionProfile.SMALLEST.toWriterProperties());
+        assertEquals(1, CompressionProfile.FAST.getCompressionLevel());
+        assertEquals(9, CompressionProfile.SMALLEST.getCompressionLevel());
+        assertTrue(CompressionProfile.SMALLEST.isFullCompression());
+    }
+
+    private static byte[] table(CompressionProfile profile) {
+        PdfOutputs.setDefaultProfile(profile);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AddTableExample.createStreaming(out, HEADERS, IntStream.rangeClosed(1, 2000)
+                .mapToObj(i -> new String[]{String.valueOf(i), "Item " + i, String.valueOf(i * 10)})
+                .iterator(), 200, null);
+        return out.toByteArray();
+    }
+
+    private static boolean contains(byte[] pdf, String token) {
+        return new String(pdf, StandardCharsets.ISO_8859_1).contains(token);
+    }
+}
@@ -0,0 +1,63 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+/**
+ * 输入读取策略基准测试
+ * 对一个大文件和一批小文件，分别用各种策略打开并读取所有页面内容，
+ * 报告耗时和当前线程在堆上分配的字节数
+ * 参数: [大文件页数，默认20000] [小文件个数，默认500] [轮数，默认3]
+ */
+public class InputStrategyBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int largePages = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int smallCount = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        Path workDir = BenchmarkSupport.createWorkDir("input-bench");
+        try {
+            String large = workDir.resolve("large.pdf").toString();
+            BenchmarkSupport.createSamplePdf(large, largePages);
+            String[] small = new String[smallCount];
+            for (int i = 0; i < smallCount; i++) {
+                small[i] = workDir.resolve("small" + i + ".pdf").toString();
+                BenchmarkSupport.createSamplePdf(small[i], 2);
+            }
+            System.out.println("大文件: " + new File(large).length() + " bytes");
+
+            for (int round = 1; round <= rounds; round++) {
+                System.out.println("--- 第 " + round + " 轮 ---");
+                for (PdfInputs.Strategy strategy : PdfInputs.Strategy.values()) {
+                    measure("large " + strategy, new String[]{large}, strategy);
+                    measure("small " + strategy, small, strategy);
+                }
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+
+    private static void measure(String name, String[] files, PdfInputs.Strategy strategy) throws Exception {
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long start = System.nanoTime();
+        for (String file : files) {
+            PdfDocument pdf = new PdfDocument(PdfInputs.open(file, strategy));
+            for (int i = 1; i <= pdf.getNumberOfPages(); i++) {
+                pdf.getPage(i).getContentBytes();
+            }
+            pdf.close();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+        BenchmarkSupport.report(name, files.length, elapsed, allocated, "files");
+    }
+}
@@ -0,0 +1,119 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.open.capacity.itextpdfdemo.basic.CreateHelloPdf;
+import com.open.capacity.itextpdfdemo.batch.LatencyRecorder;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import com.open.capacity.itextpdfdemo.content.AddTableExample;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 输出目标基准测试
+ * 模拟Web层返回小文档：写入临时文件再读回、写入新的ByteArrayOutputStream、写入缓冲池中的缓冲区，
+ * 最后都把内容写到响应流。报告文档/秒、每个文档在堆上分配的字节数和延迟分位数
+ * 参数: [文档数，默认5000] [轮数，默认3]
+ */
+public class OutputTargetBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * 丢弃写入内容的响应流
+     */
+    private static final OutputStream RESPONSE = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private interface Generator {
+        void write(OutputStream out) throws Exception;
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        // 文件输出的示例方法会打印每个文件的路径，测试期间关闭标准输出
+        PrintStream stdout = System.out;
+        Path workDir = BenchmarkSupport.createWorkDir("output-bench");
+        try {
+            String dest = workDir.resolve("response.pdf").toString();
+            for (int round = 1; round <= rounds; round++) {
+                stdout.println("--- 第 " + round + " 轮 ---");
+                System.setOut(new PrintStream(RESPONSE));
+                String[] lines = {
+                        measure("hello temp file", documents, () -> {
+                            CreateHelloPdf.create(dest);
+                            RESPONSE.write(Files.readAllBytes(workDir.resolve("response.pdf")));
+                        }),
+                        measure("hello new byte array", documents, () -> {
+                            ByteArrayOutputStream out = new ByteArrayOutputStream();
+                            CreateHelloPdf.create(out);
+                            out.writeTo(RESPONSE);
+                        }),
+                        measure("hello pooled buffer", documents, pooled(CreateHelloPdf::create)),
+                        measure("table temp file", documents, () -> {
+                            AddTableExample.create(dest);
+                            RESPONSE.write(Files.readAllBytes(workDir.resolve("response.pdf")));
+                        }),
+                        measure("table new byte array", documents, () -> {
+                            ByteArrayOutputStream out = new ByteArrayOutputStream();
+                            AddTableExample.create(out);
+                            out.writeTo(RESPONSE);
+                        }),
+                        measure("table pooled buffer", documents, pooled(AddTableExample::create))
+                };
+                System.setOut(stdout);
+                for (String line : lines) {
+                    stdout.println(line);
+                }
+            }
+        } finally {
+            System.setOut(stdout);
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+
+    private static Action pooled(Generator generator) {
+        return () -> {
+            PooledBuffer buffer = BufferPool.getDefault().acquire();
+            try {
+                generator.write(buffer);
+                buffer.writeTo(RESPONSE);
+            } finally {
+                buffer.release();
+            }
+        };
+    }
+
+    private static String measure(String name, int documents, Action action) throws Exception {
+        LatencyRecorder latencies = new LatencyRecorder();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long start = System.nanoTime();
+        for (int i = 0; i < documents; i++) {
+            long begin = System.nanoTime();
+            action.run();
+            latencies.record(System.nanoTime() - begin);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+        return String.format("%-22s %8.1f docs/s %9d bytes/doc  p50 %6.3f ms  p99 %6.3f ms", name,
+                documents / (elapsed / 1e9), allocated / documents, latencies.percentile(50) / 1e6,
+                latencies.percentile(99) / 1e6);
+    }
+}
@@ -0,0 +1,147 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import com.open.capacity.itextpdfdemo.content.AddImageExample;
+import com.open.capacity.itextpdfdemo.content.AddTableExample;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * 并行压缩基准测试
+ * 分别用0（串行）和若干个压缩线程生成大表格和图片目录，报告每个文档的耗时和相对串行的加速比。
+ * 图片目录使用带透明通道的PNG，iText会把它解码为未压缩的位图和软蒙版，由写出时压缩。
+ * 同时报告压缩线程消耗的CPU时间，即从写出线程移走的工作量；核心数不足时它只能和写出线程轮流执行。
+ * 参数: [每次测量的文档数，默认3] [压缩线程数列表，默认0,1,2,4]
+ */
+public class ParallelCompressionBenchmark {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final String[] HEADERS = {"ID", "Name", "Price"};
+
+    private interface Workload {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        String[] threadCounts = (args.length > 1 ? args[1] : "0,1,2,4").split(",");
+        System.out.println("CPU核心数: " + Runtime.getRuntime().availableProcessors());
+
+        Path workDir = BenchmarkSupport.createWorkDir("parallel-compression-bench");
+        try {
+            List<String> images = new ArrayList<>();
+            for (int i = 0; i < 24; i++) {
+                String path = workDir.resolve("image" + i + ".png").toString();
+                createTransparentImage(path, 1200, 900, i);
+                images.add(path);
+            }
+
+            Workload table = () -> AddTableExample.createStreaming(new ByteArrayOutputStream(), HEADERS,
+                    IntStream.rangeClosed(1, 10000).mapToObj(i -> new String[]{String.valueOf(i), "Item " + i,
+                            String.valueOf(i * 10)}).iterator(), 500, null);
+            Workload catalog = () -> AddImageExample.createCatalog(new ByteArrayOutputStream(), images, null, 0, 1);
+
+            for (String threads : threadCounts) {
+                PdfOutputs.setCompressionThreads(Integer.parseInt(threads.trim()));
+                // 预热
+                table.run();
+                catalog.run();
+            }
+            double[] serial = new double[2];
+            for (String threads : threadCounts) {
+                int count = Integer.parseInt(threads.trim());
+                PdfOutputs.setCompressionThreads(count);
+                Map<Long, Long> before = workerCpuTimes();
+                double tableMillis = measure(table, documents);
+                long tableWorkerCpu = workerCpuSince(before);
+                before = workerCpuTimes();
+                double catalogMillis = measure(catalog, documents);
+                long catalogWorkerCpu = workerCpuSince(before);
+                if (count == 0) {
+                    serial[0] = tableMillis;
+                    serial[1] = catalogMillis;
+                }
+                System.out.printf("压缩线程 %d: table 10000 rows %8.1f ms/doc %s 压缩线程CPU %6.1f ms/doc"
+                                + "  image catalog 24 %8.1f ms/doc %s 压缩线程CPU %6.1f ms/doc%n",
+                        count, tableMillis, speedup(serial[0], tableMillis), tableWorkerCpu / 1e6 / documents,
+                        catalogMillis, speedup(serial[1], catalogMillis), catalogWorkerCpu / 1e6 / documents);
+            }
+        } finally {
+            PdfOutputs.setCompressionThreads(0);
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+
+    private static double measure(Workload workload, int documents) throws Exception {
+        System.gc();
+        long start = System.nanoTime();
+        for (int i = 0; i < documents; i++) {
+            workload.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / documents;
+    }
+
+    /**
+     * 当前每个压缩线程已经消耗的CPU时间
+     */
+    private static Map<Long, Long> workerCpuTimes() {
+        Map<Long, Long> times = new HashMap<>();
+        for (long id : THREADS.getAllThreadIds()) {
+            ThreadInfo info = THREADS.getThreadInfo(id);
+            long cpu = THREADS.getThreadCpuTime(id);
+            if (info != null && info.getThreadName().startsWith("pdf-compression-") && cpu >= 0) {
+                times.put(id, cpu);
+            }
+        }
+        return times;
+    }
+
+    /**
+     * 压缩线程自 {@code before} 以来消耗的CPU时间，已经结束的线程不计入
+     */
+    private static long workerCpuSince(Map<Long, Long> before) {
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : workerCpuTimes().entrySet()) {
+            total += entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+        }
+        return total;
+    }
+
+    private static String speedup(double serial, double millis) {
+        return serial > 0 ? String.format("(%.2fx)", serial / millis) : "";
+    }
+
+    /**
+     * 渐变背景加半透明色块的ARGB图片
+     */
+    private static void createTransparentImage(String dest, int width, int height, long seed) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(255, 200, 0, 255), width, height, new Color(0, 0, 255, 128)));
+        g.fillRect(0, 0, width, height);
+        Random random = new Random(seed);
+        for (int i = 0; i < 100; i++) {
+            g.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            g.fillOval(random.nextInt(width), random.nextInt(height), width / 8, height / 8);
+        }
+        g.dispose();
+        ImageIO.write(image, "png", new File(dest));
+    }
+}
@@ -0,0 +1,174 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfString;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.AreaBreak;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.layout.element.Paragraph;
+import com.open.capacity.itextpdfdemo.content.AddTableExample;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并行压缩写出测试
+ */
+public class ParallelCompressionWriterTest {
+
+    private static final String[] HEADERS = {"ID", "Name", "Price"};
+
+    @AfterEach
+    void reset() {
+        PdfOutputs.setCompressionThreads(0);
+        PdfOutputs.setDefaultProfile(CompressionProfile.DEFAULT);
+    }
+
+    @Test
+    void testTableOutputMatchesSerialOutput() {
+        byte[] serial = table();
+        PdfOutputs.setCompressionThreads(2);
+        byte[] parallel = table();
+        PdfOutputs.setDefaultProfile(CompressionProfile.SMALLEST);
+        byte[] parallelSmallest = table();
+        PdfOutputs.setCompressionThreads(0);
+        byte[] serialSmallest = table();
+
+        assertArrayEquals(normalize(serial), normalize(parallel));
+        assertArrayEquals(normalize(serialSmallest), normalize(parallelSmallest));
+    }
+
+    @Test
+    void testPagesAndImagesAreCompressedByWorkers() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ByteArrayOutputStream serial = new ByteArrayOutputStream();
+            writeDocument(new PdfWriter(serial, fixedIds()));
+            ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+            ParallelCompressionWriter writer = new ParallelCompressionWriter(parallel, fixedIds(), executor);
+            writeDocument(writer);
+
+            // 除最后一页外，每页的内容流和图片都由线程池压缩
+            assertTrue(writer.getParallelCount() >= 2 * 9, "parallel " + writer.getParallelCount());
+            assertEquals(0, writer.getFallbackCount());
+            assertArrayEquals(normalize(serial.toByteArray()), normalize(parallel.toByteArray()));
+            try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(parallel.toByteArray())))) {
+                assertEquals(10, pdf.getNumberOfPages());
+                assertTrue(PdfTextExtractor.getTextFromPage(pdf.getPage(3)).contains("Page 3"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testChangedStreamFallsBackToSerialCompression() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ByteArrayOutputStream serial = new ByteArrayOutputStream();
+            drawOnPreviousPage(new PdfWriter(serial, fixedIds()));
+            ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+            ParallelCompressionWriter writer = new ParallelCompressionWriter(parallel, fixedIds(), executor);
+            drawOnPreviousPage(writer);
+
+            assertEquals(1, writer.getFallbackCount());
+            assertArrayEquals(normalize(serial.toByteArray()), normalize(parallel.toByteArray()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testShutdownExecutorFallsBackToSerialCompression() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        ByteArrayOutputStream serial = new ByteArrayOutputStream();
+        writeDocument(new PdfWriter(serial, fixedIds()));
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        ParallelCompressionWriter writer = new ParallelCompressionWriter(parallel, fixedIds(), executor);
+        writeDocument(writer);
+
+        assertEquals(0, writer.getParallelCount());
+        assertArrayEquals(normalize(serial.toByteArray()), normalize(parallel.toByteArray()));
+    }
+
+    private static byte[] table() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AddTableExample.createStreaming(out, HEADERS, IntStream.rangeClosed(1, 3000)
+                .mapToObj(i -> new String[]{String.valueOf(i), "Item " + i, String.valueOf(i * 10)})
+                .iterator(), 300, null);
+        return out.toByteArray();
+    }
+
+    /**
+     * 10页，每页一段文字和一张未压缩的位图
+     */
+    private static void writeDocument(PdfWriter writer) throws IOException {
+        BufferedImage image = new BufferedImage(120, 80, BufferedImage.TYPE_INT_RGB);
+        try (Document document = new Document(new PdfDocument(writer))) {
+            for (int i = 1; i <= 10; i++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    image.setRGB(x, i, i * 0x102030);
+                }
+                StringBuilder text = new StringBuilder("Page " + i + ":");
+                for (int j = 0; j < 60; j++) {
+                    text.append(" line ").append(j).append(" of page ").append(i);
+                }
+                document.add(new Paragraph(text.toString()));
+                document.add(new Image(ImageDataFactory.create(image, (Color) null)));
+                if (i < 10) {
+                    document.add(new AreaBreak());
+                }
+            }
+        }
+    }
+
+    /**
+     * 开始第2页后又在第1页上画内容，提交压缩时的内容已经过时
+     */
+    private static void drawOnPreviousPage(PdfWriter writer) {
+        PdfDocument pdf = new PdfDocument(writer);
+        PdfPage first = pdf.addNewPage();
+        PdfCanvas canvas = new PdfCanvas(first);
+        for (int i = 0; i < 200; i++) {
+            canvas.moveTo(i, 0).lineTo(0, i).stroke();
+        }
+        pdf.addNewPage();
+        canvas.rectangle(10, 10, 100, 100).fill();
+        pdf.close();
+    }
+
+    private static WriterProperties fixedIds() {
+        return new WriterProperties()
+                .setInitialDocumentId(new PdfString("initial"))
+                .setModifiedDocumentId(new PdfString("modified"));
+    }
+
+    /**
+     * 去掉每次生成都不同的文档ID和时间
+     */
+    private static byte[] normalize(byte[] pdf) {
+        return new String(pdf, StandardCharsets.ISO_8859_1)
+                .replaceAll("<[0-9a-f]{32}>", "<id>")
+                .replaceAll("D:\\d{14}[^)]*", "D:0")
+                .getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
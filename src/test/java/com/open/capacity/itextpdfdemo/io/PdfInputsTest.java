@@ -0,0 +1,69 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * PDF输入层测试
+ */
+public class PdfInputsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAllStrategiesReadTheSameContent() throws IOException {
+        String src = tempDir.resolve("source.pdf").toString();
+        BenchmarkSupport.createSamplePdf(src, 3);
+
+        for (PdfInputs.Strategy strategy : PdfInputs.Strategy.values()) {
+            PdfDocument pdf = new PdfDocument(PdfInputs.open(src, strategy));
+            assertEquals(3, pdf.getNumberOfPages(), strategy + " 读取的页数不正确");
+            assertTrue(PdfTextExtractor.getTextFromPage(pdf.getPage(3)).contains("Page 3"),
+                    strategy + " 读取的内容不正确");
+            pdf.close();
+        }
+    }
+
+    @Test
+    void testClosingDocumentReleasesFile() throws IOException {
+        String src = tempDir.resolve("source.pdf").toString();
+        BenchmarkSupport.createSamplePdf(src, 1);
+
+        for (PdfInputs.Strategy strategy : new PdfInputs.Strategy[]{PdfInputs.Strategy.MAPPED, PdfInputs.Strategy.BUFFERED}) {
+            PdfDocument pdf = new PdfDocument(PdfInputs.open(src, strategy));
+            pdf.close();
+            // 文件句柄被关闭后可以重命名（Windows下文件被打开时无法重命名）
+            File renamed = tempDir.resolve("renamed.pdf").toFile();
+            assertTrue(new File(src).renameTo(renamed), strategy + " 关闭后应该释放文件");
+            assertTrue(renamed.renameTo(new File(src)));
+        }
+    }
+
+    @Test
+    void testFailedOpenReleasesFile() throws IOException {
+        File fdDir = new File("/proc/self/fd");
+        assumeTrue(fdDir.isDirectory(), "需要 /proc 统计打开的文件句柄");
+        File garbage = tempDir.resolve("garbage.pdf").toFile();
+        Files.write(garbage.toPath(), new byte[64 * 1024]);
+
+        int before = fdDir.list().length;
+        for (PdfInputs.Strategy strategy : new PdfInputs.Strategy[]{PdfInputs.Strategy.MAPPED, PdfInputs.Strategy.BUFFERED}) {
+            for (int i = 0; i < 20; i++) {
+                assertThrows(RuntimeException.class, () -> PdfInputs.open(garbage.getPath(), strategy));
+            }
+        }
+        assertTrue(fdDir.list().length < before + 5, "打开失败后不应留下文件句柄");
+    }
+}
@@ -0,0 +1,152 @@
+package com.open.capacity.itextpdfdemo.io;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.open.capacity.itextpdfdemo.basic.CreateHelloPdf;
+import com.open.capacity.itextpdfdemo.content.AddImageExample;
+import com.open.capacity.itextpdfdemo.content.AddTableExample;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PDF输出目标和缓冲池测试
+ */
+public class PdfOutputsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testStreamOutputMatchesFileOutput() throws IOException {
+        String dest = tempDir.resolve("table.pdf").toString();
+        AddTableExample.create(dest);
+        PooledBuffer buffer = new BufferPool(1, 1024, 1024 * 1024).acquire();
+        AddTableExample.create(buffer);
+
+        // 文件和内存输出的内容相同，只有ID和时间不同
+        assertEquals(Files.size(tempDir.resolve("table.pdf")), buffer.size(), 64);
+        try (InputStream in = buffer.toInputStream();
+             PdfDocument pdf = new PdfDocument(new PdfReader(in))) {
+            assertTrue(PdfTextExtractor.getTextFromPage(pdf.getPage(1)).contains("ID"));
+        }
+        assertThrows(IllegalStateException.class, buffer::release, "关闭输入流时应该已经归还缓冲区");
+    }
+
+    @Test
+    void testCallerStreamIsNotClosed() throws IOException {
+        boolean[] closed = new boolean[1];
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        OutputStream out = new FilterOutputStream(target) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        CreateHelloPdf.create(out);
+        int first = target.size();
+        AddImageExample.create(out, "src/main/resources/images/sample.png");
+
+        assertFalse(closed[0], "调用方的输出流不应该被关闭");
+        assertTrue(first > 0);
+        assertTrue(target.size() > first, "第二个文档应该继续写入同一个输出流");
+        byte[] hello = Arrays.copyOf(target.toByteArray(), first);
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new java.io.ByteArrayInputStream(hello)))) {
+            assertTrue(PdfTextExtractor.getTextFromPage(pdf.getPage(1)).contains("Hello, iText PDF!"));
+        }
+    }
+
+    @Test
+    void testPoolReusesBuffers() throws IOException {
+        BufferPool pool = new BufferPool(2, 1024, 64 * 1024);
+        PooledBuffer buffer = pool.acquire();
+        byte[] array = grow(buffer, 10 * 1024);
+        buffer.close();
+        assertEquals(10 * 1024, buffer.size(), "close不应该影响内容");
+        buffer.release();
+
+        PooledBuffer reused = pool.acquire();
+        assertSame(buffer, reused);
+        assertEquals(0, reused.size(), "归还的缓冲区应该被清空");
+        assertTrue(reused.capacity() >= array.length, "归还的缓冲区应该保留已经扩大的容量");
+        assertEquals(2, pool.getAcquired());
+        assertEquals(1, pool.getCreated());
+        assertThrows(IllegalStateException.class, () -> {
+            reused.release();
+            reused.release();
+        });
+    }
+
+    @Test
+    void testReleasedBufferRejectsUse() {
+        BufferPool pool = new BufferPool(2, 1024, 64 * 1024);
+        PooledBuffer buffer = pool.acquire();
+        grow(buffer, 100);
+        buffer.release();
+
+        assertThrows(IllegalStateException.class, () -> buffer.write(1));
+        assertThrows(IllegalStateException.class, () -> grow(buffer, 10));
+        assertThrows(IllegalStateException.class, buffer::toByteArray);
+        assertThrows(IllegalStateException.class, buffer::toInputStream);
+        assertThrows(IllegalStateException.class, () -> buffer.writeTo(new ByteArrayOutputStream()));
+
+        // 重新借出后可以正常使用
+        assertSame(buffer, pool.acquire());
+        grow(buffer, 10);
+        assertEquals(10, buffer.toByteArray().length);
+    }
+
+    @Test
+    void testStreamCannotReadReusedBuffer() throws IOException {
+        BufferPool pool = new BufferPool(1, 1024, 64 * 1024);
+        PooledBuffer buffer = pool.acquire();
+        buffer.write(1);
+        buffer.write(2);
+        InputStream in = buffer.toInputStream();
+        assertEquals(1, in.read());
+        buffer.release();
+
+        // 缓冲区被其他请求借出并写入新数据后，旧的输入流不能读到这些数据
+        PooledBuffer reused = pool.acquire();
+        assertSame(buffer, reused);
+        reused.write(9);
+        reused.write(9);
+        assertThrows(IOException.class, in::read);
+        assertThrows(IOException.class, () -> in.read(new byte[4], 0, 4));
+
+        // 旧的输入流关闭时不能归还别人正在使用的缓冲区
+        in.close();
+        assertEquals(0, pool.getFree());
+        assertArrayEquals(new byte[]{9, 9}, reused.toByteArray());
+        reused.release();
+    }
+
+    @Test
+    void testOversizedBuffersAreNotRetained() {
+        BufferPool pool = new BufferPool(2, 1024, 64 * 1024);
+        PooledBuffer buffer = pool.acquire();
+        grow(buffer, 200 * 1024);
+        buffer.release();
+
+        assertEquals(0, pool.getFree());
+        assertNotSame(buffer, pool.acquire());
+    }
+
+    private static byte[] grow(PooledBuffer buffer, int bytes) {
+        byte[] data = new byte[bytes];
+        buffer.write(data, 0, data.length);
+        return data;
+    }
+}
@@ -0,0 +1,223 @@
+package com.open.capacity.itextpdfdemo.metrics;
+
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.open.capacity.itextpdfdemo.basic.CreateHelloPdf;
+import com.open.capacity.itextpdfdemo.content.AddTableExample;
+import com.open.capacity.itextpdfdemo.content.AddWatermarkExample;
+import com.open.capacity.itextpdfdemo.io.MeteredPdfWriter;
+import com.open.capacity.itextpdfdemo.io.PdfOutputs;
+import com.open.capacity.itextpdfdemo.page.MergePdfsExample;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 操作统计测试
+ */
+public class MetricsTest {
+
+    private static final String[] HEADERS = {"ID", "Name", "Price"};
+
+    @TempDir
+    Path tempDir;
+
+    private String outputDir;
+
+    @BeforeEach
+    void setUp() {
+        outputDir = tempDir.toString() + File.separator;
+        Metrics.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.unregisterMBeans();
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    void testHistogramPercentilesWithinBucketPrecision() {
+        Histogram histogram = new Histogram();
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_500, histogram.getMean(), 1);
+        // 每个2的幂区间分为8段，误差不超过12.5%
+        assertEquals(5_000_000, histogram.percentile(50), 5_000_000 * 0.125);
+        assertEquals(9_900_000, histogram.percentile(99), 9_900_000 * 0.125);
+        assertEquals(10_000_000, histogram.percentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(99));
+    }
+
+    @Test
+    void testDisabledMetricsUsePlainWritersAndRecordNothing() {
+        OperationTimer timer = Metrics.start("disabled");
+        assertSame(OperationTimer.NOOP, timer);
+        timer.success();
+        timer.close();
+
+        PdfWriter writer = PdfOutputs.newWriter(new ByteArrayOutputStream());
+        assertEquals(PdfWriter.class, writer.getClass());
+        assertNull(Metrics.getStats("disabled"));
+    }
+
+    @Test
+    void testOperationsRecordPagesBytesAndPhases() throws IOException {
+        Metrics.setEnabled(true);
+        String table = outputDir + "table.pdf";
+        String hello = outputDir + "hello.pdf";
+        String watermarked = outputDir + "watermarked.pdf";
+        String merged = outputDir + "merged.pdf";
+
+        AddTableExample.createStreaming(table, HEADERS, rows(3000), 300);
+        CreateHelloPdf.create(hello);
+        int pages = AddWatermarkExample.add(table, watermarked);
+        MergePdfsExample.merge(new String[]{table, hello}, merged);
+
+        OperationStats tableStats = Metrics.getStats("table-streaming");
+        assertEquals(1, tableStats.getCount());
+        assertEquals(0, tableStats.getFailures());
+        assertEquals(pages, tableStats.getPages());
+        assertEquals(new File(table).length(), tableStats.getBytesWritten());
+        assertTrue(tableStats.getPhaseNanos(Phase.LAYOUT) > 0);
+        assertTrue(tableStats.getPhaseNanos(Phase.COMPRESS) > 0);
+        assertTrue(tableStats.getPhaseNanos(Phase.WRITE) > 0);
+        assertEquals(0, tableStats.getPhaseNanos(Phase.PARSE));
+
+        OperationStats watermarkStats = Metrics.getStats("watermark");
+        assertEquals(new File(table).length(), watermarkStats.getBytesRead());
+        assertEquals(new File(watermarked).length(), watermarkStats.getBytesWritten());
+        assertEquals(pages, watermarkStats.getPages());
+        assertTrue(watermarkStats.getPhaseNanos(Phase.PARSE) > 0);
+
+        OperationStats mergeStats = Metrics.getStats("merge");
+        assertEquals(new File(table).length() + new File(hello).length(), mergeStats.getBytesRead());
+        assertEquals(pages + 1, mergeStats.getPages());
+
+        // 各阶段之和等于总耗时
+        long phases = 0;
+        for (Phase phase : Phase.values()) {
+            phases += mergeStats.getPhaseNanos(phase);
+        }
+        assertEquals(mergeStats.getLatency().getSum(), phases);
+    }
+
+    @Test
+    void testSinkReceivesSamplesAndFailuresAreCounted() {
+        Metrics.setEnabled(true);
+        List<OperationSample> samples = new CopyOnWriteArrayList<>();
+        MetricsSink sink = samples::add;
+        Metrics.addSink(sink);
+        try {
+            CreateHelloPdf.create(new ByteArrayOutputStream());
+            assertThrows(IOException.class, () -> AddWatermarkExample.add(outputDir + "missing.pdf",
+                    outputDir + "out.pdf"));
+        } finally {
+            Metrics.removeSink(sink);
+        }
+
+        assertEquals(2, samples.size());
+        assertEquals("create", samples.get(0).getOperation());
+        assertTrue(samples.get(0).isSucceeded());
+        assertEquals(1, samples.get(0).getPages());
+        assertEquals("watermark", samples.get(1).getOperation());
+        assertFalse(samples.get(1).isSucceeded());
+        assertEquals(1, Metrics.getStats("watermark").getFailures());
+        assertNull(Metrics.current(), "操作结束后不应留下当前操作");
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    void testNestedOperationCountsSeparately() {
+        Metrics.setEnabled(true);
+        try (OperationTimer outer = Metrics.start("outer")) {
+            try (PhaseScope ignored = Metrics.phase(Phase.PARSE)) {
+                CreateHelloPdf.create(new ByteArrayOutputStream());
+            }
+            assertSame(outer, Metrics.current());
+            outer.success();
+        }
+
+        assertEquals(1, Metrics.getStats("create").getCount());
+        assertEquals(1, Metrics.getStats("create").getPages());
+        OperationStats outer = Metrics.getStats("outer");
+        assertEquals(0, outer.getPages());
+        assertTrue(outer.getPhaseNanos(Phase.PARSE) >= Metrics.getStats("create").getLatency().getSum());
+    }
+
+    @Test
+    void testStatsAreExposedAsMBeans() throws Exception {
+        Metrics.setEnabled(true);
+        Metrics.registerMBeans();
+        CreateHelloPdf.create(new ByteArrayOutputStream());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = Metrics.objectName("create");
+        assertTrue(server.isRegistered(name));
+        assertEquals(1L, server.getAttribute(name, "Count"));
+        assertEquals(1L, server.getAttribute(name, "Pages"));
+        assertTrue((Double) server.getAttribute(name, "P99Millis") > 0);
+
+        server.invoke(name, "reset", null, null);
+        assertEquals(0, Metrics.getStats("create").getCount());
+
+        Metrics.unregisterMBeans();
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    void testOutputIsIdenticalWithMetricsEnabled() {
+        byte[] plain = table();
+        Metrics.setEnabled(true);
+        assertTrue(PdfOutputs.newWriter(new ByteArrayOutputStream()) instanceof MeteredPdfWriter);
+        byte[] metered = table();
+
+        assertArrayEquals(normalize(plain), normalize(metered));
+        assertEquals(metered.length, Metrics.getStats("table-streaming").getBytesWritten());
+    }
+
+    private static byte[] table() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AddTableExample.createStreaming(out, HEADERS, rows(3000), 300, null);
+        return out.toByteArray();
+    }
+
+    private static Iterator<String[]> rows(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> new String[]{String.valueOf(i), "Item " + i, String.valueOf(i * 10)})
+                .iterator();
+    }
+
+    /**
+     * 去掉每次生成都不同的文档ID和时间
+     */
+    private static byte[] normalize(byte[] pdf) {
+        return new String(pdf, StandardCharsets.ISO_8859_1)
+                .replaceAll("<[0-9a-f]{32}>", "<id>")
+                .replaceAll("D:\\d{14}[^)]*", "D:0")
+                .getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
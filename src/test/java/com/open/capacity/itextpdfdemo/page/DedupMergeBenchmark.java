@@ -0,0 +1,58 @@
+package com.open.capacity.itextpdfdemo.page;
+
+import com.open.capacity.itextpdfdemo.basic.CreateHelloPdf;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import com.open.capacity.itextpdfdemo.content.AddImageExample;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * 去重合并基准测试
+ * 源文件来自项目自己的生成程序（带同一张图片的文档和基础文档），
+ * 报告去重节省的字节数和智能模式哈希带来的额外耗时
+ * 参数: [源文件个数，默认400] [轮数，默认3]
+ */
+public class DedupMergeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        Path workDir = BenchmarkSupport.createWorkDir("dedup-merge-bench");
+        try {
+            String[] sources = new String[count];
+            for (int i = 0; i < count; i++) {
+                sources[i] = workDir.resolve("source" + i + ".pdf").toString();
+                if (i % 2 == 0) {
+                    AddImageExample.create(sources[i], "src/main/resources/images/sample.png");
+                } else {
+                    CreateHelloPdf.create(sources[i]);
+                }
+            }
+            String plain = workDir.resolve("plain.pdf").toString();
+            String deduplicated = workDir.resolve("deduplicated.pdf").toString();
+
+            for (int round = 1; round <= rounds; round++) {
+                System.out.println("--- 第 " + round + " 轮 ---");
+                long start = System.nanoTime();
+                MergePdfsExample.merge(sources, plain);
+                long plainNanos = System.nanoTime() - start;
+                BenchmarkSupport.report("plain merge", count, plainNanos, new File(plain).length(), "files");
+
+                start = System.nanoTime();
+                MergePdfsExample.mergeDeduplicated(sources, deduplicated);
+                long dedupNanos = System.nanoTime() - start;
+                BenchmarkSupport.report("deduplicated merge", count, dedupNanos,
+                        new File(deduplicated).length(), "files");
+
+                System.out.printf("节省 %d bytes (%.1f%%), 哈希额外耗时 %.1f ms%n",
+                        new File(plain).length() - new File(deduplicated).length(),
+                        100.0 * (new File(plain).length() - new File(deduplicated).length()) / new File(plain).length(),
+                        (dedupNanos - plainNanos) / 1e6);
+            }
+        } finally {
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+}
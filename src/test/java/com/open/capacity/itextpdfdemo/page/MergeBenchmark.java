@@ -0,0 +1,68 @@
+package com.open.capacity.itextpdfdemo.page;
+
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import com.open.capacity.itextpdfdemo.bench.HeapSampler;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * PDF合并性能基准测试
+ * 分别在冷缓存（能清空系统文件缓存时）和热缓存下对比各种合并方式，热缓存时同时采样峰值堆内存
+ * （采样依赖GC的时机，只作参考；流式合并不保留复制对象由 MergeModesTest 确定性地检查）
+ * 参数: [源文件个数，默认500] [每个源文件页数，默认5]
+ */
+public class MergeBenchmark {
+
+    private interface MergeRun {
+        void merge(String[] sources, String dest) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int pages = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Path workDir = BenchmarkSupport.createWorkDir("merge-bench");
+        try {
+            String[] sources = new String[count];
+            for (int i = 0; i < count; i++) {
+                sources[i] = workDir.resolve("source" + i + ".pdf").toString();
+                BenchmarkSupport.createSamplePdf(sources[i], pages);
+            }
+            String dest = workDir.resolve("merged.pdf").toString();
+
+            run("linear", sources, dest, MergePdfsExample::merge);
+            run("streaming", sources, dest, (s, d) -> MergePdfsExample.mergeStreaming(s, d, 1));
+            run("pipelined depth=4", sources, dest,
+                    (s, d) -> MergePdfsExample.mergePipelined(s, d, 4, 64L * 1024 * 1024));
+            run("pipelined depth=16", sources, dest,
+                    (s, d) -> MergePdfsExample.mergePipelined(s, d, 16, 64L * 1024 * 1024));
+        } finally {
+            BenchmarkSupport.deleteRecursively(workDir);
+        }
+    }
+
+    private static void run(String name, String[] sources, String dest, MergeRun mergeRun) throws Exception {
+        if (BenchmarkSupport.dropFileCache()) {
+            long start = System.nanoTime();
+            mergeRun.merge(sources, dest);
+            BenchmarkSupport.report(name + " (cold)", sources.length, System.nanoTime() - start,
+                    new File(dest).length(), "files");
+        } else {
+            System.out.println(name + " (cold): 无法清空文件缓存，跳过");
+        }
+        // 热缓存：先跑一次预热
+        mergeRun.merge(sources, dest);
+        System.gc();
+        HeapSampler sampler = new HeapSampler(5);
+        long start = System.nanoTime();
+        try {
+            mergeRun.merge(sources, dest);
+        } finally {
+            sampler.close();
+        }
+        BenchmarkSupport.report(name + " (warm)", sources.length, System.nanoTime() - start,
+                new File(dest).length(), "files");
+        System.out.println("  峰值堆内存: " + sampler.getPeak() / 1024 / 1024 + " MB");
+    }
+}
@@ -0,0 +1,217 @@
+package com.open.capacity.itextpdfdemo.page;
+
+import com.itextpdf.kernel.pdf.PdfDictionary;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfIndirectReference;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+import com.open.capacity.itextpdfdemo.content.AddImageExample;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 各种合并方式的测试
+ */
+public class MergeModesTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String outputDir;
+
+    @BeforeEach
+    void setUp() {
+        outputDir = tempDir.toString() + File.separator;
+    }
+
+    @Test
+    void testStreamingMergeKeepsPageOrder() throws IOException {
+        String[] sources = createSources(7, 3);
+        String dest = outputDir + "merged.pdf";
+
+        MergePdfsExample.mergeStreaming(sources, dest, 2);
+
+        PdfDocument pdf = new PdfDocument(new PdfReader(dest));
+        assertEquals(21, pdf.getNumberOfPages(), "合并后的页数应该是所有源文件页数之和");
+        assertTrue(PdfTextExtractor.getTextFromPage(pdf.getPage(4)).contains("Doc1 1"),
+                "第二个源文件的第一页应该在第4页");
+        pdf.close();
+    }
+
+    @Test
+    void testPipelinedMergeKeepsInputOrderAndSkipsBrokenFiles() throws IOException {
+        String[] sources = createSources(9, 2);
+        String[] withBroken = new String[sources.length + 1];
+        System.arraycopy(sources, 0, withBroken, 0, 4);
+        withBroken[4] = outputDir + "missing.pdf";
+        System.arraycopy(sources, 4, withBroken, 5, sources.length - 4);
+        String dest = outputDir + "pipelined.pdf";
+
+        // 很小的内存额度也应该能完成合并，只是预读变浅
+        MergePdfsExample.mergePipelined(withBroken, dest, 4, 1);
+
+        PdfDocument pdf = new PdfDocument(new PdfReader(dest));
+        assertEquals(18, pdf.getNumberOfPages(), "无法读取的文件应该被跳过");
+        for (int i = 1; i <= pdf.getNumberOfPages(); i++) {
+            String expected = "Doc" + ((i - 1) / 2) + " " + ((i - 1) % 2 + 1);
+            assertTrue(PdfTextExtractor.getTextFromPage(pdf.getPage(i)).contains(expected),
+                    "第 " + i + " 页的顺序应该与输入一致");
+        }
+        pdf.close();
+    }
+
+    @Test
+    void testDeduplicatedMergeSharesIdenticalImages() throws IOException {
+        String[] sources = new String[5];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = outputDir + "image" + i + ".pdf";
+            AddImageExample.create(sources[i], "src/main/resources/images/sample.png");
+        }
+        String plain = outputDir + "plain.pdf";
+        String deduplicated = outputDir + "deduplicated.pdf";
+
+        MergePdfsExample.merge(sources, plain);
+        MergePdfsExample.mergeDeduplicated(sources, deduplicated);
+
+        assertTrue(new File(deduplicated).length() < new File(plain).length(), "去重合并的输出应该更小");
+
+        // 所有页面应该引用同一个图片对象
+        PdfDocument pdf = new PdfDocument(new PdfReader(deduplicated));
+        assertEquals(5, pdf.getNumberOfPages());
+        Set<PdfIndirectReference> images = new HashSet<>();
+        for (int i = 1; i <= pdf.getNumberOfPages(); i++) {
+            PdfDictionary xObjects = pdf.getPage(i).getResources().getResource(PdfName.XObject);
+            for (PdfName name : xObjects.keySet()) {
+                images.add(xObjects.get(name, false).getIndirectReference());
+            }
+        }
+        assertEquals(1, images.size(), "相同的图片应该只写入一次");
+        pdf.close();
+    }
+
+    @Test
+    void testTreeMergeMatchesLinearPageOrder() throws IOException {
+        String[] sources = createSources(25, 2);
+        String linear = outputDir + "linear.pdf";
+        String inMemory = outputDir + "tree_memory.pdf";
+        String spilled = outputDir + "tree_spilled.pdf";
+
+        MergePdfsExample.merge(sources, linear);
+        new TreeMerger().setGroupSize(3).setParallelism(4).merge(sources, inMemory);
+        // 阈值为0时所有中间文档都写入临时文件
+        new TreeMerger().setGroupSize(4).setParallelism(2).setSpillThresholdBytes(0).merge(sources, spilled);
+
+        assertEquals(pageTexts(linear), pageTexts(inMemory), "合并树的页序应该与线性合并一致");
+        assertEquals(pageTexts(linear), pageTexts(spilled), "中间文档写入临时文件时页序应该与线性合并一致");
+    }
+
+    @Test
+    void testTreeMergeBoundsRetainedIntermediates() throws IOException {
+        String[] sources = createSources(60, 2);
+        long sourceBytes = new File(sources[0]).length();
+        // 每组的输入约为4个源文件，上限只够同时保留3个中间文档，其余的必须写入临时文件
+        long threshold = sourceBytes * 5;
+        TreeMerger merger = new TreeMerger().setGroupSize(4).setParallelism(1).setSpillThresholdBytes(threshold);
+        String dest = outputDir + "tree_bounded.pdf";
+
+        merger.merge(sources, dest);
+
+        assertTrue(merger.getPeakRetainedBytes() > 0, "小的中间文档应该保留在内存中");
+        assertTrue(merger.getPeakRetainedBytes() <= threshold,
+                "内存中的中间文档不应超过阈值乘以并行线程数: " + merger.getPeakRetainedBytes());
+        String linear = outputDir + "linear.pdf";
+        MergePdfsExample.merge(sources, linear);
+        assertEquals(pageTexts(linear), pageTexts(dest), "部分中间文档写入临时文件时页序应该保持不变");
+    }
+
+    @Test
+    void testTreeMergeRemovesTemporaryFiles() throws IOException {
+        String[] sources = createSources(20, 1);
+        Set<String> before = spillFiles();
+
+        new TreeMerger().setGroupSize(3).setParallelism(2).setSpillThresholdBytes(0)
+                .merge(sources, outputDir + "tree.pdf");
+        assertEquals(before, spillFiles(), "合并完成后不应留下临时文件");
+    }
+
+
+    @Test
+    void testStreamingMergeRetainsNoCopiedObjects() throws IOException {
+        String[] allSources = createSources(80, 5);
+        String[] fewSources = Arrays.copyOf(allSources, 20);
+
+        int few = retainedAfterStreaming(fewSources);
+        int all = retainedAfterStreaming(allSources);
+
+        // 复制过来的页面、内容流和字体都已经写出，输出文档中留在内存里的只有目录和文档信息
+        assertEquals(few, all, "内存中保留的对象数不应随输入数量增长");
+        assertTrue(all <= 2, "流式合并不应保留复制过来的对象: " + all);
+    }
+
+    /**
+     * 流式合并后输出文档中还没有写出的对象数，不含页面树节点
+     */
+    private static int retainedAfterStreaming(String[] sources) {
+        PdfDocument merged = new PdfDocument(new PdfWriter(new ByteArrayOutputStream()));
+        MergePdfsExample.mergeStreaming(sources, merged, 1);
+        int retained = 0;
+        for (int i = 1; i < merged.getNumberOfPdfObjects(); i++) {
+            PdfObject object = merged.getPdfObject(i);
+            if (object == null || object.isFlushed()) {
+                continue;
+            }
+            // 页面树节点只保存页面的引用，关闭文档时才写出
+            if (object instanceof PdfDictionary && PdfName.Pages.equals(((PdfDictionary) object).getAsName(PdfName.Type))) {
+                continue;
+            }
+            retained++;
+        }
+        merged.close();
+        return retained;
+    }
+
+    private List<String> pageTexts(String pdfPath) throws IOException {
+        List<String> texts = new ArrayList<>();
+        PdfDocument pdf = new PdfDocument(new PdfReader(pdfPath));
+        for (int i = 1; i <= pdf.getNumberOfPages(); i++) {
+            texts.add(PdfTextExtractor.getTextFromPage(pdf.getPage(i)));
+        }
+        pdf.close();
+        return texts;
+    }
+
+    private String[] createSources(int count, int pages) throws IOException {
+        String[] sources = new String[count];
+        for (int i = 0; i < count; i++) {
+            sources[i] = outputDir + "source" + i + ".pdf";
+            BenchmarkSupport.createSamplePdf(sources[i], pages, "Doc" + i);
+        }
+        return sources;
+    }
+
+    private static Set<String> spillFiles() {
+        Set<String> names = new HashSet<>();
+        String[] files = new File(System.getProperty("java.io.tmpdir")).list((dir, name) -> name.startsWith("merge-tree"));
+        if (files != null) {
+            names.addAll(Arrays.asList(files));
+        }
+        return names;
+    }
+}
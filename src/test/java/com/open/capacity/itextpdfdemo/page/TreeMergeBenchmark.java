@@ -0,0 +1,52 @@
+package com.open.capacity.itextpdfdemo.page;
+
+import com.open.capacity.itextpdfdemo.bench.BenchmarkSupport;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 合并树扩展性基准测试
+ * 对每个输入规模分别测量线性合并和不同并行度的合并树的耗时
+ * 参数: [输入规模列表，默认1000,10000,50000] [分组大小，默认64]
+ */
+public class TreeMergeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String[] sizes = (args.length > 0 ? args[0] : "1000,10000,50000").split(",");
+        int groupSize = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        for (String size : sizes) {
+            int count = Integer.parseInt(size.trim());
+            Path workDir = BenchmarkSupport.createWorkDir("tree-merge-bench");
+            try {
+                // 所有输入内容相同，复制同一个文件即可
+                String template = workDir.resolve("template.pdf").toString();
+                BenchmarkSupport.createSamplePdf(template, 1);
+                String[] sources = new String[count];
+                for (int i = 0; i < count; i++) {
+                    sources[i] = workDir.resolve("source" + i + ".pdf").toString();
+                    Files.copy(new File(template).toPath(), new File(sources[i]).toPath());
+                }
+                String dest = workDir.resolve("merged.pdf").toString();
+                System.out.println("--- " + count + " 个输入 ---");
+
+                long start = System.nanoTime();
+                MergePdfsExample.merge(sources, dest);
+                BenchmarkSupport.report("linear", count, System.nanoTime() - start,
+                        new File(dest).length(), "files");
+
+                for (int parallelism = 1; parallelism <= cores; parallelism++) {
+                    start = System.nanoTime();
+                    new TreeMerger().setGroupSize(groupSize).setParallelism(parallelism).merge(sources, dest);
+                    BenchmarkSupport.report("tree x" + parallelism, count, System.nanoTime() - start,
+                            new File(dest).length(), "files");
+                }
+            } finally {
+                BenchmarkSupport.deleteRecursively(workDir);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.open.capacity.itextpdfdemo.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 作业图测试
+ */
+public class JobGraphTest {
+
+    @Test
+    void testIndependentStepsRunConcurrently() throws InterruptedException {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        JobGraph graph = new JobGraph().setWorkers(2);
+        for (String name : new String[]{"a", "b"}) {
+            graph.addStep(name, () -> {
+                bothStarted.countDown();
+                if (!bothStarted.await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("steps did not overlap");
+                }
+            });
+        }
+
+        JobReport report = graph.run();
+
+        assertTrue(report.isSuccessful(), report.toString());
+    }
+
+    @Test
+    void testDependenciesRunFirst() throws InterruptedException {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        JobReport report = new JobGraph().setWorkers(4)
+                .addStep("merge", () -> order.add("merge"), "hello", "image", "table")
+                .addStep("watermark", () -> order.add("watermark"), "hello")
+                .addStep("hello", () -> order.add("hello"))
+                .addStep("image", () -> order.add("image"))
+                .addStep("table", () -> order.add("table"))
+                .run();
+
+        assertTrue(report.isSuccessful(), report.toString());
+        assertEquals(5, order.size());
+        assertTrue(order.indexOf("hello") < order.indexOf("watermark"));
+        for (String dependency : new String[]{"hello", "image", "table"}) {
+            assertTrue(order.indexOf(dependency) < order.indexOf("merge"), order.toString());
+        }
+        assertEquals("merge", report.getResults().get(0).getName());
+    }
+
+    @Test
+    void testFailureSkipsDependents() throws InterruptedException {
+        AtomicInteger executed = new AtomicInteger();
+        JobReport report = new JobGraph().setWorkers(2)
+                .addStep("hello", () -> {
+                    throw new IOException("disk full");
+                })
+                .addStep("image", executed::incrementAndGet)
+                .addStep("watermark", executed::incrementAndGet, "hello")
+                .addStep("merge", executed::incrementAndGet, "watermark", "image")
+                .run();
+
+        assertFalse(report.isSuccessful());
+        assertEquals(1, executed.get());
+        assertEquals(1, report.count(StepResult.Status.OK));
+        assertEquals(1, report.count(StepResult.Status.FAILED));
+        assertEquals(2, report.count(StepResult.Status.SKIPPED));
+        StepResult hello = report.getResults().get(0);
+        assertEquals(StepResult.Status.FAILED, hello.getStatus());
+        assertTrue(hello.getMessage().contains("disk full"));
+        assertEquals(StepResult.Status.SKIPPED, report.getResults().get(3).getStatus());
+    }
+
+    @Test
+    void testInvalidGraphs() {
+        JobGraph duplicate = new JobGraph().addStep("a", () -> { });
+        assertThrows(IllegalArgumentException.class, () -> duplicate.addStep("a", () -> { }));
+
+        JobGraph unknown = new JobGraph().addStep("a", () -> { }, "missing");
+        assertThrows(IllegalArgumentException.class, unknown::run);
+
+        AtomicInteger executed = new AtomicInteger();
+        JobGraph cycle = new JobGraph()
+                .addStep("root", executed::incrementAndGet)
+                .addStep("a", executed::incrementAndGet, "root", "b")
+                .addStep("b", executed::incrementAndGet, "a");
+        IllegalStateException e = assertThrows(IllegalStateException.class, cycle::run);
+        assertTrue(e.getMessage().contains("[a, b]"), e.getMessage());
+        assertEquals(0, executed.get());
+    }
+
+    @Test
+    void testCriticalPath() throws InterruptedException {
+        JobReport report = new JobGraph().setWorkers(4)
+                .addStep("hello", sleep(20))
+                .addStep("image", sleep(10))
+                .addStep("table", sleep(150))
+                .addStep("watermark", sleep(20), "hello")
+                .addStep("merge", sleep(30), "hello", "image", "table")
+                .run();
+
+        List<String> path = report.getCriticalPath().stream().map(StepResult::getName).collect(Collectors.toList());
+        assertEquals(Arrays.asList("table", "merge"), path);
+        assertTrue(report.getCriticalPathNanos() >= TimeUnit.MILLISECONDS.toNanos(180));
+        assertEquals("table", report.getSlowest(1).get(0).getName());
+        assertTrue(report.toString().contains("table -> merge"), report.toString());
+    }
+
+    @Test
+    void testLargeGraph() throws InterruptedException {
+        // 500个步骤：每层100个，每个步骤依赖上一层的3个步骤
+        int width = 100;
+        int depth = 5;
+        AtomicInteger executed = new AtomicInteger();
+        JobGraph graph = new JobGraph().setWorkers(4);
+        for (int layer = 0; layer < depth; layer++) {
+            for (int i = 0; i < width; i++) {
+                String[] dependencies = layer == 0 ? new String[0] : new String[]{
+                        step(layer - 1, i), step(layer - 1, (i + 1) % width), step(layer - 1, (i + 7) % width)};
+                graph.addStep(step(layer, i), executed::incrementAndGet, dependencies);
+            }
+        }
+
+        JobReport report = graph.run();
+
+        assertEquals(width * depth, graph.size());
+        assertTrue(report.isSuccessful(), report.toString());
+        assertEquals(width * depth, executed.get());
+        assertEquals(depth, report.getCriticalPath().size());
+    }
+
+    private static String step(int layer, int index) {
+        return "step-" + layer + "-" + index;
+    }
+
+    private static JobGraph.Step sleep(long millis) {
+        return () -> Thread.sleep(millis);
+    }
+}